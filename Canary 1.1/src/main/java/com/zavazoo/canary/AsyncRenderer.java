@@ -0,0 +1,190 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.zavazoo.canary.sink.CanaryEvent;
+
+/**
+ * Renders the snapshots of traces on a daemon thread rather than on the
+ * calling threads, such that the cost of a trace to its calling thread is
+ * bounded by the cost of taking the snapshot of its variable rather than by
+ * the cost of rendering the variable.<br/>
+ * <br/>
+ * Deferred traces are held in a bounded queue and rendered and written in the
+ * order in which they were deferred. A trace that finds the queue full is
+ * rendered on its calling thread as usual, such that traces are never lost
+ * and a backlog never grows beyond the capacity of the queue. Traces still
+ * queued when the application shuts down are rendered and written by a
+ * shutdown hook.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class AsyncRenderer {
+
+	/** The deferred traces awaiting rendering. */
+	private final ArrayBlockingQueue<Deferral> queue;
+
+	/**
+	 * Creates a renderer with a queue of the specified capacity and starts
+	 * its rendering thread.
+	 * 
+	 * @param capacity
+	 *            the maximum number of deferred traces awaiting rendering.
+	 */
+	AsyncRenderer(int capacity) {
+
+		queue = new ArrayBlockingQueue<Deferral>(Math.max(capacity, 1));
+
+		Thread renderer = new Thread(new Runnable() {
+
+			public void run() {
+
+				while (true) {
+
+					try {
+
+						render(queue.take());
+
+					} catch (InterruptedException error) {
+
+						return;
+
+					}
+
+				}
+
+			}
+
+		}, "canary-async-renderer");
+
+		renderer.setDaemon(true);
+		renderer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			public void run() {
+
+				drain();
+
+				Canary.flush();
+
+			}
+
+		}, "canary-async-renderer-shutdown"));
+
+	}
+
+	/**
+	 * Defers the rendering of the specified snapshot for the specified
+	 * captured event using the specified maximum length of the
+	 * representation.
+	 * 
+	 * @param event
+	 *            the event, which is not reused and whose location is
+	 *            resolved if required.
+	 * @param snapshot
+	 *            the snapshot of the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return true if the rendering was deferred, false if the queue is full
+	 *         in which case the caller renders the event itself.
+	 */
+	boolean defer(CanaryEvent event, Object snapshot, int maximum) {
+
+		return queue.offer(new Deferral(event, snapshot, maximum));
+
+	}
+
+	/**
+	 * Renders and writes every deferred trace still queued.
+	 */
+	void drain() {
+
+		Deferral deferral = queue.poll();
+
+		while (deferral != null) {
+
+			render(deferral);
+
+			deferral = queue.poll();
+
+		}
+
+	}
+
+	/**
+	 * Renders and writes the specified deferred trace.
+	 * 
+	 * @param deferral
+	 *            the deferred trace.
+	 */
+	private static void render(Deferral deferral) {
+
+		try {
+
+			Canary.renderDeferred(deferral.event, deferral.snapshot,
+					deferral.maximum);
+
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Defines a trace whose rendering has been deferred.
+	 */
+	private static class Deferral {
+
+		/** The captured event. */
+		private final CanaryEvent event;
+
+		/** The snapshot of the variable. */
+		private final Object snapshot;
+
+		/** The maximum length of the representation. */
+		private final int maximum;
+
+		/**
+		 * Creates a deferred trace.
+		 * 
+		 * @param event
+		 *            the captured event.
+		 * @param snapshot
+		 *            the snapshot of the variable.
+		 * @param maximum
+		 *            the maximum length of the representation.
+		 */
+		private Deferral(CanaryEvent event, Object snapshot, int maximum) {
+
+			this.event = event;
+			this.snapshot = snapshot;
+			this.maximum = maximum;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -18,17 +18,50 @@
 
 package com.zavazoo.canary;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.GregorianCalendar;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import com.zavazoo.canary.output.BulkDumpWriter;
+import com.zavazoo.canary.output.DeltaTracker;
+import com.zavazoo.canary.output.RenderDeadline;
+import com.zavazoo.canary.output.VariableSnapshot;
+import com.zavazoo.canary.output.VariableAppender;
 import com.zavazoo.canary.output.VariableDecorator;
 import com.zavazoo.canary.output.VariableDecoratorStrategy;
+import com.zavazoo.canary.sink.ApplicationLogSink;
+import com.zavazoo.canary.sink.CanaryEvent;
+import com.zavazoo.canary.sink.CanarySink;
+import com.zavazoo.canary.sink.FlightRecorderSink;
+import com.zavazoo.canary.sink.ShardedTraceFileWriter;
+import com.zavazoo.canary.sink.StandardOutputSink;
+import com.zavazoo.canary.sink.StandardOutputWriter;
+import com.zavazoo.canary.sink.TraceContext;
+import com.zavazoo.canary.sink.TraceEventPublisher;
+import com.zavazoo.canary.sink.TraceFileSink;
+import com.zavazoo.canary.sink.VirtualThreads;
 
 /**
  * Defines a Canary that enables flexible trace logging with extended but
@@ -47,10 +80,23 @@ import com.zavazoo.canary.output.VariableDecoratorStrategy;
  * Collection - (element1, element2, element3)<br/>
  * Map - {entry1key => entry1value, entry2key => entry2value, entry3key =>
  * entry3value}<br/>
+ * Buffer - &lt;element1, element2, element3&gt; or &lt;0a ff 3c&gt;<br/>
+ * Iterable other than a path or throwable - (element1, element2, element3)<br/>
+ * Optional - Optional[value] or Optional.empty<br/>
  * null - null<br/>
  * char=0 - null<br/>
  * default - variable.toString()<br/>
  * <br/>
+ * Canary captures each trace once as an event, renders the variable once and
+ * dispatches the event to each of its sinks, which each format the event for
+ * their destination. The sinks configured below are complemented by any sinks
+ * registered using addSink() or discovered by the service loader.<br/>
+ * <br/>
+ * Each event carries the trace context open on the thread that captured it,
+ * being key/value pairs such as a request id opened by openContext(), which
+ * executors wrapped by contextExecutor() and contextExecutorService()
+ * propagate to the tasks submitted to them.<br/>
+ * <br/>
  * Canary reads configuration data from a properties file named
  * canary.properties in the root of the class hierarchy alongside
  * log4j.properties. An average Canary properties file would contain the
@@ -80,7 +126,135 @@ import com.zavazoo.canary.output.VariableDecoratorStrategy;
  * # written to the application logs or standard output. Defined in order to<br/>
  * # obviate the prospect of Canary acting as a CPU hog during the output of<br/>
  * # extremely long lines<br/>
- * canary.maximumRepresentationCharacters=200
+ * canary.maximumRepresentationCharacters=200<br/>
+ * <br/>
+ * # Publish each trace as a JDK Flight Recorder event subject to the settings<br/>
+ * # of the running recording e.g. true, false (optional, defaults to false)<br/>
+ * canary.writeToFlightRecorder=false<br/>
+ * <br/>
+ * # Write complete lines to the standard output file descriptor in per-thread<br/>
+ * # batches rather than through System.out e.g. true, false (optional,<br/>
+ * # defaults to false)<br/>
+ * canary.standardOutputBuffered=false<br/>
+ * <br/>
+ * # The size in bytes of the batch of each thread and the interval in<br/>
+ * # milliseconds at which all batches are written when standard output is<br/>
+ * # buffered (optional, defaults to 8192 and 100)<br/>
+ * canary.standardOutputBufferBytes=8192<br/>
+ * canary.standardOutputFlushMillis=100<br/>
+ * <br/>
+ * # Write each trace to a shard file of the specified directory owned by the<br/>
+ * # writing thread, or shared by a stripe of threads if the number of stripes<br/>
+ * # is positive, merged in time order by ShardedTraceFileReader (optional,<br/>
+ * # trace files are disabled by default)<br/>
+ * canary.traceFileDirectory=/var/log/canary<br/>
+ * canary.traceFileStripes=0<br/>
+ * canary.traceFileBufferBytes=65536<br/>
+ * canary.traceFileFlushMillis=1000<br/>
+ * <br/>
+ * # Reach Canary through a call site that the JIT compiler folds away while<br/>
+ * # Canary is muted and that is switched by mute() and unmute() e.g. true,<br/>
+ * # false (optional, defaults to false)<br/>
+ * canary.callSiteSwitching=false<br/>
+ * <br/>
+ * # Capture and render each trace into an event and a builder borrowed from<br/>
+ * # a bounded pool shared by all threads, appending variables without<br/>
+ * # decorators or intermediate strings, and buffer standard output, such<br/>
+ * # that tracing through probes to standard output or trace files allocates<br/>
+ * # nothing once warmed up e.g. true, false (optional, defaults to false),<br/>
+ * # with the number of pooled buffers (optional, defaults to four per<br/>
+ * # processor and at least 16)<br/>
+ * canary.garbageFree=false<br/>
+ * canary.renderBufferPoolSize=16<br/>
+ * <br/>
+ * # Allocate the batches of buffered standard output and the buffers of trace<br/>
+ * # files outside the heap such that they are written without an extra copy<br/>
+ * # e.g. true, false (optional, defaults to false)<br/>
+ * canary.directBuffers=false<br/>
+ * <br/>
+ * # Represent the remaining bytes of byte buffers as a hex dump rather than<br/>
+ * # as signed bytes e.g. true, false (optional, defaults to false)<br/>
+ * canary.byteBufferHexDump=false<br/>
+ * <br/>
+ * # Represent iterators, spliterators and streams by the elements that they<br/>
+ * # yield, which consumes those elements, rather than by toString() e.g.<br/>
+ * # true, false (optional, defaults to false)<br/>
+ * canary.renderIterators=false<br/>
+ * <br/>
+ * # Represent arrays and collections larger than the threshold by their size<br/>
+ * # and their first and last elements, or by a deterministic sample if they<br/>
+ * # can be neither indexed nor iterated in reverse and sampling is true<br/>
+ * # (optional, defaults to 0 which disables the threshold, 3 and false)<br/>
+ * canary.largeCollectionThreshold=0<br/>
+ * canary.largeCollectionElements=3<br/>
+ * canary.largeCollectionSampling=false<br/>
+ * <br/>
+ * # Represent numeric arrays and collections of numbers by their count, min,<br/>
+ * # max, mean, stddev, NaN and zero counts and histogram if they are larger<br/>
+ * # than the threshold or have one of the comma separated identifiers<br/>
+ * # (optional, defaults to 0 which disables the threshold and none)<br/>
+ * canary.summaryThreshold=0<br/>
+ * canary.summaryIdentifiers=latencies,prices<br/>
+ * <br/>
+ * # Render arrays, random access lists and ordered collections larger than<br/>
+ * # the threshold in parallel chunks, producing the same representation,<br/>
+ * # once the maximum representation characters have room for a whole wave<br/>
+ * # of chunks (optional, defaults to 0 which disables the threshold)<br/>
+ * canary.parallelRenderingThreshold=0<br/>
+ * <br/>
+ * # Abandon the rendering of a trace once it has taken the budget in<br/>
+ * # nanoseconds, marking the representation with <render deadline<br/>
+ * # exceeded>, and represent types whose toString() operation exceeds the<br/>
+ * # budget on the number of strikes by their type and identity hash code<br/>
+ * # (optional, defaults to 0 which disables the budget and 3)<br/>
+ * canary.renderBudgetNanos=0<br/>
+ * canary.slowTypeStrikes=3<br/>
+ * <br/>
+ * # Write arrays, buffers and collections larger than the threshold in bytes<br/>
+ * # in full to a dump file of the specified directory, tracing only a<br/>
+ * # reference such as &lt;dump#1842 int[50000000] &#8594;<br/>
+ * # dumps/canary-4711-1842.bin&gt; (optional, defaults to no dumps and<br/>
+ * # 1048576)<br/>
+ * canary.dumpDirectory=/var/log/canary/dumps<br/>
+ * canary.dumpThresholdBytes=1048576<br/>
+ * <br/>
+ * # Represent maps, arrays and collections with one of the comma separated<br/>
+ * # identifiers by only the entries added, changed and removed since their<br/>
+ * # previous output at the same call site, and in full every so many outputs<br/>
+ * # (optional, defaults to none and 10)<br/>
+ * canary.deltaIdentifiers=routes,sessions<br/>
+ * canary.deltaSnapshotInterval=10<br/>
+ * <br/>
+ * # Write only the first of the traces that repeat the call site, identifier<br/>
+ * # and representation of a trace within the window, followed by a single<br/>
+ * # trace of the number of repetitions once the window closes, tracked in a<br/>
+ * # fixed number of slots (optional, defaults to 0 which disables the window<br/>
+ * # and 4096)<br/>
+ * canary.suppressionWindowMillis=0<br/>
+ * canary.suppressionSlots=4096<br/>
+ * <br/>
+ * # Keep the time spent inside Canary under the percentage of the processing<br/>
+ * # capacity of the machine, measured at the interval, by progressively<br/>
+ * # representing fewer elements and characters, sampling the noisiest call<br/>
+ * # sites, told apart by location where a sink requires the location, and<br/>
+ * # no longer capturing locations while over budget, as reported<br/>
+ * # by the com.zavazoo.canary:type=OverheadGovernor MBean (optional,<br/>
+ * # defaults to 0 which disables the budget and 1000)<br/>
+ * canary.cpuBudgetPercent=2<br/>
+ * canary.governorIntervalMillis=1000<br/>
+ * <br/>
+ * # Take a shallow snapshot of maps, arrays and collections when they are<br/>
+ * # traced and render and write the snapshot on a daemon thread, such that<br/>
+ * # deferred traces may be written after later traces of the same thread,<br/>
+ * # rendering on the calling thread whenever the queue of the capacity is<br/>
+ * # full. The application log, trace file and flight recorder sinks are<br/>
+ * # confined to the calling thread, so rendering is never deferred while<br/>
+ * # any of them is enabled, including the application log sink enabled by<br/>
+ * # canary.writeToApplicationLogs=true, and a warning naming them is<br/>
+ * # written to standard output once Canary is initialised<br/>
+ * # (optional, defaults to false and 8192)<br/>
+ * canary.asyncRendering=false<br/>
+ * canary.asyncRenderingCapacity=8192
  * 
  * @author Chris White <chriswhitelondon@gmail.com>
  * @since JDK6
@@ -92,10 +266,6 @@ public abstract class Canary {
 	 */
 	protected static final Logger logger = Logger.getLogger(Canary.class);
 
-	/** The date format used to represent variables to standard output. */
-	private static DateFormat DATE_FORMAT = new SimpleDateFormat(
-			"yyyy/MM/dd HH:mm:ss.SSS");
-
 	/**
 	 * Switch used to indicate that this Canary is muted and therefore will
 	 * never write to the application logs or standard output. If the muted
@@ -104,32 +274,197 @@ public abstract class Canary {
 	 */
 	private static volatile Boolean muted = null;
 
-	/** The log level of this Canary. */
-	private static Level logLevel;
+	/**
+	 * Switch used to indicate that calling components reach this Canary
+	 * through the output call site rather than by reading the muted switch.
+	 */
+	private static final boolean CALL_SITE_SWITCHING;
+
+	/** The type of the output call site. */
+	private static final MethodType OUTPUT_TYPE = MethodType.methodType(
+			void.class, String.class, Object.class, Logger.class);
+
+	/** The target of the output call site while this Canary is unmuted. */
+	private static final MethodHandle UNMUTED_OUTPUT = findUnmutedOutput();
+
+	/** The target of the output call site while this Canary is muted. */
+	private static final MethodHandle MUTED_OUTPUT = MethodHandles
+			.empty(OUTPUT_TYPE);
+
+	/**
+	 * The call site through which calling components reach this Canary when
+	 * call site switching is enabled. The JIT compiler treats the target of
+	 * the call site as a constant and therefore folds away calls while this
+	 * Canary is muted, recompiling the calling components when the target is
+	 * switched.
+	 */
+	private static final MutableCallSite OUTPUT_CALL_SITE = new MutableCallSite(
+			MUTED_OUTPUT);
+
+	/** The invoker of the output call site. */
+	private static final MethodHandle OUTPUT_INVOKER = OUTPUT_CALL_SITE
+			.dynamicInvoker();
 
 	/**
-	 * Switch used to indicate that this Canary should write to the application
-	 * logs.
+	 * The call site through which the outputs of primitive values and lazily
+	 * supplied variables read whether this Canary is unmuted when call site
+	 * switching is enabled, the target of which is a constant that the JIT
+	 * compiler folds.
 	 */
-	private static boolean writeToApplicationLogs;
+	private static final MutableCallSite UNMUTED_CALL_SITE = new MutableCallSite(
+			MethodHandles.constant(boolean.class, false));
+
+	/** The invoker of the unmuted call site. */
+	private static final MethodHandle UNMUTED_INVOKER = UNMUTED_CALL_SITE
+			.dynamicInvoker();
+
+	/** The appender of integers. */
+	private static final PrimitiveAppender INTEGER_APPENDER = (bits,
+			destination) -> destination.append((int) bits);
+
+	/** The appender of longs. */
+	private static final PrimitiveAppender LONG_APPENDER = (bits,
+			destination) -> destination.append(bits);
+
+	/** The appender of floats. */
+	private static final PrimitiveAppender FLOAT_APPENDER = (bits,
+			destination) -> VariableAppender.appendFloat(
+			Float.intBitsToFloat((int) bits), destination);
+
+	/** The appender of doubles. */
+	private static final PrimitiveAppender DOUBLE_APPENDER = (bits,
+			destination) -> VariableAppender.appendDouble(
+			Double.longBitsToDouble(bits), destination);
+
+	/** The appender of booleans. */
+	private static final PrimitiveAppender BOOLEAN_APPENDER = (bits,
+			destination) -> destination.append(bits != 0);
+
+	/** The appender of characters, which represents the character 0 as null. */
+	private static final PrimitiveAppender CHARACTER_APPENDER = (bits,
+			destination) -> {
+
+		if (bits == 0) {
+
+			destination.append("null");
+
+		} else {
+
+			destination.append((char) bits);
+
+		}
+
+	};
+
+	/**
+	 * The builder reused by each platform thread for the representations of
+	 * primitive values of events that are not reused.
+	 */
+	private static final ThreadLocal<StringBuilder> PRIMITIVE_BUILDER = new ThreadLocal<StringBuilder>() {
+
+		@Override
+		protected StringBuilder initialValue() {
+
+			return new StringBuilder(32);
+
+		}
+
+	};
+
+	/**
+	 * Switch used to indicate that this Canary captures and renders traces
+	 * using render buffers borrowed from a pool rather than new objects.
+	 */
+	private static final boolean GARBAGE_FREE;
 
 	/**
-	 * Switch used to indicate that this Canary should write to standard output.
+	 * The pool of render buffers borrowed by traces in the garbage-free mode,
+	 * or null if not in the garbage-free mode.
 	 */
-	private static boolean writeToStandardOutput;
+	private static final RenderBufferPool RENDER_BUFFERS;
+
+	/** The trace context open on each thread. */
+	private static final ThreadLocal<TraceContext> CONTEXT = new ThreadLocal<TraceContext>() {
+
+		@Override
+		protected TraceContext initialValue() {
+
+			return TraceContext.EMPTY;
+
+		}
+
+	};
+
+	/** The log level of this Canary. */
+	private static Level logLevel;
+
+	/** The sinks to which this Canary dispatches events. */
+	private static volatile CanarySink[] sinks = new CanarySink[0];
+
+	/** The probes created by this Canary. */
+	private static final List<CanaryProbe> probes = new ArrayList<CanaryProbe>();
+
+	/** The publisher of events to in-process subscribers, created on demand. */
+	private static TraceEventPublisher publisher;
 
 	/**
 	 * The maximum number of characters that this Canary will represent in any
 	 * entry written to the application logs or standard output. Defined in
 	 * order to obviate the prospect of Canary acting as a CPU hog during the
-	 * output of extremely long lines.
+	 * output of extremely long lines. Reduced by the overhead governor while
+	 * Canary exceeds its CPU budget.
+	 */
+	private static volatile int maximumRepresentationCharacters;
+
+	/**
+	 * The identifiers of the variables that this Canary represents by their
+	 * numeric summary if they are numeric arrays or collections of numbers.
+	 */
+	private static Set<String> summaryIdentifiers = Collections.emptySet();
+
+	/**
+	 * The identifiers of the variables that this Canary represents by their
+	 * delta since the previous output of the same identifier at the same call
+	 * site if they are maps, arrays or collections.
+	 */
+	private static Set<String> deltaIdentifiers = Collections.emptySet();
+
+	/** The tracker of the deltas of the delta identifiers. */
+	private static DeltaTracker deltaTracker = new DeltaTracker(10);
+
+	/**
+	 * The suppressor of traces repeated within a window, or null if repeated
+	 * traces are never suppressed.
 	 */
-	private static int maximumRepresentationCharacters;
+	private static RepeatSuppressor repeatSuppressor;
+
+	/**
+	 * The governor that keeps this Canary under its CPU budget, or null if
+	 * there is no budget.
+	 */
+	private static OverheadGovernor overheadGovernor;
+
+	/**
+	 * The renderer of snapshots taken on calling threads, or null if traces
+	 * are always rendered on their calling threads.
+	 */
+	private static AsyncRenderer asyncRenderer;
+
+	/**
+	 * The location given to events while the overhead governor has switched
+	 * off the capture of locations.
+	 */
+	static final StackTraceElement UNCAPTURED_LOCATION = new StackTraceElement(
+			"unknown", "unknown", null, -1);
 
 	static {
 
 		InputStream input = null;
 
+		boolean parsedCallSiteSwitching = false;
+		boolean parsedGarbageFree = false;
+		int parsedRenderBufferPoolSize = 0;
+
 		try {
 
 			Properties properties = new Properties();
@@ -257,15 +592,200 @@ public abstract class Canary {
 
 			}
 
+			parsedCallSiteSwitching = parseOptionalSwitch(properties,
+					"canary.callSiteSwitching", false);
+
+			parsedGarbageFree = parseOptionalSwitch(properties,
+					"canary.garbageFree", false);
+			parsedRenderBufferPoolSize = parseOptionalInteger(properties,
+					"canary.renderBufferPoolSize", Math.max(Runtime
+							.getRuntime().availableProcessors() * 4, 16));
+
+			boolean parsedDirectBuffers = parseOptionalSwitch(properties,
+					"canary.directBuffers", false);
+
+			VariableAppender.setByteBufferHexDump(parseOptionalSwitch(
+					properties, "canary.byteBufferHexDump", false));
+			VariableAppender.setIteratorRendering(parseOptionalSwitch(
+					properties, "canary.renderIterators", false));
+			VariableAppender.setLargeCollectionThreshold(parseOptionalInteger(
+					properties, "canary.largeCollectionThreshold", 0));
+			VariableAppender.setLargeCollectionElements(parseOptionalInteger(
+					properties, "canary.largeCollectionElements", 3));
+			VariableAppender.setLargeCollectionSampling(parseOptionalSwitch(
+					properties, "canary.largeCollectionSampling", false));
+			VariableAppender.setSummaryThreshold(parseOptionalInteger(
+					properties, "canary.summaryThreshold", 0));
+			VariableAppender.setParallelRenderingThreshold(parseOptionalInteger(
+					properties, "canary.parallelRenderingThreshold", 0));
+			RenderDeadline.setBudgetNanos(parseOptionalInteger(properties,
+					"canary.renderBudgetNanos", 0));
+			RenderDeadline.setStrikeLimit(parseOptionalInteger(properties,
+					"canary.slowTypeStrikes", 3));
+
+			String dumpDirectory = properties
+					.getProperty("canary.dumpDirectory");
+			int parsedDumpThresholdBytes = parseOptionalInteger(properties,
+					"canary.dumpThresholdBytes", 1048576);
+
+			if (dumpDirectory != null) {
+
+				try {
+
+					VariableAppender.setBulkDumpWriter(new BulkDumpWriter(
+							new File(dumpDirectory.trim()),
+							parsedDumpThresholdBytes));
+
+				} catch (IOException error) {
+
+					System.out
+							.println("canary.dumpDirectory property must be a writable directory - dumps disabled");
+
+				}
+
+			}
+
+			Canary.summaryIdentifiers = parseOptionalIdentifiers(properties,
+					"canary.summaryIdentifiers");
+			Canary.deltaIdentifiers = parseOptionalIdentifiers(properties,
+					"canary.deltaIdentifiers");
+			Canary.deltaTracker = new DeltaTracker(parseOptionalInteger(
+					properties, "canary.deltaSnapshotInterval", 10));
+
+			int parsedSuppressionWindowMillis = parseOptionalInteger(
+					properties, "canary.suppressionWindowMillis", 0);
+			int parsedSuppressionSlots = parseOptionalInteger(properties,
+					"canary.suppressionSlots", 4096);
+
+			if (parsedSuppressionWindowMillis > 0) {
+
+				Canary.repeatSuppressor = new RepeatSuppressor(
+						parsedSuppressionWindowMillis, parsedSuppressionSlots);
+
+			}
+
+			boolean parsedAsyncRendering = parseOptionalSwitch(properties,
+					"canary.asyncRendering", false);
+			int parsedAsyncRenderingCapacity = parseOptionalInteger(
+					properties, "canary.asyncRenderingCapacity", 8192);
+
+			if (parsedAsyncRendering) {
+
+				Canary.asyncRenderer = new AsyncRenderer(
+						parsedAsyncRenderingCapacity);
+
+			}
+
+			boolean parsedWriteToFlightRecorder = parseOptionalSwitch(
+					properties, "canary.writeToFlightRecorder", false);
+
+			boolean parsedStandardOutputBuffered = parseOptionalSwitch(
+					properties, "canary.standardOutputBuffered", false);
+			int parsedStandardOutputBufferBytes = parseOptionalInteger(
+					properties, "canary.standardOutputBufferBytes", 8192);
+			int parsedStandardOutputFlushMillis = parseOptionalInteger(
+					properties, "canary.standardOutputFlushMillis", 100);
+
+			String traceFileDirectory = properties
+					.getProperty("canary.traceFileDirectory");
+			int parsedTraceFileStripes = parseOptionalInteger(properties,
+					"canary.traceFileStripes", 0);
+			int parsedTraceFileBufferBytes = parseOptionalInteger(properties,
+					"canary.traceFileBufferBytes", 65536);
+			int parsedTraceFileFlushMillis = parseOptionalInteger(properties,
+					"canary.traceFileFlushMillis", 1000);
+
+			List<CanarySink> parsedSinks = new ArrayList<CanarySink>();
+
+			if (parsedWriteToStandardOutput) {
+
+				StandardOutputWriter standardOutputWriter = null;
+
+				// System.out encodes each line into new objects
+				if (parsedStandardOutputBuffered || parsedGarbageFree) {
+
+					standardOutputWriter = new StandardOutputWriter(
+							parsedStandardOutputBufferBytes,
+							parsedStandardOutputFlushMillis,
+							parsedDirectBuffers);
+
+				}
+
+				parsedSinks.add(new StandardOutputSink(standardOutputWriter));
+
+			}
+
+			if (parsedWriteToFlightRecorder) {
+
+				parsedSinks.add(new FlightRecorderSink());
+
+			}
+
+			if (traceFileDirectory != null) {
+
+				try {
+
+					parsedSinks.add(new TraceFileSink(
+							new ShardedTraceFileWriter(new File(
+									traceFileDirectory.trim()),
+									parsedTraceFileStripes,
+									parsedTraceFileBufferBytes,
+									parsedTraceFileFlushMillis,
+									parsedDirectBuffers)));
+
+				} catch (IOException error) {
+
+					System.out
+							.println("canary.traceFileDirectory property must be a writable directory - trace files disabled");
+
+				}
+
+			}
+
+			try {
+
+				for (CanarySink sink : ServiceLoader.load(CanarySink.class)) {
+
+					sink.configure(properties);
+
+					parsedSinks.add(sink);
+
+				}
+
+			} catch (ServiceConfigurationError error) {
+
+				System.out.println("canary sink could not be loaded - "
+						+ error.getMessage());
+
+			}
+
 			Canary.maximumRepresentationCharacters = parsedMaximumRepresentationCharacters;
 
+			double parsedCpuBudgetPercent = parseOptionalDecimal(properties,
+					"canary.cpuBudgetPercent", 0);
+			int parsedGovernorIntervalMillis = parseOptionalInteger(
+					properties, "canary.governorIntervalMillis", 1000);
+
+			if (parsedCpuBudgetPercent > 0) {
+
+				Canary.overheadGovernor = new OverheadGovernor(
+						parsedCpuBudgetPercent, parsedGovernorIntervalMillis);
+
+			}
+
 			initialise(parsedLogLevel, parsedWriteToApplicationLogs,
-					parsedWriteToStandardOutput);
+					parsedSinks);
+
+			if (parsedAsyncRendering) {
+
+				warnThreadConfinedSinks();
+
+			}
 
 		} catch (Exception expected) {
 
 			// mute this canary if there is no canary properties file
-			initialise(Level.OFF, false, false);
+			initialise(Level.OFF, false, new ArrayList<CanarySink>());
 
 		} finally {
 
@@ -285,26 +805,29 @@ public abstract class Canary {
 
 		}
 
+		CALL_SITE_SWITCHING = parsedCallSiteSwitching;
+		GARBAGE_FREE = parsedGarbageFree;
+		RENDER_BUFFERS = parsedGarbageFree ? new RenderBufferPool(
+				parsedRenderBufferPoolSize) : null;
+
 	}
 
 	/**
 	 * Initialises this Canary that will write to the application logs if the
 	 * specified switch is true and the application log level is less severe or
-	 * equal to the specified log level and that will write to standard output,
-	 * if the application log level is less severe or equal to the specified log
-	 * level, if the specified switch is true.
+	 * equal to the specified log level and that will also dispatch events to
+	 * the specified sinks.
 	 * 
 	 * @param logLevel
 	 *            the log level of this Canary.
 	 * @param writeToApplicationLogs
 	 *            true if this Canary should write to the application logs,
 	 *            false otherwise.
-	 * @param writeToStandardOutput
-	 *            true if this Canary should write to standard output, false
-	 *            otherwise.
+	 * @param sinks
+	 *            the other sinks of this Canary.
 	 */
 	private static void initialise(Level logLevel,
-			boolean writeToApplicationLogs, boolean writeToStandardOutput) {
+			boolean writeToApplicationLogs, List<CanarySink> sinks) {
 
 		if (writeToApplicationLogs) {
 
@@ -386,17 +909,50 @@ public abstract class Canary {
 
 		}
 
+		if (writeToApplicationLogs) {
+
+			sinks.add(new ApplicationLogSink(logger));
+
+		}
+
 		Canary.logLevel = logLevel;
-		Canary.writeToApplicationLogs = writeToApplicationLogs;
-		Canary.writeToStandardOutput = writeToStandardOutput;
+		Canary.sinks = sinks.toArray(new CanarySink[sinks.size()]);
 
-		if (writeToApplicationLogs || writeToStandardOutput) {
+		setMuted(Canary.sinks.length == 0);
 
-			muted = null;
+	}
 
-		} else {
+	/**
+	 * Warns that asynchronous rendering has no effect while any of the sinks
+	 * enabled when Canary is initialised is confined to the capturing thread,
+	 * naming those sinks, since the application log sink enabled by default
+	 * is one of them.
+	 */
+	private static void warnThreadConfinedSinks() {
 
-			muted = true;
+		StringBuilder confined = new StringBuilder();
+
+		for (CanarySink sink : Canary.sinks) {
+
+			if (sink.isEnabled() && sink.isThreadConfined()) {
+
+				if (confined.length() > 0) {
+
+					confined.append(", ");
+
+				}
+
+				confined.append(sink.getClass().getSimpleName());
+
+			}
+
+		}
+
+		if (confined.length() > 0) {
+
+			System.out.println("canary.asyncRendering property has no effect"
+					+ " while the thread-confined sinks [" + confined
+					+ "] are enabled - traces are rendered on calling threads");
 
 		}
 
@@ -437,25 +993,23 @@ public abstract class Canary {
 	 */
 	public static void output(String identifier, Object variable, Logger logger) {
 
-		if (muted == null) {
+		if (CALL_SITE_SWITCHING) {
 
 			try {
 
-				VariableDecorator variableDecorator = VariableDecoratorStrategy
-						.createDecoratorForVariableType(variable,
-								maximumRepresentationCharacters);
+				OUTPUT_INVOKER.invokeExact(identifier, variable, logger);
+
+			} catch (Throwable error) {
+
+				error.printStackTrace();
 
-				String variableRepresentation = variableDecorator
-						.representVariable();
+			}
 
-				StringBuilder representation = new StringBuilder();
+		} else if (muted == null) {
 
-				representation.append(identifier);
-				representation.append(": ");
-				representation.append(variableRepresentation);
+			try {
 
-				outputWithoutNotMutedAssertion(representation.toString(),
-						logger);
+				dispatch(identifier, variable, logger, null);
 
 			} catch (Exception error) {
 
@@ -468,181 +1022,2012 @@ public abstract class Canary {
 	}
 
 	/**
-	 * Writes the specified text to the application logs using the logger of
-	 * this Canary, in the absence of a specified logger, and the log level of
-	 * this Canary, and also optionally writes the text to standard output, if
-	 * the application log level is less severe or equal to the log level of
-	 * this Canary.
+	 * Writes representations of the specified two variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
 	 * 
-	 * @param text
-	 *            the text.
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
 	 */
-	public static void output(String text) {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2) {
 
-		output(text, null);
+		if (muted == null) {
+
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2 });
+
+		}
 
 	}
 
 	/**
-	 * Writes the specified text to the application logs using the specified
-	 * logger and the log level of this Canary, and also optionally writes the
-	 * text to standard output, if the application log level is less severe or
-	 * equal to the log level of this Canary.
+	 * Writes representations of the specified three variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
 	 * 
-	 * @param text
-	 *            the text.
-	 * @param logger
-	 *            the logger.
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
 	 */
-	public static void output(String text, Logger logger) {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3) {
 
 		if (muted == null) {
 
-			try {
-
-				outputWithoutNotMutedAssertion(text, logger);
-
-			} catch (Exception error) {
-
-				error.printStackTrace();
-
-			}
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3 });
 
 		}
 
 	}
 
 	/**
-	 * Asserts that this Canary may write to the application logs and also
-	 * optionally write to standard output. Used to avoid performing additional
-	 * work, such as building strings, in the calling component before invoking
-	 * an output method on this Canary similar to the usage of isTraceEnabled()
-	 * in log4j applications.
+	 * Writes representations of the specified four variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
 	 * 
-	 * @return true if this Canary may write output, false otherwise.
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
+	 * @param identifier4
+	 *            the identifier of the fourth variable.
+	 * @param variable4
+	 *            the fourth variable.
 	 */
-	public static boolean isOutputEnabled() {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3,
+			String identifier4, Object variable4) {
 
 		if (muted == null) {
 
-			return true;
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3, identifier4,
+					variable4 });
 
 		}
 
-		return false;
-
 	}
 
 	/**
-	 * Mutes this Canary such that it will never write to the application logs
-	 * or standard output.
+	 * Writes representations of the specified five variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
+	 * 
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
+	 * @param identifier4
+	 *            the identifier of the fourth variable.
+	 * @param variable4
+	 *            the fourth variable.
+	 * @param identifier5
+	 *            the identifier of the fifth variable.
+	 * @param variable5
+	 *            the fifth variable.
 	 */
-	public static void mute() {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3,
+			String identifier4, Object variable4,
+			String identifier5, Object variable5) {
+
+		if (muted == null) {
+
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3, identifier4, variable4,
+					identifier5, variable5 });
 
-		muted = true;
+		}
 
 	}
 
 	/**
-	 * Unmutes this Canary such that it will write to the application logs or
-	 * standard output depending on the initial configuration.
+	 * Writes representations of the specified six variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
+	 * 
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
+	 * @param identifier4
+	 *            the identifier of the fourth variable.
+	 * @param variable4
+	 *            the fourth variable.
+	 * @param identifier5
+	 *            the identifier of the fifth variable.
+	 * @param variable5
+	 *            the fifth variable.
+	 * @param identifier6
+	 *            the identifier of the sixth variable.
+	 * @param variable6
+	 *            the sixth variable.
 	 */
-	public static void unmute() {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3,
+			String identifier4, Object variable4,
+			String identifier5, Object variable5,
+			String identifier6, Object variable6) {
+
+		if (muted == null) {
+
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3, identifier4, variable4,
+					identifier5, variable5, identifier6, variable6 });
 
-		muted = null;
+		}
 
 	}
 
 	/**
-	 * Writes the specified text to the application logs using the specified
-	 * logger, or the logger of this Canary if the logger is null, and the log
-	 * level of this Canary and also optionally writes the text to standard
-	 * output without asserting that this Canary is not muted.
+	 * Writes representations of the specified seven variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
 	 * 
-	 * @param text
-	 *            the text.
-	 * @param logger
-	 *            the logger.
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
+	 * @param identifier4
+	 *            the identifier of the fourth variable.
+	 * @param variable4
+	 *            the fourth variable.
+	 * @param identifier5
+	 *            the identifier of the fifth variable.
+	 * @param variable5
+	 *            the fifth variable.
+	 * @param identifier6
+	 *            the identifier of the sixth variable.
+	 * @param variable6
+	 *            the sixth variable.
+	 * @param identifier7
+	 *            the identifier of the seventh variable.
+	 * @param variable7
+	 *            the seventh variable.
 	 */
-	private static void outputWithoutNotMutedAssertion(String text,
-			Logger logger) {
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3,
+			String identifier4, Object variable4,
+			String identifier5, Object variable5,
+			String identifier6, Object variable6,
+			String identifier7, Object variable7) {
 
-		if (text.length() > maximumRepresentationCharacters) {
+		if (muted == null) {
 
-			text = text.substring(0, maximumRepresentationCharacters);
-			text = text + "...";
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3, identifier4, variable4,
+					identifier5, variable5, identifier6, variable6, identifier7,
+					variable7 });
 
 		}
 
-		if (writeToStandardOutput) {
-
-			String time = DATE_FORMAT.format(new GregorianCalendar().getTime());
+	}
 
-			int stackIndex = 3;
+	/**
+	 * Writes representations of the specified eight variables with the
+	 * specified identifiers as a single entry in the same way as
+	 * outputAll(Map).
+	 * 
+	 * @param identifier1
+	 *            the identifier of the first variable.
+	 * @param variable1
+	 *            the first variable.
+	 * @param identifier2
+	 *            the identifier of the second variable.
+	 * @param variable2
+	 *            the second variable.
+	 * @param identifier3
+	 *            the identifier of the third variable.
+	 * @param variable3
+	 *            the third variable.
+	 * @param identifier4
+	 *            the identifier of the fourth variable.
+	 * @param variable4
+	 *            the fourth variable.
+	 * @param identifier5
+	 *            the identifier of the fifth variable.
+	 * @param variable5
+	 *            the fifth variable.
+	 * @param identifier6
+	 *            the identifier of the sixth variable.
+	 * @param variable6
+	 *            the sixth variable.
+	 * @param identifier7
+	 *            the identifier of the seventh variable.
+	 * @param variable7
+	 *            the seventh variable.
+	 * @param identifier8
+	 *            the identifier of the eighth variable.
+	 * @param variable8
+	 *            the eighth variable.
+	 */
+	public static void output(String identifier1, Object variable1,
+			String identifier2, Object variable2,
+			String identifier3, Object variable3,
+			String identifier4, Object variable4,
+			String identifier5, Object variable5,
+			String identifier6, Object variable6,
+			String identifier7, Object variable7,
+			String identifier8, Object variable8) {
+
+		if (muted == null) {
+
+			outputPairs(new Object[] { identifier1, variable1, identifier2,
+					variable2, identifier3, variable3, identifier4, variable4,
+					identifier5, variable5, identifier6, variable6, identifier7,
+					variable7, identifier8, variable8 });
+
+		}
+
+	}
+
+	/**
+	 * Writes representations of the variables of the specified map, keyed by
+	 * their identifiers, as a single entry using the following notation,
+	 * capturing the time and location of the calling component once:<br/>
+	 * <br/>
+	 * identifier1: variable1; identifier2: variable2; identifier3: variable3
+	 * <br/>
+	 * <br/>
+	 * The variables are rendered in the iteration order of the map and share
+	 * the maximum number of characters of a single entry, such that variables
+	 * beyond the maximum are not rendered at all. Each sink writes the entry in
+	 * a single operation such that it never interleaves with other entries.
+	 * 
+	 * @param variables
+	 *            the variables keyed by their identifiers.
+	 */
+	public static void outputAll(Map<String, ?> variables) {
+
+		if (muted == null) {
+
+			try {
+
+				Object[] pairs = new Object[variables.size() * 2];
+
+				int index = 0;
+
+				for (Map.Entry<String, ?> entry : variables.entrySet()) {
+
+					if (index == pairs.length) {
+
+						break;
+
+					}
+
+					pairs[index++] = entry.getKey();
+					pairs[index++] = entry.getValue();
+
+				}
+
+				outputPairs(pairs);
+
+			} catch (Exception error) {
+
+				error.printStackTrace();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes a representation of the variable yielded by the specified
+	 * supplier with the specified identifier in the same way as
+	 * output(String, Object), but only evaluates the supplier if this Canary
+	 * is unmuted and at least one of its sinks will write the representation,
+	 * such that calling components incur no cost building the variable while
+	 * tracing is off, for example:<br/>
+	 * <br/>
+	 * Canary.outputLazily("total", () -&gt; computeTotal(orders));<br/>
+	 * <br/>
+	 * The operation is named rather than overloaded such that calling
+	 * components passing a literal null to output(String, Object) or
+	 * output(String, Logger) remain unambiguous.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param supplier
+	 *            the supplier of the variable.
+	 */
+	public static void outputLazily(String identifier, Supplier<?> supplier) {
+
+		if (isUnmuted()) {
+
+			try {
+
+				CanaryEvent event = capture(identifier, null, null);
+
+				if (event != null) {
+
+					long renderStart = System.nanoTime();
+
+					try {
+
+						publish(event,
+								render(event, supplier.get(),
+										maximumRepresentationCharacters),
+								renderStart);
+
+					} finally {
+
+						release(event);
+
+					}
+
+				}
+
+			} catch (Exception error) {
+
+				error.printStackTrace();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes a representation of the specified integer with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, int value) {
+
+		outputPrimitive(identifier, value, INTEGER_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the specified long with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, long value) {
+
+		outputPrimitive(identifier, value, LONG_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the specified float with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, float value) {
+
+		outputPrimitive(identifier, Float.floatToRawIntBits(value),
+				FLOAT_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the specified double with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, double value) {
+
+		outputPrimitive(identifier, Double.doubleToRawLongBits(value),
+				DOUBLE_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the specified boolean with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, boolean value) {
+
+		outputPrimitive(identifier, value ? 1 : 0, BOOLEAN_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the specified character with the specified
+	 * identifier in the same way as output(String, Object) but without boxing
+	 * the value. The character 0 is represented as 'null' as it is for
+	 * variables.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param value
+	 *            the value.
+	 */
+	public static void output(String identifier, char value) {
+
+		outputPrimitive(identifier, value, CHARACTER_APPENDER);
+
+	}
+
+	/**
+	 * Writes a representation of the primitive value held by the specified
+	 * bits with the specified identifier using the specified appender, if
+	 * this Canary is unmuted. The representation is appended to the builder
+	 * of the render buffer of the event if the event is reused, or otherwise
+	 * to a builder reused by the current platform thread since the
+	 * representation of an event that is not reused is converted to a string
+	 * when it is published.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param bits
+	 *            the bits of the value.
+	 * @param appender
+	 *            the appender of the type of the value.
+	 */
+	private static void outputPrimitive(String identifier, long bits,
+			PrimitiveAppender appender) {
+
+		if (!isUnmuted()) {
+
+			return;
+
+		}
+
+		try {
+
+			CanaryEvent event = capture(identifier, null, null);
+
+			if (event == null) {
+
+				return;
+
+			}
+
+			long renderStart = System.nanoTime();
+
+			try {
+
+				StringBuilder representation = null;
+
+				if (event.isReused()) {
+
+					representation = representationBuilder(event);
+
+				} else if (VirtualThreads.isVirtual(Thread.currentThread())) {
+
+					representation = new StringBuilder(32);
+
+				} else {
+
+					representation = PRIMITIVE_BUILDER.get();
+					representation.setLength(0);
+
+				}
+
+				appender.appendPrimitive(bits, representation);
+
+				publish(event, representation, renderStart);
+
+			} finally {
+
+				release(event);
+
+			}
+
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Determines whether this Canary is unmuted, through the muted call site
+	 * if call site switching is enabled such that the JIT compiler folds the
+	 * check away while this Canary is muted.
+	 * 
+	 * @return true if this Canary is unmuted, false otherwise.
+	 */
+	private static boolean isUnmuted() {
+
+		if (!CALL_SITE_SWITCHING) {
+
+			return muted == null;
+
+		}
+
+		try {
+
+			return (boolean) UNMUTED_INVOKER.invokeExact();
+
+		} catch (Throwable error) {
+
+			error.printStackTrace();
+
+			return false;
+
+		}
+
+	}
+
+	/**
+	 * Appends the representation of a primitive value held as the bits of a
+	 * long.
+	 */
+	private interface PrimitiveAppender {
+
+		/**
+		 * Appends the representation of the value held by the specified bits.
+		 * 
+		 * @param bits
+		 *            the bits of the value.
+		 * @param destination
+		 *            the builder.
+		 */
+		void appendPrimitive(long bits, StringBuilder destination);
+
+	}
+
+	/**
+	 * Writes the specified text to the application logs using the logger of
+	 * this Canary, in the absence of a specified logger, and the log level of
+	 * this Canary, and also optionally writes the text to standard output, if
+	 * the application log level is less severe or equal to the log level of
+	 * this Canary.
+	 * 
+	 * @param text
+	 *            the text.
+	 */
+	public static void output(String text) {
+
+		output(text, (Logger) null);
+
+	}
+
+	/**
+	 * Writes the specified text to the application logs using the specified
+	 * logger and the log level of this Canary, and also optionally writes the
+	 * text to standard output, if the application log level is less severe or
+	 * equal to the log level of this Canary.
+	 * 
+	 * @param text
+	 *            the text.
+	 * @param logger
+	 *            the logger.
+	 */
+	public static void output(String text, Logger logger) {
+
+		if (CALL_SITE_SWITCHING) {
+
+			try {
+
+				OUTPUT_INVOKER.invokeExact((String) null, (Object) text,
+						logger);
+
+			} catch (Throwable error) {
+
+				error.printStackTrace();
+
+			}
+
+		} else if (muted == null) {
+
+			try {
+
+				dispatch(null, text, logger, null);
+
+			} catch (Exception error) {
+
+				error.printStackTrace();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Asserts that this Canary may write to the application logs and also
+	 * optionally write to standard output. Used to avoid performing additional
+	 * work, such as building strings, in the calling component before invoking
+	 * an output method on this Canary similar to the usage of isTraceEnabled()
+	 * in log4j applications.
+	 * 
+	 * @return true if this Canary may write output, false otherwise.
+	 */
+	public static boolean isOutputEnabled() {
+
+		if (muted == null) {
+
+			return true;
+
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Mutes this Canary such that it will never write to the application logs
+	 * or standard output.
+	 */
+	public static void mute() {
+
+		setMuted(true);
+
+	}
+
+	/**
+	 * Unmutes this Canary such that it will write to the application logs or
+	 * standard output depending on the initial configuration.
+	 */
+	public static void unmute() {
+
+		setMuted(false);
+
+	}
+
+	/**
+	 * Registers the specified sink such that this Canary will dispatch events
+	 * to the sink in addition to the sinks configured in the canary properties
+	 * file. Unmutes this Canary if it was muted for want of any sinks.
+	 * 
+	 * @param sink
+	 *            the sink.
+	 */
+	public static synchronized void addSink(CanarySink sink) {
+
+		CanarySink[] sinks = Canary.sinks;
+
+		CanarySink[] extendedSinks = Arrays.copyOf(sinks, sinks.length + 1);
+		extendedSinks[sinks.length] = sink;
+
+		Canary.sinks = extendedSinks;
+
+		if (sinks.length == 0) {
+
+			setMuted(false);
+
+		}
+
+	}
+
+	/**
+	 * Deregisters the specified sink such that this Canary will no longer
+	 * dispatch events to the sink.
+	 * 
+	 * @param sink
+	 *            the sink.
+	 */
+	public static synchronized void removeSink(CanarySink sink) {
+
+		List<CanarySink> sinks = new ArrayList<CanarySink>(
+				Arrays.asList(Canary.sinks));
+
+		sinks.remove(sink);
+
+		Canary.sinks = sinks.toArray(new CanarySink[sinks.size()]);
+
+	}
+
+	/**
+	 * Creates a probe that represents variables with the specified identifier
+	 * at a single hot call site using the logger of this Canary. The probe
+	 * should be held in a static final field.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @return the probe.
+	 */
+	public static CanaryProbe probe(String identifier) {
+
+		return probe(identifier, null);
+
+	}
+
+	/**
+	 * Creates a probe that represents variables with the specified identifier
+	 * at a single hot call site using the specified logger. The probe should
+	 * be held in a static final field.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param logger
+	 *            the logger.
+	 * @return the probe.
+	 */
+	public static synchronized CanaryProbe probe(String identifier,
+			Logger logger) {
+
+		CanaryProbe probe = new CanaryProbe(identifier, logger,
+				muted != null);
+
+		probes.add(probe);
+
+		return probe;
+
+	}
+
+	/**
+	 * Opens a trace context on the current thread comprising the pairs of the
+	 * context already open and the specified key with the specified value,
+	 * such that every subsequent trace of the thread carries the context
+	 * until the returned scope is closed.
+	 * 
+	 * @param key
+	 *            the key, for example requestId, tenant or spanId.
+	 * @param value
+	 *            the value, which is represented by its string value.
+	 * @return the scope of the context, which must be closed on the current
+	 *         thread.
+	 */
+	public static ContextScope openContext(String key, Object value) {
+
+		TraceContext previous = CONTEXT.get();
+
+		CONTEXT.set(previous.with(key, value));
+
+		return new ContextScope(previous);
+
+	}
+
+	/**
+	 * Gets the trace context open on the current thread.
+	 * 
+	 * @return the context, which is empty if no context is open.
+	 */
+	public static TraceContext getContext() {
+
+		return CONTEXT.get();
+
+	}
+
+	/**
+	 * Sets the trace context open on the current thread.
+	 * 
+	 * @param context
+	 *            the context.
+	 */
+	static void setContext(TraceContext context) {
+
+		CONTEXT.set(context);
+
+	}
+
+	/**
+	 * Wraps the specified executor such that each task runs with the trace
+	 * context that was open on the thread that submitted it.
+	 * 
+	 * @param executor
+	 *            the executor.
+	 * @return the wrapped executor.
+	 */
+	public static Executor contextExecutor(Executor executor) {
+
+		return new ContextExecutor(executor);
+
+	}
+
+	/**
+	 * Wraps the specified executor service such that each task runs with the
+	 * trace context that was open on the thread that submitted it.
+	 * 
+	 * @param executorService
+	 *            the executor service.
+	 * @return the wrapped executor service.
+	 */
+	public static ExecutorService contextExecutorService(
+			ExecutorService executorService) {
+
+		return new ContextExecutorService(executorService);
+
+	}
+
+	/**
+	 * Wraps the specified task such that it runs with the trace context open
+	 * on the current thread, whichever thread it runs on.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the wrapped task.
+	 */
+	public static Runnable contextTask(Runnable task) {
+
+		return ContextExecutor.wrap(task);
+
+	}
+
+	/**
+	 * Wraps the specified task such that it runs with the trace context open
+	 * on the current thread, whichever thread it runs on.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the wrapped task.
+	 */
+	public static <V> Callable<V> contextTask(Callable<V> task) {
+
+		return ContextExecutor.wrap(task);
+
+	}
+
+	/**
+	 * Gets the publisher through which in-process subscribers receive the
+	 * events of this Canary, registering the publisher as a sink of this
+	 * Canary when it is first requested. The publisher accepts no events, and
+	 * therefore costs nothing, until it has subscribers.
+	 * 
+	 * @return the publisher.
+	 */
+	public static synchronized TraceEventPublisher getPublisher() {
+
+		if (publisher == null) {
+
+			publisher = new TraceEventPublisher();
+
+			addSink(publisher);
+
+		}
+
+		return publisher;
+
+	}
+
+	/**
+	 * Writes any events that the sinks of this Canary have batched.
+	 */
+	public static void flush() {
+
+		for (CanarySink sink : sinks) {
+
+			sink.flush();
+
+		}
+
+	}
+
+	/**
+	 * Mutes or unmutes this Canary by setting the muted switch and switching
+	 * the target of the output call site. Switching the target invalidates any
+	 * code compiled against the previous target and is therefore expensive,
+	 * but only happens when this Canary is muted or unmuted.
+	 * 
+	 * @param mute
+	 *            true to mute this Canary, false to unmute this Canary.
+	 */
+	private static synchronized void setMuted(boolean mute) {
+
+		if (mute) {
+
+			muted = true;
+
+			OUTPUT_CALL_SITE.setTarget(MUTED_OUTPUT);
+			UNMUTED_CALL_SITE.setTarget(MethodHandles.constant(boolean.class,
+					false));
+
+		} else {
+
+			muted = null;
+
+			OUTPUT_CALL_SITE.setTarget(UNMUTED_OUTPUT);
+			UNMUTED_CALL_SITE.setTarget(MethodHandles.constant(boolean.class,
+					true));
+
+		}
+
+		MutableCallSite.syncAll(new MutableCallSite[] { OUTPUT_CALL_SITE,
+				UNMUTED_CALL_SITE });
+
+		for (CanaryProbe probe : probes) {
+
+			probe.setCanaryMuted(mute);
+
+		}
+
+	}
+
+	/**
+	 * Dispatches an event on behalf of the output call site while this Canary
+	 * is unmuted.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null if the variable is the text of a
+	 *            remark.
+	 * @param variable
+	 *            the variable, or the text of a remark.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 */
+	private static void outputUnmuted(String identifier, Object variable,
+			Logger logger) {
+
+		try {
+
+			dispatch(identifier, variable, logger, null);
+
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Finds the method handle of the dispatch performed by the output call
+	 * site while this Canary is unmuted.
+	 * 
+	 * @return the method handle.
+	 */
+	private static MethodHandle findUnmutedOutput() {
+
+		try {
+
+			return MethodHandles.lookup().findStatic(Canary.class,
+					"outputUnmuted", OUTPUT_TYPE);
+
+		} catch (ReflectiveOperationException error) {
+
+			throw new ExceptionInInitializerError(error);
+
+		}
+
+	}
+
+	/**
+	 * Captures an event with the specified identifier, renders the specified
+	 * variable exactly once and dispatches the event to every enabled sink
+	 * without asserting that this Canary is not muted. A snapshot of the
+	 * variable is rendered and dispatched by the asynchronous renderer instead
+	 * if the rendering of the variable can be deferred.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null if the variable is the text of a
+	 *            remark.
+	 * @param variable
+	 *            the variable, or the text of a remark.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param location
+	 *            the location of the calling component if it is already
+	 *            known, or null.
+	 * @return the location of the calling component if it was resolved, or
+	 *         null.
+	 */
+	static StackTraceElement dispatch(String identifier, Object variable,
+			Logger logger, StackTraceElement location) {
+
+		AsyncRenderer asyncRenderer = Canary.asyncRenderer;
+
+		boolean deferrable = asyncRenderer != null
+				&& isDeferrable(identifier, variable);
+
+		CanaryEvent event = capture(identifier, logger, location, deferrable);
+
+		if (event == null) {
+
+			return null;
+
+		}
+
+		try {
+
+			if (deferrable) {
+
+				int maximum = maximumRepresentationCharacters;
+
+				Object snapshot = VariableSnapshot.take(variable, maximum);
+
+				// the stack of the calling component is only walkable here
+				if (snapshot != null && event.getLocation() != null
+						&& asyncRenderer.defer(event, snapshot, maximum)) {
+
+					OverheadGovernor overheadGovernor = Canary.overheadGovernor;
+
+					if (overheadGovernor != null) {
+
+						overheadGovernor.record(System.nanoTime()
+								- event.getNanoTime());
+
+					}
+
+					return event.getLocation() != UNCAPTURED_LOCATION ? event
+							.getLocation() : null;
+
+				}
+
+			}
+
+			long renderStart = System.nanoTime();
+
+			CharSequence representation = null;
+
+			if (identifier == null) {
+
+				representation = (String) variable;
+
+			} else {
+
+				representation = render(event, variable,
+						maximumRepresentationCharacters);
+
+			}
+
+			return publish(event, representation, renderStart);
+
+		} finally {
+
+			release(event);
+
+		}
+
+	}
+
+	/**
+	 * Determines whether the rendering of the specified variable with the
+	 * specified identifier can be deferred to the asynchronous renderer,
+	 * which is the case for maps, arrays and collections that are neither
+	 * summarised nor represented by their delta while no enabled sink is
+	 * confined to the capturing thread.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null if the variable is the text of a
+	 *            remark.
+	 * @param variable
+	 *            the variable.
+	 * @return true if the rendering can be deferred, false otherwise.
+	 */
+	private static boolean isDeferrable(String identifier, Object variable) {
+
+		if (identifier == null || variable == null) {
+
+			return false;
+
+		}
+
+		if (!variable.getClass().isArray() && !(variable instanceof Collection)
+				&& !(variable instanceof Map)) {
+
+			return false;
+
+		}
+
+		if (summaryIdentifiers.contains(identifier)
+				|| deltaIdentifiers.contains(identifier)) {
+
+			return false;
+
+		}
+
+		for (CanarySink sink : Canary.sinks) {
+
+			if (sink.isEnabled() && sink.isThreadConfined()) {
+
+				return false;
+
+			}
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Captures an event with the specified identifier and begins the event
+	 * with every enabled sink, without asserting that this Canary is not
+	 * muted.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param location
+	 *            the location of the calling component if it is already
+	 *            known, or null.
+	 * @return the event, or null if no sink is enabled in which case nothing
+	 *         should be rendered.
+	 */
+	static CanaryEvent capture(String identifier, Logger logger,
+			StackTraceElement location) {
+
+		return capture(identifier, logger, location, false);
+
+	}
+
+	/**
+	 * Captures an event with the specified identifier and begins the event
+	 * with every enabled sink, without asserting that this Canary is not
+	 * muted, never reusing a render buffer for the event if the event is to
+	 * be retained beyond the current dispatch.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param location
+	 *            the location of the calling component if it is already
+	 *            known, or null.
+	 * @param retained
+	 *            true if the event is retained beyond the current dispatch,
+	 *            false otherwise.
+	 * @return the event, or null if no sink is enabled in which case nothing
+	 *         should be rendered.
+	 */
+	private static CanaryEvent capture(String identifier, Logger logger,
+			StackTraceElement location, boolean retained) {
+
+		CanarySink[] sinks = Canary.sinks;
+
+		boolean enabled = false;
+
+		boolean locationRequired = false;
+
+		for (CanarySink sink : sinks) {
+
+			if (sink.isEnabled()) {
+
+				enabled = true;
+				retained |= sink.isRetainingEvents();
+				locationRequired |= sink.isLocationRequired();
+
+			}
+
+		}
+
+		if (!enabled) {
+
+			return null;
+
+		}
+
+		OverheadGovernor overheadGovernor = Canary.overheadGovernor;
+
+		if (overheadGovernor != null) {
+
+			if (location == null && !overheadGovernor.isLocationCaptured()) {
+
+				location = UNCAPTURED_LOCATION;
+
+			} else if (location == null && locationRequired) {
+
+				// resolved before sampling rather than when the event is
+				// dispatched, such that the governor tells call sites apart
+				location = CanaryEvent.resolveLocation();
+
+			}
+
+			if (!overheadGovernor.admit(identifier,
+					location != UNCAPTURED_LOCATION ? location : null)) {
+
+				return null;
+
+			}
+
+		}
+
+		CanaryEvent event = null;
+
+		RenderBuffer buffer = null;
+
+		if (GARBAGE_FREE && !retained) {
+
+			buffer = RENDER_BUFFERS.borrow();
+
+		}
+
+		if (buffer == null) {
+
+			event = new CanaryEvent(identifier, logLevel, logger,
+					maximumRepresentationCharacters);
+
+		} else {
+
+			event = buffer.event;
+			event.reuse(identifier, logLevel, logger,
+					maximumRepresentationCharacters);
+
+		}
+
+		if (location != null) {
+
+			event.setLocation(location);
+
+		}
+
+		event.setContext(CONTEXT.get());
+
+		for (CanarySink sink : sinks) {
+
+			if (sink.isEnabled()) {
+
+				sink.begin(event);
+
+			}
+
+		}
+
+		return event;
+
+	}
+
+	/**
+	 * Gets an empty builder for the representation of the specified captured
+	 * event, which is the builder of the render buffer of the event if the
+	 * event is reused.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @return the builder.
+	 */
+	static StringBuilder representationBuilder(CanaryEvent event) {
+
+		if (!event.isReused()) {
+
+			return new StringBuilder();
+
+		}
+
+		RenderBuffer buffer = ((RenderBuffer.PooledEvent) event).buffer;
+
+		StringBuilder representation = buffer.representation;
+		representation.setLength(0);
+
+		return representation;
+
+	}
+
+	/**
+	 * Renders the specified variable for the specified captured event using
+	 * the specified maximum length of the representation, appending the
+	 * variable to the builder of the render buffer of the event if the event
+	 * is reused. The variable is represented by its numeric summary
+	 * if the identifier of the event is a summary identifier and the variable
+	 * can be summarised, or by its delta if the identifier of the event is a
+	 * delta identifier and the variable is a map, an array or a collection.
+	 * The rendering is bounded in time by the RenderDeadline.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return the representation.
+	 */
+	static CharSequence render(CanaryEvent event, Object variable,
+			int maximum) {
+
+		boolean armed = RenderDeadline.begin();
+
+		try {
+
+			return renderVariable(event, variable, maximum);
+
+		} finally {
+
+			RenderDeadline.end(armed);
+
+		}
+
+	}
+
+	/**
+	 * Renders the specified variable for the specified captured event using
+	 * the specified maximum length of the representation as render() does,
+	 * within the deadline armed by render().
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return the representation.
+	 */
+	private static CharSequence renderVariable(CanaryEvent event,
+			Object variable, int maximum) {
+
+		if (summaryIdentifiers.contains(event.getIdentifier())) {
+
+			StringBuilder representation = representationBuilder(event);
+
+			if (VariableAppender.appendSummary(variable, representation)) {
+
+				return representation;
+
+			}
+
+		}
+
+		if (isDeltaTracked(event, event.getIdentifier())) {
+
+			StringBuilder representation = representationBuilder(event);
+
+			if (deltaTracker.appendDelta(
+					deltaKey(event, event.getIdentifier()), variable, maximum,
+					representation)) {
+
+				return representation;
+
+			}
+
+		}
+
+		if (!event.isReused()) {
+
+			return render(variable, maximum);
+
+		}
+
+		StringBuilder representation = representationBuilder(event);
+
+		VariableAppender.appendVariable(variable, maximum, representation);
+
+		return representation;
+
+	}
+
+	/**
+	 * Determines whether the variable with the specified identifier is
+	 * represented by its delta for the specified captured event, which is not
+	 * the case while the overhead governor has switched off the capture of
+	 * locations since the deltas of different call sites would then share a
+	 * single key.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param identifier
+	 *            the identifier.
+	 * @return true if the variable is represented by its delta, false
+	 *         otherwise.
+	 */
+	private static boolean isDeltaTracked(CanaryEvent event,
+			String identifier) {
+
+		return deltaIdentifiers.contains(identifier)
+				&& event.getLocation() != UNCAPTURED_LOCATION;
+
+	}
+
+	/**
+	 * Gets the key under which the delta of the variable with the specified
+	 * identifier is tracked for the specified captured event, which comprises
+	 * the location of the calling component and the identifier.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param identifier
+	 *            the identifier.
+	 * @return the key.
+	 */
+	private static String deltaKey(CanaryEvent event, String identifier) {
+
+		StackTraceElement location = event.getLocation();
+
+		return location.getClassName() + "." + location.getMethodName() + ":"
+				+ location.getLineNumber() + " " + identifier;
+
+	}
+
+	/**
+	 * Returns the render buffer of the specified event to the pool if the
+	 * event is reused, such that the next trace of any thread may reuse it.
+	 * Called exactly once, by the caller that captured the event, once the
+	 * event has been published or has failed to render.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	static void release(CanaryEvent event) {
+
+		if (event.isReused()) {
+
+			RENDER_BUFFERS.giveBack(((RenderBuffer.PooledEvent) event).buffer);
+
+		}
+
+	}
+
+	/**
+	 * Renders the specified variable using the decorator for its type.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @return the representation.
+	 */
+	static String render(Object variable) {
+
+		return render(variable, maximumRepresentationCharacters);
+
+	}
+
+	/**
+	 * Renders the specified variable using the decorator for its type and the
+	 * specified maximum length of the representation.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return the representation.
+	 */
+	static String render(Object variable, int maximum) {
+
+		VariableDecorator variableDecorator = VariableDecoratorStrategy
+				.createDecoratorForVariableType(variable, maximum);
+
+		return variableDecorator.representVariable();
+
+	}
+
+	/**
+	 * Captures a single event for the specified identifiers and variables,
+	 * renders the variables into a single representation that shares the
+	 * maximum number of characters of an entry and dispatches the event to
+	 * every enabled sink, without asserting that this Canary is not muted.
+	 * 
+	 * @param pairs
+	 *            the identifiers and variables in alternation.
+	 */
+	private static void outputPairs(Object[] pairs) {
+
+		try {
+
+			CanaryEvent event = capture(null, null, null);
+
+			if (event == null) {
+
+				return;
+
+			}
+
+			try {
+
+				long renderStart = System.nanoTime();
+
+				StringBuilder representation = representationBuilder(event);
+
+				boolean armed = RenderDeadline.begin();
+
+				try {
+
+					for (int index = 0; index < pairs.length; index += 2) {
+
+						if (index > 0) {
 
-			if (logger == null) {
+							representation.append("; ");
 
-				stackIndex = 4;
+							if (RenderDeadline.isExceeded(representation)) {
+
+								break;
+
+							}
+
+						}
+
+						int remaining = maximumRepresentationCharacters
+								- representation.length();
+
+						if (remaining <= 0) {
+
+							break;
+
+						}
+
+						representation.append(pairs[index]);
+						representation.append(": ");
+
+						if (summaryIdentifiers.contains(pairs[index])
+								&& VariableAppender.appendSummary(
+										pairs[index + 1], representation)) {
+
+							// the variable is summarised
+
+						} else if (isDeltaTracked(event, (String) pairs[index])
+								&& deltaTracker.appendDelta(
+										deltaKey(event, (String) pairs[index]),
+										pairs[index + 1], remaining,
+										representation)) {
+
+							// the variable is represented by its delta
+
+						} else if (event.isReused()) {
+
+							VariableAppender.appendVariable(pairs[index + 1],
+									remaining, representation);
+
+						} else {
+
+							representation.append(render(pairs[index + 1],
+									remaining));
+
+						}
+
+					}
+
+				} finally {
+
+					RenderDeadline.end(armed);
+
+				}
+
+				publish(event, representation, renderStart);
+
+			} finally {
+
+				release(event);
 
 			}
 
-			StackTraceElement element = Thread.currentThread().getStackTrace()[stackIndex];
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Completes the specified captured event with the specified representation
+	 * and writes the event to every enabled sink, resolving the location of
+	 * the calling component first if an enabled sink requires it, unless the
+	 * event repeats an earlier trace within the suppression window. The
+	 * representation of an event that is not reused is converted to a string
+	 * such that sinks may retain it. The caller that captured the event
+	 * releases it once this operation returns.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param representation
+	 *            the representation.
+	 * @param renderStart
+	 *            the value of System.nanoTime() before rendering.
+	 * @return the location of the calling component if it was resolved, or
+	 *         null.
+	 */
+	static StackTraceElement publish(CanaryEvent event,
+			CharSequence representation, long renderStart) {
+
+		return publish(event, representation, renderStart,
+				event.getNanoTime());
+
+	}
+
+	/**
+	 * Completes the specified captured event with the specified representation
+	 * and writes the event to every enabled sink as publish() does, recording
+	 * the time spent inside Canary from the specified start with the overhead
+	 * governor.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param representation
+	 *            the representation.
+	 * @param renderStart
+	 *            the value of System.nanoTime() before rendering.
+	 * @param spanStart
+	 *            the value of System.nanoTime() from which the time spent
+	 *            inside Canary is recorded.
+	 * @return the location of the calling component if it was resolved, or
+	 *         null.
+	 */
+	private static StackTraceElement publish(CanaryEvent event,
+			CharSequence representation, long renderStart, long spanStart) {
+
+		if (!event.isReused()) {
+
+			representation = representation.toString();
+
+		}
+
+		event.setRepresentation(representation, System.nanoTime()
+				- renderStart);
 
-			String clazz = element.getClassName();
-			String method = element.getMethodName();
-			int line = element.getLineNumber();
+		RepeatSuppressor repeatSuppressor = Canary.repeatSuppressor;
 
-			System.out.print(time);
-			System.out.print(" ");
-			System.out.print(clazz);
-			System.out.print(".");
-			System.out.print(method);
-			System.out.print(".");
-			System.out.print(line);
-			System.out.print(": ");
-			System.out.print(text);
+		if (repeatSuppressor == null
+				|| !repeatSuppressor.suppress(event, representation)) {
 
-			System.out.println();
+			write(event);
 
 		}
 
-		if (logger == null) {
+		OverheadGovernor overheadGovernor = Canary.overheadGovernor;
 
-			logger = Canary.logger;
+		if (overheadGovernor != null) {
+
+			overheadGovernor.record(System.nanoTime() - spanStart);
 
 		}
 
-		if (writeToApplicationLogs) {
+		// probes must not record a location that was never captured
+		if (event.isLocationResolved()
+				&& event.getLocation() != UNCAPTURED_LOCATION) {
 
-			if (logLevel == Level.DEBUG) {
+			return event.getLocation();
 
-				logger.debug(text);
+		}
+
+		return null;
+
+	}
 
-			} else if (logLevel == Level.INFO) {
+	/**
+	 * Renders the specified snapshot for the specified captured event using
+	 * the specified maximum length of the representation and writes the event
+	 * to every enabled sink, on behalf of the asynchronous renderer. The time
+	 * spent inside Canary is recorded from the start of the rendering, since
+	 * the time the event waited to be rendered is not spent by Canary.
+	 * 
+	 * @param event
+	 *            the event, whose location has been resolved.
+	 * @param snapshot
+	 *            the snapshot of the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 */
+	static void renderDeferred(CanaryEvent event, Object snapshot,
+			int maximum) {
 
-				logger.info(text);
+		long renderStart = System.nanoTime();
 
-			} else if (logLevel == Level.WARN) {
+		publish(event, render(event, snapshot, maximum), renderStart,
+				renderStart);
 
-				logger.warn(text);
+	}
 
-			} else if (logLevel == Level.ERROR) {
+	/**
+	 * Gets the maximum number of characters that this Canary currently
+	 * represents in any entry.
+	 * 
+	 * @return the maximum number of characters.
+	 */
+	static int getMaximumRepresentationCharacters() {
 
-				logger.error(text);
+		return maximumRepresentationCharacters;
 
-			} else if (logLevel == Level.FATAL) {
+	}
 
-				logger.fatal(text);
+	/**
+	 * Sets the maximum number of characters that this Canary represents in
+	 * any entry, which the overhead governor reduces while this Canary
+	 * exceeds its CPU budget.
+	 * 
+	 * @param maximumRepresentationCharacters
+	 *            the maximum number of characters.
+	 */
+	static void setMaximumRepresentationCharacters(
+			int maximumRepresentationCharacters) {
 
-			} else {
+		Canary.maximumRepresentationCharacters = maximumRepresentationCharacters;
 
-				// use the 'trace' log level by default
-				logger.trace(text);
+	}
+
+	/**
+	 * Writes the specified completed event to every enabled sink, resolving
+	 * the location of the calling component first if an enabled sink requires
+	 * it.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	private static void write(CanaryEvent event) {
+
+		CanarySink[] sinks = Canary.sinks;
+
+		for (CanarySink sink : sinks) {
+
+			if (sink.isEnabled() && sink.isLocationRequired()) {
+
+				event.getLocation();
+
+				break;
+
+			}
+
+		}
+
+		for (CanarySink sink : sinks) {
+
+			if (sink.isEnabled()) {
+
+				sink.write(event);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes a trace of the repetitions of a suppressed trace with the
+	 * specified identifier, logger and location of the calling component to
+	 * every enabled sink, which is never itself suppressed.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param location
+	 *            the location of the calling component.
+	 * @param description
+	 *            the description of the repetitions.
+	 */
+	static void publishRepetitions(String identifier, Logger logger,
+			StackTraceElement location, String description) {
+
+		try {
+
+			CanaryEvent event = new CanaryEvent(identifier, logLevel, logger,
+					maximumRepresentationCharacters);
+
+			event.setLocation(location);
+
+			for (CanarySink sink : sinks) {
+
+				if (sink.isEnabled()) {
+
+					sink.begin(event);
+
+				}
+
+			}
+
+			event.setRepresentation(description, 0);
+
+			write(event);
+
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Parses the optional switch property with the specified name from the
+	 * specified properties.
+	 * 
+	 * @param properties
+	 *            the properties.
+	 * @param name
+	 *            the name of the property.
+	 * @param defaultValue
+	 *            the value used if the property is absent or invalid.
+	 * @return the value of the switch.
+	 */
+	private static boolean parseOptionalSwitch(Properties properties,
+			String name, boolean defaultValue) {
+
+		String value = properties.getProperty(name);
+
+		if (value == null) {
+
+			return defaultValue;
+
+		} else if (value.equals("true")) {
+
+			return true;
+
+		} else if (value.equals("false")) {
+
+			return false;
+
+		}
+
+		System.out.println(name
+				+ " property must be one of [true, false] - defaulted to "
+				+ defaultValue);
+
+		return defaultValue;
+
+	}
+
+	/**
+	 * Parses the optional property with the specified name from the specified
+	 * properties as a comma separated list of identifiers.
+	 * 
+	 * @param properties
+	 *            the properties.
+	 * @param name
+	 *            the name of the property.
+	 * @return the identifiers, which are empty if the property is absent.
+	 */
+	private static Set<String> parseOptionalIdentifiers(Properties properties,
+			String name) {
+
+		String value = properties.getProperty(name);
+
+		if (value == null) {
+
+			return Collections.emptySet();
+
+		}
+
+		Set<String> identifiers = new HashSet<String>();
+
+		for (String identifier : value.split(",")) {
+
+			if (!identifier.trim().isEmpty()) {
+
+				identifiers.add(identifier.trim());
+
+			}
+
+		}
+
+		return identifiers;
+
+	}
+
+	/**
+	 * Parses the optional positive decimal property with the specified name
+	 * from the specified properties.
+	 * 
+	 * @param properties
+	 *            the properties.
+	 * @param name
+	 *            the name of the property.
+	 * @param defaultValue
+	 *            the value used if the property is absent or invalid.
+	 * @return the value of the property.
+	 */
+	private static double parseOptionalDecimal(Properties properties,
+			String name, double defaultValue) {
+
+		String value = properties.getProperty(name);
+
+		if (value == null) {
+
+			return defaultValue;
+
+		}
+
+		try {
+
+			double parsedValue = Double.parseDouble(value.trim());
+
+			if (parsedValue >= 0) {
+
+				return parsedValue;
+
+			}
+
+		} catch (NumberFormatException error) {
+
+			// report the invalid value below
+
+		}
+
+		System.out.println(name
+				+ " property must be a positive decimal - defaulted to "
+				+ defaultValue);
+
+		return defaultValue;
+
+	}
+
+	/**
+	 * Parses the optional positive integer property with the specified name
+	 * from the specified properties.
+	 * 
+	 * @param properties
+	 *            the properties.
+	 * @param name
+	 *            the name of the property.
+	 * @param defaultValue
+	 *            the value used if the property is absent or invalid.
+	 * @return the value of the property.
+	 */
+	private static int parseOptionalInteger(Properties properties,
+			String name, int defaultValue) {
+
+		String value = properties.getProperty(name);
+
+		if (value == null) {
+
+			return defaultValue;
+
+		}
+
+		try {
+
+			int parsedValue = Integer.parseInt(value.trim());
+
+			if (parsedValue >= 0) {
+
+				return parsedValue;
 
 			}
 
+		} catch (NumberFormatException error) {
+
+			// report the invalid value below
+
 		}
 
+		System.out.println(name
+				+ " property must be a positive integer - defaulted to "
+				+ defaultValue);
+
+		return defaultValue;
+
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Defines a probe that represents variables with a fixed identifier at a
+ * single hot call site, for example:<br/>
+ * <br/>
+ * private static final CanaryProbe ORDERS = Canary.probe("orders");<br/>
+ * ...<br/>
+ * ORDERS.output(orders);<br/>
+ * <br/>
+ * The probe holds everything that never changes for its call site: the
+ * identifier, the logger, the location of the calling component, which is
+ * resolved by the first output that requires it and reused thereafter, and
+ * the sampling state of the probe. While the probe is disabled, because
+ * Canary is muted or because the probe itself is disabled, an output costs a
+ * single field read.<br/>
+ * <br/>
+ * Since the location is resolved once, each probe should be used at a single
+ * call site. Probes are registered with Canary for as long as the application
+ * runs and therefore should be held in static final fields rather than
+ * created per call.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class CanaryProbe {
+
+	/** The identifier of the probe. */
+	private final String identifier;
+
+	/** The logger of the probe, or null to use the logger of Canary. */
+	private final Logger logger;
+
+	/** The switch used to indicate that outputs of the probe are written. */
+	private volatile boolean enabled;
+
+	/** The switch used to indicate that Canary is muted. */
+	private boolean canaryMuted;
+
+	/** The switch used to indicate that the probe itself is disabled. */
+	private boolean probeDisabled;
+
+	/** The location of the call site, or null until it is resolved. */
+	private volatile StackTraceElement location;
+
+	/** The probe writes one in every sample interval outputs. */
+	private volatile int sampleInterval = 1;
+
+	/**
+	 * The number of outputs since the last sampled output. Updated without
+	 * synchronisation such that concurrent outputs may occasionally sample
+	 * slightly more or fewer outputs than the sample interval dictates.
+	 */
+	private int sampleCount;
+
+	/**
+	 * Creates a probe with the specified identifier and logger.
+	 * 
+	 * @param identifier
+	 *            the identifier.
+	 * @param logger
+	 *            the logger, or null to use the logger of Canary.
+	 * @param canaryMuted
+	 *            true if Canary is muted, false otherwise.
+	 */
+	CanaryProbe(String identifier, Logger logger, boolean canaryMuted) {
+
+		this.identifier = identifier;
+		this.logger = logger;
+		this.canaryMuted = canaryMuted;
+		this.enabled = !canaryMuted;
+
+	}
+
+	/**
+	 * Writes a representation of the specified variable with the identifier of
+	 * this probe using the logger of this probe, if this probe is enabled and
+	 * the output is sampled.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 */
+	public void output(Object variable) {
+
+		if (enabled) {
+
+			outputEnabled(variable);
+
+		}
+
+	}
+
+	/**
+	 * Asserts that this probe may write output. Used to avoid performing
+	 * additional work in the calling component before invoking the output
+	 * method of this probe.
+	 * 
+	 * @return true if this probe may write output, false otherwise.
+	 */
+	public boolean isOutputEnabled() {
+
+		return enabled;
+
+	}
+
+	/**
+	 * Enables this probe such that it writes output while Canary is unmuted.
+	 */
+	public synchronized void enable() {
+
+		probeDisabled = false;
+		enabled = !canaryMuted;
+
+	}
+
+	/**
+	 * Disables this probe such that it never writes output.
+	 */
+	public synchronized void disable() {
+
+		probeDisabled = true;
+		enabled = false;
+
+	}
+
+	/**
+	 * Samples the outputs of this probe such that only one in every specified
+	 * number of outputs is written.
+	 * 
+	 * @param sampleInterval
+	 *            the sample interval, or 1 to write every output.
+	 */
+	public void sample(int sampleInterval) {
+
+		this.sampleInterval = Math.max(sampleInterval, 1);
+
+	}
+
+	/**
+	 * Gets the identifier property.
+	 * 
+	 * @return the identifier of this probe.
+	 */
+	public String getIdentifier() {
+
+		return identifier;
+
+	}
+
+	/**
+	 * Updates the enabled switch of this probe when Canary is muted or
+	 * unmuted.
+	 * 
+	 * @param canaryMuted
+	 *            true if Canary is muted, false otherwise.
+	 */
+	synchronized void setCanaryMuted(boolean canaryMuted) {
+
+		this.canaryMuted = canaryMuted;
+		this.enabled = !canaryMuted && !probeDisabled;
+
+	}
+
+	/**
+	 * Writes a representation of the specified variable if the output is
+	 * sampled, reusing and otherwise recording the location of the call site.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 */
+	private void outputEnabled(Object variable) {
+
+		int sampleInterval = this.sampleInterval;
+
+		if (sampleInterval > 1) {
+
+			int sampleCount = this.sampleCount + 1;
+
+			if (sampleCount < sampleInterval) {
+
+				this.sampleCount = sampleCount;
+
+				return;
+
+			}
+
+			this.sampleCount = 0;
+
+		}
+
+		try {
+
+			StackTraceElement resolvedLocation = Canary.dispatch(identifier,
+					variable, logger, location);
+
+			if (location == null) {
+
+				location = resolvedLocation;
+
+			}
+
+		} catch (Exception error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+}
\ No newline at end of file
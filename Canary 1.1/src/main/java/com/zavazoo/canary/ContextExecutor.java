@@ -0,0 +1,155 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import com.zavazoo.canary.sink.TraceContext;
+
+/**
+ * Wraps an executor such that each task runs with the trace context that was
+ * open on the thread that submitted it, and defines the wrapping of single
+ * tasks used by each executor wrapper.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class ContextExecutor implements Executor {
+
+	/** The wrapped executor. */
+	private final Executor executor;
+
+	/**
+	 * Creates a wrapper of the specified executor.
+	 * 
+	 * @param executor
+	 *            the executor.
+	 */
+	ContextExecutor(Executor executor) {
+
+		if (executor == null) {
+
+			throw new NullPointerException("executor");
+
+		}
+
+		this.executor = executor;
+
+	}
+
+	/**
+	 * Executes the specified task with the trace context of the current
+	 * thread.
+	 * 
+	 * @param task
+	 *            the task.
+	 */
+	public void execute(Runnable task) {
+
+		executor.execute(wrap(task));
+
+	}
+
+	/**
+	 * Wraps the specified task such that it runs with the trace context of
+	 * the current thread, whichever thread it runs on.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the wrapped task.
+	 */
+	static Runnable wrap(final Runnable task) {
+
+		if (task == null) {
+
+			throw new NullPointerException("task");
+
+		}
+
+		final TraceContext context = Canary.getContext();
+
+		return new Runnable() {
+
+			public void run() {
+
+				TraceContext previous = Canary.getContext();
+
+				Canary.setContext(context);
+
+				try {
+
+					task.run();
+
+				} finally {
+
+					Canary.setContext(previous);
+
+				}
+
+			}
+
+		};
+
+	}
+
+	/**
+	 * Wraps the specified task such that it runs with the trace context of
+	 * the current thread, whichever thread it runs on.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the wrapped task.
+	 */
+	static <V> Callable<V> wrap(final Callable<V> task) {
+
+		if (task == null) {
+
+			throw new NullPointerException("task");
+
+		}
+
+		final TraceContext context = Canary.getContext();
+
+		return new Callable<V>() {
+
+			public V call() throws Exception {
+
+				TraceContext previous = Canary.getContext();
+
+				Canary.setContext(context);
+
+				try {
+
+					return task.call();
+
+				} finally {
+
+					Canary.setContext(previous);
+
+				}
+
+			}
+
+		};
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wraps an executor service such that each task runs with the trace context
+ * that was open on the thread that submitted it.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class ContextExecutorService extends ContextExecutor implements
+		ExecutorService {
+
+	/** The wrapped executor service. */
+	private final ExecutorService executorService;
+
+	/**
+	 * Creates a wrapper of the specified executor service.
+	 * 
+	 * @param executorService
+	 *            the executor service.
+	 */
+	ContextExecutorService(ExecutorService executorService) {
+
+		super(executorService);
+
+		this.executorService = executorService;
+
+	}
+
+	/**
+	 * Shuts down the wrapped executor service.
+	 */
+	public void shutdown() {
+
+		executorService.shutdown();
+
+	}
+
+	/**
+	 * Shuts down the wrapped executor service immediately.
+	 * 
+	 * @return the tasks that never commenced execution.
+	 */
+	public List<Runnable> shutdownNow() {
+
+		return executorService.shutdownNow();
+
+	}
+
+	/**
+	 * Determines whether the wrapped executor service has been shut down.
+	 * 
+	 * @return true if it has been shut down, false otherwise.
+	 */
+	public boolean isShutdown() {
+
+		return executorService.isShutdown();
+
+	}
+
+	/**
+	 * Determines whether the wrapped executor service has terminated.
+	 * 
+	 * @return true if it has terminated, false otherwise.
+	 */
+	public boolean isTerminated() {
+
+		return executorService.isTerminated();
+
+	}
+
+	/**
+	 * Awaits the termination of the wrapped executor service.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait.
+	 * @param unit
+	 *            the unit of the timeout.
+	 * @return true if it terminated, false if the timeout elapsed.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+
+		return executorService.awaitTermination(timeout, unit);
+
+	}
+
+	/**
+	 * Submits the specified task with the trace context of the current thread.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the future of the task.
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+
+		return executorService.submit(wrap(task));
+
+	}
+
+	/**
+	 * Submits the specified task with the trace context of the current thread.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @param result
+	 *            the result of the task.
+	 * @return the future of the task.
+	 */
+	public <T> Future<T> submit(Runnable task, T result) {
+
+		return executorService.submit(wrap(task), result);
+
+	}
+
+	/**
+	 * Submits the specified task with the trace context of the current thread.
+	 * 
+	 * @param task
+	 *            the task.
+	 * @return the future of the task.
+	 */
+	public Future<?> submit(Runnable task) {
+
+		return executorService.submit(wrap(task));
+
+	}
+
+	/**
+	 * Executes the specified tasks with the trace context of the current
+	 * thread, returning when all complete.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @return the futures of the tasks.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 */
+	public <T> List<Future<T>> invokeAll(
+			Collection<? extends Callable<T>> tasks)
+			throws InterruptedException {
+
+		return executorService.invokeAll(wrapAll(tasks));
+
+	}
+
+	/**
+	 * Executes the specified tasks with the trace context of the current
+	 * thread, returning when all complete or the
+	 * timeout elapses.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @param timeout
+	 *            the maximum time to wait.
+	 * @param unit
+	 *            the unit of the timeout.
+	 * @return the futures of the tasks.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 */
+	public <T> List<Future<T>> invokeAll(
+			Collection<? extends Callable<T>> tasks, long timeout,
+			TimeUnit unit) throws InterruptedException {
+
+		return executorService.invokeAll(wrapAll(tasks), timeout, unit);
+
+	}
+
+	/**
+	 * Executes the specified tasks with the trace context of the current
+	 * thread, returning the result of one that
+	 * completes successfully.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @return the result.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 * @throws ExecutionException
+	 *             if no task completed successfully.
+	 */
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+
+		return executorService.invokeAny(wrapAll(tasks));
+
+	}
+
+	/**
+	 * Executes the specified tasks with the trace context of the current
+	 * thread, returning the result of one that
+	 * completes successfully before the timeout elapses.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @param timeout
+	 *            the maximum time to wait.
+	 * @param unit
+	 *            the unit of the timeout.
+	 * @return the result.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 * @throws ExecutionException
+	 *             if no task completed successfully.
+	 * @throws TimeoutException
+	 *             if the timeout elapses first.
+	 */
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+			long timeout, TimeUnit unit) throws InterruptedException,
+			ExecutionException, TimeoutException {
+
+		return executorService.invokeAny(wrapAll(tasks), timeout, unit);
+
+	}
+
+	/**
+	 * Wraps each of the specified tasks such that it runs with the trace
+	 * context of the current thread.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @return the wrapped tasks.
+	 */
+	private static <T> List<Callable<T>> wrapAll(
+			Collection<? extends Callable<T>> tasks) {
+
+		List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+
+		for (Callable<T> task : tasks) {
+
+			wrapped.add(wrap(task));
+
+		}
+
+		return wrapped;
+
+	}
+
+}
\ No newline at end of file
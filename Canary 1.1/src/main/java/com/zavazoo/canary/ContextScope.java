@@ -0,0 +1,71 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import com.zavazoo.canary.sink.TraceContext;
+
+/**
+ * Defines the scope of a trace context opened on the current thread by
+ * {@link Canary#openContext(String, Object)}, which restores the context that
+ * was open beforehand when closed. Scopes must be closed on the thread that
+ * opened them, in the reverse order to which they were opened, usually in a
+ * finally block or a try-with-resources statement.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class ContextScope implements AutoCloseable {
+
+	/** The context that was open before this scope was opened. */
+	private final TraceContext previous;
+
+	/** Switch used to indicate that this scope has been closed. */
+	private boolean closed;
+
+	/**
+	 * Creates the scope of a context opened while the specified context was
+	 * open.
+	 * 
+	 * @param previous
+	 *            the previous context.
+	 */
+	ContextScope(TraceContext previous) {
+
+		this.previous = previous;
+
+	}
+
+	/**
+	 * Closes this scope, restoring the context that was open before this
+	 * scope was opened. Closing a scope more than once has no effect.
+	 */
+	public void close() {
+
+		if (!closed) {
+
+			closed = true;
+
+			Canary.setContext(previous);
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,657 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import com.sun.management.OperatingSystemMXBean;
+
+import com.zavazoo.canary.output.VariableAppender;
+
+/**
+ * Keeps the overhead of Canary under a budget expressed as a percentage of
+ * the processing capacity of the machine. The time spent inside Canary, from
+ * the capture of each trace until it has been written to every sink, is
+ * accumulated and compared at every interval with the wall time of the
+ * interval multiplied by the number of processors.<br/>
+ * <br/>
+ * While the overhead exceeds the budget the governor degrades Canary by one
+ * level at every interval, and while it is below half of the budget, such
+ * that the governor does not oscillate, it restores Canary by one level at
+ * every interval. Each level adds a degradation to those of the levels below
+ * it:<br/>
+ * <br/>
+ * 1 - arrays and collections are represented by their first and last
+ * elements beyond LARGE_COLLECTION_THRESHOLD elements<br/>
+ * 2 - the maximum number of characters of each entry is quartered<br/>
+ * 3 - the noisiest call sites, which account for NOISY_SHARE of the traces
+ * of an interval, are sampled one in 10<br/>
+ * 4 - the noisiest call sites are sampled one in 100<br/>
+ * 5 - the location of calling components is no longer captured<br/>
+ * <br/>
+ * Call sites are told apart by location wherever the location is known when
+ * the trace is captured, which it is for probes and whenever an enabled sink
+ * requires the location, and otherwise by identifier, since resolving the
+ * location of a trace that no sink requires is itself one of the costs being
+ * governed. Call sites that trace nothing during an interval are forgotten at
+ * the end of the interval, such that the call sites tracked follow the
+ * traces of the application. The state of the governor and every step it
+ * takes are exposed through the {@link OverheadGovernorMXBean}.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class OverheadGovernor implements OverheadGovernorMXBean {
+
+	/** The highest level of degradation. */
+	static final int MAXIMUM_LEVEL = 5;
+
+	/** The large collection threshold imposed from the first level. */
+	private static final int LARGE_COLLECTION_THRESHOLD = 64;
+
+	/** The share of the traces of an interval that makes a call site noisy. */
+	private static final double NOISY_SHARE = 0.1;
+
+	/** The maximum number of call sites tracked. */
+	private static final int MAXIMUM_SITES = 1024;
+
+	/** The key of the call sites of remarks, which have no identifier. */
+	private static final String REMARK_SITE = "";
+
+	/** The budget as a percentage of the processing capacity. */
+	private final double budgetPercent;
+
+	/**
+	 * The maximum number of characters of each entry that was current before
+	 * it was quartered.
+	 */
+	private int restoredMaximum;
+
+	/** The maximum number of characters of each entry while quartered. */
+	private int degradedMaximum;
+
+	/**
+	 * The large collection threshold that was current before it was
+	 * imposed.
+	 */
+	private int restoredThreshold;
+
+	/** The large collection threshold while imposed. */
+	private int degradedThreshold;
+
+	/** The time spent inside Canary during the current interval. */
+	private final LongAdder spentNanos = new LongAdder();
+
+	/** The call sites tracked by location or identifier. */
+	private final ConcurrentHashMap<Object, Site> sites = new ConcurrentHashMap<Object, Site>();
+
+	/**
+	 * The operating system bean that measures the CPU time of the process, or
+	 * null if the platform does not provide it.
+	 */
+	private final OperatingSystemMXBean operatingSystem = findOperatingSystem();
+
+	/** The level of degradation. */
+	private volatile int level;
+
+	/** The overhead during the last interval. */
+	private volatile double overheadPercent;
+
+	/** The share of the CPU time of the process during the last interval. */
+	private volatile double processSharePercent = -1;
+
+	/** The number of steps taken to degrade Canary. */
+	private volatile long degradations;
+
+	/** The number of steps taken to restore Canary. */
+	private volatile long restorations;
+
+	/** The description of the last step taken. */
+	private volatile String lastStep;
+
+	/** The start of the current interval. */
+	private long intervalStart = System.nanoTime();
+
+	/** The CPU time of the process at the start of the current interval. */
+	private long intervalProcessCpuNanos = getProcessCpuNanos();
+
+	/**
+	 * Creates a governor that keeps Canary under the specified budget,
+	 * measuring the overhead at the specified interval, and registers its
+	 * metrics with the platform MBean server.
+	 * 
+	 * @param budgetPercent
+	 *            the budget as a percentage of the processing capacity.
+	 * @param intervalMillis
+	 *            the interval in milliseconds.
+	 */
+	OverheadGovernor(double budgetPercent, final long intervalMillis) {
+
+		this.budgetPercent = budgetPercent;
+
+		try {
+
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("com.zavazoo.canary:type=OverheadGovernor"));
+
+		} catch (Exception error) {
+
+			System.out
+					.println("canary overhead governor metrics could not be registered - "
+							+ error.getMessage());
+
+		}
+
+		Thread governor = new Thread(new Runnable() {
+
+			public void run() {
+
+				while (true) {
+
+					try {
+
+						Thread.sleep(Math.max(intervalMillis, 1));
+
+					} catch (InterruptedException error) {
+
+						return;
+
+					}
+
+					govern();
+
+				}
+
+			}
+
+		}, "canary-overhead-governor");
+
+		governor.setDaemon(true);
+		governor.start();
+
+	}
+
+	/**
+	 * Determines whether a trace of the call site with the specified location,
+	 * or the specified identifier if the location is not known, is admitted,
+	 * counting the trace towards the noisiness of the call site, which is
+	 * sampled if it is one of the noisiest call sites while the level of
+	 * degradation is 3 or more. Traces of new call sites are admitted without
+	 * being counted while MAXIMUM_SITES call sites are tracked.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param location
+	 *            the location of the calling component, or null if it is not
+	 *            known.
+	 * @return true if the trace is admitted, false if it is sampled out.
+	 */
+	boolean admit(String identifier, StackTraceElement location) {
+
+		Object key = location;
+
+		if (key == null) {
+
+			key = identifier == null ? REMARK_SITE : identifier;
+
+		}
+
+		Site site = sites.get(key);
+
+		if (site == null) {
+
+			if (sites.size() >= MAXIMUM_SITES) {
+
+				return true;
+
+			}
+
+			site = new Site();
+
+			Site existing = sites.putIfAbsent(key, site);
+
+			if (existing != null) {
+
+				site = existing;
+
+			}
+
+		}
+
+		site.traces.increment();
+
+		int sampleInterval = site.sampleInterval;
+
+		if (sampleInterval <= 1) {
+
+			return true;
+
+		}
+
+		// updated without synchronisation as approximate sampling suffices
+		int sampleCount = site.sampleCount + 1;
+
+		if (sampleCount < sampleInterval) {
+
+			site.sampleCount = sampleCount;
+
+			return false;
+
+		}
+
+		site.sampleCount = 0;
+
+		return true;
+
+	}
+
+	/**
+	 * Records the specified time spent inside Canary by a single trace.
+	 * 
+	 * @param nanos
+	 *            the time in nanoseconds.
+	 */
+	void record(long nanos) {
+
+		spentNanos.add(nanos);
+
+	}
+
+	/**
+	 * Determines whether the location of calling components is captured,
+	 * which it is below the highest level of degradation.
+	 * 
+	 * @return true if locations are captured, false otherwise.
+	 */
+	public boolean isLocationCaptured() {
+
+		return level < MAXIMUM_LEVEL;
+
+	}
+
+	/**
+	 * Measures the overhead of the interval that has just ended and degrades
+	 * or restores Canary by one level if the overhead is above the budget or
+	 * below half of it.
+	 */
+	void govern() {
+
+		long now = System.nanoTime();
+		long processCpuNanos = getProcessCpuNanos();
+
+		long wallNanos = Math.max(now - intervalStart, 1);
+		long spent = spentNanos.sumThenReset();
+
+		overheadPercent = 100.0 * spent
+				/ (wallNanos * (double) Runtime.getRuntime()
+						.availableProcessors());
+
+		if (processCpuNanos > 0 && intervalProcessCpuNanos > 0
+				&& processCpuNanos > intervalProcessCpuNanos) {
+
+			processSharePercent = Math.min(100.0 * spent
+					/ (processCpuNanos - intervalProcessCpuNanos), 100.0);
+
+		}
+
+		intervalStart = now;
+		intervalProcessCpuNanos = processCpuNanos;
+
+		int level = this.level;
+
+		if (overheadPercent > budgetPercent && level < MAXIMUM_LEVEL) {
+
+			level++;
+			degradations++;
+
+			lastStep = "degraded to level " + level + " at overhead "
+					+ format(overheadPercent) + "% of budget "
+					+ format(budgetPercent) + "%";
+
+		} else if (overheadPercent < budgetPercent / 2 && level > 0) {
+
+			level--;
+			restorations++;
+
+			lastStep = "restored to level " + level + " at overhead "
+					+ format(overheadPercent) + "% of budget "
+					+ format(budgetPercent) + "%";
+
+		}
+
+		apply(level);
+
+		sample(level);
+
+	}
+
+	/**
+	 * Applies the degradations of the specified level that are not applied
+	 * per trace if the level has changed. The settings current before a
+	 * degradation are remembered and restored with the level, unless they
+	 * have been changed since the degradation was applied.
+	 * 
+	 * @param level
+	 *            the level.
+	 */
+	private void apply(int level) {
+
+		int previous = this.level;
+
+		if (level == previous) {
+
+			return;
+
+		}
+
+		this.level = level;
+
+		if (previous < 1 && level >= 1) {
+
+			restoredThreshold = VariableAppender.getLargeCollectionThreshold();
+
+			degradedThreshold = restoredThreshold;
+
+			if (degradedThreshold <= 0
+					|| degradedThreshold > LARGE_COLLECTION_THRESHOLD) {
+
+				degradedThreshold = LARGE_COLLECTION_THRESHOLD;
+
+			}
+
+			VariableAppender.setLargeCollectionThreshold(degradedThreshold);
+
+		} else if (previous >= 1 && level < 1) {
+
+			if (VariableAppender.getLargeCollectionThreshold()
+					== degradedThreshold) {
+
+				VariableAppender.setLargeCollectionThreshold(restoredThreshold);
+
+			}
+
+		}
+
+		if (previous < 2 && level >= 2) {
+
+			restoredMaximum = Canary.getMaximumRepresentationCharacters();
+
+			degradedMaximum = Math.max(restoredMaximum / 4, 16);
+
+			Canary.setMaximumRepresentationCharacters(degradedMaximum);
+
+		} else if (previous >= 2 && level < 2) {
+
+			if (Canary.getMaximumRepresentationCharacters()
+					== degradedMaximum) {
+
+				Canary.setMaximumRepresentationCharacters(restoredMaximum);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Sets the sample interval of every call site for the specified level and
+	 * the traces counted during the interval that has just ended, and resets
+	 * the counts, forgetting the call sites that traced nothing during the
+	 * interval.
+	 * 
+	 * @param level
+	 *            the level.
+	 */
+	private void sample(int level) {
+
+		long total = 0;
+
+		Iterator<Site> iterator = sites.values().iterator();
+
+		while (iterator.hasNext()) {
+
+			Site site = iterator.next();
+
+			site.intervalTraces = site.traces.sumThenReset();
+
+			if (site.intervalTraces == 0) {
+
+				// a trace counted by the site as it is forgotten is lost,
+				// which approximate sampling tolerates
+				iterator.remove();
+
+				continue;
+
+			}
+
+			total += site.intervalTraces;
+
+		}
+
+		int sampleInterval = level >= 4 ? 100 : level >= 3 ? 10 : 1;
+
+		for (Site site : sites.values()) {
+
+			boolean noisy = total > 0
+					&& site.intervalTraces >= total * NOISY_SHARE;
+
+			site.sampleInterval = noisy ? sampleInterval : 1;
+
+		}
+
+	}
+
+	/**
+	 * Gets the CPU time of the process if the platform measures it.
+	 * 
+	 * @return the CPU time in nanoseconds, or -1 if it is not measured.
+	 */
+	private long getProcessCpuNanos() {
+
+		if (operatingSystem == null) {
+
+			return -1;
+
+		}
+
+		return operatingSystem.getProcessCpuTime();
+
+	}
+
+	/**
+	 * Finds the operating system bean that measures the CPU time of the
+	 * process.
+	 * 
+	 * @return the bean, or null if the platform does not provide it.
+	 */
+	private static OperatingSystemMXBean findOperatingSystem() {
+
+		try {
+
+			return ManagementFactory
+					.getPlatformMXBean(OperatingSystemMXBean.class);
+
+		} catch (IllegalArgumentException error) {
+
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * Formats the specified percentage to two decimal places.
+	 * 
+	 * @param percent
+	 *            the percentage.
+	 * @return the formatted percentage.
+	 */
+	private static String format(double percent) {
+
+		return String.format(Locale.ROOT, "%.2f", percent);
+
+	}
+
+	/**
+	 * Gets the budget property.
+	 * 
+	 * @return the percentage of the processing capacity that Canary may use.
+	 */
+	public double getBudgetPercent() {
+
+		return budgetPercent;
+
+	}
+
+	/**
+	 * Gets the overhead property.
+	 * 
+	 * @return the percentage of the processing capacity spent inside Canary
+	 *         during the last interval.
+	 */
+	public double getOverheadPercent() {
+
+		return overheadPercent;
+
+	}
+
+	/**
+	 * Gets the process share property.
+	 * 
+	 * @return the percentage of the CPU time of the process spent inside
+	 *         Canary during the last interval, or -1 if it is not measured.
+	 */
+	public double getProcessSharePercent() {
+
+		return processSharePercent;
+
+	}
+
+	/**
+	 * Gets the level property.
+	 * 
+	 * @return the level of degradation.
+	 */
+	public int getLevel() {
+
+		return level;
+
+	}
+
+	/**
+	 * Gets the degradations property.
+	 * 
+	 * @return the number of steps taken to degrade Canary.
+	 */
+	public long getDegradations() {
+
+		return degradations;
+
+	}
+
+	/**
+	 * Gets the restorations property.
+	 * 
+	 * @return the number of steps taken to restore Canary.
+	 */
+	public long getRestorations() {
+
+		return restorations;
+
+	}
+
+	/**
+	 * Gets the last step property.
+	 * 
+	 * @return the description of the last step taken, or null if none.
+	 */
+	public String getLastStep() {
+
+		return lastStep;
+
+	}
+
+	/**
+	 * Gets the maximum representation characters property.
+	 * 
+	 * @return the maximum number of characters currently represented in any
+	 *         entry.
+	 */
+	public int getMaximumRepresentationCharacters() {
+
+		return Canary.getMaximumRepresentationCharacters();
+
+	}
+
+	/**
+	 * Gets the sampled call sites property.
+	 * 
+	 * @return the locations, or identifiers, of the sampled call sites, each
+	 *         followed by its sample interval.
+	 */
+	public String[] getSampledCallSites() {
+
+		List<String> sampled = new ArrayList<String>();
+
+		for (Map.Entry<Object, Site> entry : sites.entrySet()) {
+
+			int sampleInterval = entry.getValue().sampleInterval;
+
+			if (sampleInterval > 1) {
+
+				sampled.add(entry.getKey() + " 1/" + sampleInterval);
+
+			}
+
+		}
+
+		return sampled.toArray(new String[sampled.size()]);
+
+	}
+
+	/**
+	 * Defines the traces and the sampling state of a single call site.
+	 */
+	private static class Site {
+
+		/** The number of traces of the current interval. */
+		private final LongAdder traces = new LongAdder();
+
+		/** The number of traces of the last interval. */
+		private long intervalTraces;
+
+		/** The call site admits one in every sample interval traces. */
+		private volatile int sampleInterval = 1;
+
+		/** The number of traces since the last admitted trace. */
+		private int sampleCount;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+/**
+ * Defines the metrics of the overhead governor of Canary, which are exposed
+ * through JMX under the name com.zavazoo.canary:type=OverheadGovernor such
+ * that every step the governor takes is visible to monitoring tools.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public interface OverheadGovernorMXBean {
+
+	/**
+	 * Gets the budget property.
+	 * 
+	 * @return the percentage of the processing capacity of the machine that
+	 *         Canary may use.
+	 */
+	public double getBudgetPercent();
+
+	/**
+	 * Gets the overhead property.
+	 * 
+	 * @return the percentage of the processing capacity of the machine spent
+	 *         inside Canary during the last interval.
+	 */
+	public double getOverheadPercent();
+
+	/**
+	 * Gets the process share property.
+	 * 
+	 * @return the percentage of the CPU time of the process spent inside
+	 *         Canary during the last interval, or -1 if the CPU time of the
+	 *         process cannot be measured.
+	 */
+	public double getProcessSharePercent();
+
+	/**
+	 * Gets the level property.
+	 * 
+	 * @return the level of degradation, from 0 for none to 5 for all.
+	 */
+	public int getLevel();
+
+	/**
+	 * Gets the degradations property.
+	 * 
+	 * @return the number of steps the governor has taken to degrade Canary.
+	 */
+	public long getDegradations();
+
+	/**
+	 * Gets the restorations property.
+	 * 
+	 * @return the number of steps the governor has taken to restore Canary.
+	 */
+	public long getRestorations();
+
+	/**
+	 * Gets the last step property.
+	 * 
+	 * @return the description of the last step the governor took, or null if
+	 *         it has taken none.
+	 */
+	public String getLastStep();
+
+	/**
+	 * Gets the maximum representation characters property.
+	 * 
+	 * @return the maximum number of characters currently represented in any
+	 *         entry.
+	 */
+	public int getMaximumRepresentationCharacters();
+
+	/**
+	 * Gets the sampled call sites property.
+	 * 
+	 * @return the locations, or identifiers, of the call sites currently
+	 *         sampled, each followed by its sample interval.
+	 */
+	public String[] getSampledCallSites();
+
+	/**
+	 * Determines whether the location of calling components is captured.
+	 * 
+	 * @return true if locations are captured, false if capture is switched
+	 *         off.
+	 */
+	public boolean isLocationCaptured();
+
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary;
+
+import com.zavazoo.canary.sink.CanaryEvent;
+
+/**
+ * Defines a reusable event and representation builder, used by Canary in the
+ * garbage-free mode such that each trace is captured and rendered without
+ * allocating an event, a decorator or an intermediate string.<br/>
+ * <br/>
+ * Render buffers are held in a bounded {@link RenderBufferPool} rather than
+ * by each thread, such that millions of virtual threads share as many
+ * buffers as there are slots in the pool. A trace captured while every
+ * buffer is in use, for example by a variable that itself outputs to Canary
+ * from its toString() operation, is captured and rendered with new objects
+ * as usual.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class RenderBuffer {
+
+	/** The slot of the pool that holds this buffer while it is free. */
+	final int slot;
+
+	/** The reusable event. */
+	final PooledEvent event = new PooledEvent(this);
+
+	/** The reusable builder of the representation. */
+	final StringBuilder representation = new StringBuilder(256);
+
+	/**
+	 * Creates a render buffer held by the specified slot of its pool.
+	 * 
+	 * @param slot
+	 *            the slot.
+	 */
+	RenderBuffer(int slot) {
+
+		this.slot = slot;
+
+	}
+
+	/**
+	 * Defines the reusable event of a render buffer, which refers back to the
+	 * buffer such that the buffer of a reused event is found without a
+	 * thread local.
+	 */
+	static class PooledEvent extends CanaryEvent {
+
+		/** The render buffer of this event. */
+		final RenderBuffer buffer;
+
+		/**
+		 * Creates the reusable event of the specified render buffer.
+		 * 
+		 * @param buffer
+		 *            the render buffer.
+		 */
+		PooledEvent(RenderBuffer buffer) {
+
+			this.buffer = buffer;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds a bounded number of render buffers that any thread may borrow for the
+ * duration of a single trace, used by Canary in the garbage-free mode in
+ * place of a render buffer for each thread such that the buffers held do not
+ * grow with the number of threads, which may be millions of virtual
+ * threads.<br/>
+ * <br/>
+ * Each buffer has its own slot, which is empty while the buffer is borrowed.
+ * A thread begins its search at the slot selected by its thread id, such
+ * that a platform thread tends to borrow the same buffer each time, and
+ * borrows and returns a buffer with a single atomic operation and without
+ * holding a lock that could pin a virtual thread to its carrier.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class RenderBufferPool {
+
+	/** The slots of the buffers, each of which is empty while borrowed. */
+	private final AtomicReferenceArray<RenderBuffer> slots;
+
+	/**
+	 * Creates a pool of the specified number of render buffers.
+	 * 
+	 * @param capacity
+	 *            the number of buffers.
+	 */
+	RenderBufferPool(int capacity) {
+
+		slots = new AtomicReferenceArray<RenderBuffer>(Math.max(capacity, 1));
+
+		for (int slot = 0; slot < slots.length(); slot++) {
+
+			slots.set(slot, new RenderBuffer(slot));
+
+		}
+
+	}
+
+	/**
+	 * Borrows a free render buffer for the current thread.
+	 * 
+	 * @return the buffer, or null if every buffer is borrowed.
+	 */
+	RenderBuffer borrow() {
+
+		int length = slots.length();
+
+		int slot = (int) (Thread.currentThread().getId() % length);
+
+		for (int attempt = 0; attempt < length; attempt++) {
+
+			if (slots.get(slot) != null) {
+
+				RenderBuffer buffer = slots.getAndSet(slot, null);
+
+				if (buffer != null) {
+
+					return buffer;
+
+				}
+
+			}
+
+			if (++slot == length) {
+
+				slot = 0;
+
+			}
+
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Returns the specified borrowed render buffer to its slot. A buffer that
+	 * is already in its slot is never returned again, since it may have been
+	 * borrowed by another thread in the meantime.
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 */
+	void giveBack(RenderBuffer buffer) {
+
+		boolean returned = slots.compareAndSet(buffer.slot, null, buffer);
+
+		assert returned : "render buffer " + buffer.slot + " returned twice";
+
+	}
+
+}
\ No newline at end of file
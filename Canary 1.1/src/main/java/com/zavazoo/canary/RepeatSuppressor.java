@@ -0,0 +1,413 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.log4j.Logger;
+
+import com.zavazoo.canary.sink.CanaryEvent;
+
+/**
+ * Suppresses traces that repeat the call site, identifier and representation
+ * of an earlier trace within a window of time. The first trace of each
+ * window is written as usual and the repetitions that follow it within the
+ * window are counted and folded into a single trace written once the window
+ * has closed, for example: repeated 12,408 times between 10:15:02.118 and
+ * 10:15:03.117<br/>
+ * <br/>
+ * Traces are tracked in a table of a fixed number of slots selected by a
+ * 64-bit hash of the call site, identifier and representation, such that
+ * memory stays fixed however many distinct traces there are. A trace whose
+ * slot holds a different trace takes the slot over once the repetitions of
+ * the previous trace have been written. The slots are guarded by a fixed
+ * number of striped locks, such that threads tracing different call sites
+ * rarely contend. Windows that close without a further trace of their slot
+ * are swept by a daemon thread at the interval of the window, and once more
+ * when the application shuts down.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+class RepeatSuppressor {
+
+	/** The number of locks over which the slots are striped. */
+	private static final int STRIPES = 64;
+
+	/** The offset basis of the FNV-1a hash of a trace. */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/** The prime of the FNV-1a hash of a trace. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The time format of the first and last repetitions of a trace. */
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter
+			.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+	/** The length of each window in milliseconds. */
+	private final long windowMillis;
+
+	/** The mask that selects a slot from a hash. */
+	private final int mask;
+
+	/** The locks of the stripes of slots. */
+	private final Object[] locks = new Object[STRIPES];
+
+	/** The hash of the trace of each slot, or zero if the slot is free. */
+	private final long[] hashes;
+
+	/** The time at which the window of each slot closes. */
+	private final long[] windowEnds;
+
+	/** The number of repetitions suppressed in the window of each slot. */
+	private final long[] counts;
+
+	/** The time of the first repetition suppressed in each slot. */
+	private final long[] firstMillis;
+
+	/** The time of the last repetition suppressed in each slot. */
+	private final long[] lastMillis;
+
+	/** The identifier of the trace of each slot. */
+	private final String[] identifiers;
+
+	/** The logger of the trace of each slot. */
+	private final Logger[] loggers;
+
+	/** The location of the calling component of the trace of each slot. */
+	private final StackTraceElement[] locations;
+
+	/**
+	 * Creates a suppressor of traces repeated within the specified window with
+	 * a table of the specified number of slots, which is rounded up to a power
+	 * of two no smaller than the number of stripes.
+	 * 
+	 * @param windowMillis
+	 *            the length of each window in milliseconds.
+	 * @param slotCount
+	 *            the number of slots.
+	 */
+	RepeatSuppressor(final long windowMillis, int slotCount) {
+
+		this.windowMillis = Math.max(windowMillis, 1);
+
+		int slots = STRIPES;
+
+		while (slots < slotCount && slots < (1 << 30)) {
+
+			slots <<= 1;
+
+		}
+
+		mask = slots - 1;
+
+		for (int index = 0; index < STRIPES; index++) {
+
+			locks[index] = new Object();
+
+		}
+
+		hashes = new long[slots];
+		windowEnds = new long[slots];
+		counts = new long[slots];
+		firstMillis = new long[slots];
+		lastMillis = new long[slots];
+		identifiers = new String[slots];
+		loggers = new Logger[slots];
+		locations = new StackTraceElement[slots];
+
+		Thread sweeper = new Thread(new Runnable() {
+
+			public void run() {
+
+				while (true) {
+
+					try {
+
+						Thread.sleep(RepeatSuppressor.this.windowMillis);
+
+					} catch (InterruptedException error) {
+
+						return;
+
+					}
+
+					sweep(false);
+
+				}
+
+			}
+
+		}, "canary-repeat-sweeper");
+
+		sweeper.setDaemon(true);
+		sweeper.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			public void run() {
+
+				sweep(true);
+
+			}
+
+		}, "canary-repeat-shutdown"));
+
+	}
+
+	/**
+	 * Determines whether the specified event, rendered with the specified
+	 * representation, repeats the trace of its slot within the window of the
+	 * slot, in which case the repetition is counted. Otherwise the event opens
+	 * a new window in its slot, once any repetitions counted in the slot have
+	 * been written, and should be written itself. Events whose location was
+	 * not captured are never suppressed, since the call sites of such events
+	 * cannot be told apart.
+	 * 
+	 * @param event
+	 *            the event.
+	 * @param representation
+	 *            the representation.
+	 * @return true if the event is suppressed, false if it should be written.
+	 */
+	boolean suppress(CanaryEvent event, CharSequence representation) {
+
+		StackTraceElement location = event.getLocation();
+
+		if (location == Canary.UNCAPTURED_LOCATION) {
+
+			return false;
+
+		}
+
+		long hash = FNV_OFFSET_BASIS;
+
+		hash = hash(hash, location.getClassName());
+		hash = hash(hash, location.getMethodName());
+		hash = (hash ^ location.getLineNumber()) * FNV_PRIME;
+		hash = hash(hash, event.getIdentifier());
+		hash = hash(hash, representation);
+
+		if (hash == 0) {
+
+			hash = 1;
+
+		}
+
+		long millis = event.getTimeMillis();
+
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+		Repetitions repetitions = null;
+
+		synchronized (locks[slot & (STRIPES - 1)]) {
+
+			if (hashes[slot] == hash && millis < windowEnds[slot]) {
+
+				if (counts[slot]++ == 0) {
+
+					firstMillis[slot] = millis;
+
+				}
+
+				lastMillis[slot] = millis;
+
+				return true;
+
+			}
+
+			if (counts[slot] > 0) {
+
+				repetitions = new Repetitions(slot);
+
+			}
+
+			hashes[slot] = hash;
+			windowEnds[slot] = millis + windowMillis;
+			counts[slot] = 0;
+			identifiers[slot] = event.getIdentifier();
+			loggers[slot] = event.getLogger();
+			locations[slot] = location;
+
+		}
+
+		if (repetitions != null) {
+
+			repetitions.publish();
+
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Writes the repetitions counted in every slot whose window has closed,
+	 * or in every slot if specified, and frees those slots.
+	 * 
+	 * @param all
+	 *            true if the repetitions of every slot should be written,
+	 *            false otherwise.
+	 */
+	void sweep(boolean all) {
+
+		long millis = System.currentTimeMillis();
+
+		List<Repetitions> closed = null;
+
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+
+			synchronized (locks[stripe]) {
+
+				for (int slot = stripe; slot <= mask; slot += STRIPES) {
+
+					if (hashes[slot] == 0
+							|| (!all && millis < windowEnds[slot])) {
+
+						continue;
+
+					}
+
+					if (counts[slot] > 0) {
+
+						if (closed == null) {
+
+							closed = new ArrayList<Repetitions>();
+
+						}
+
+						closed.add(new Repetitions(slot));
+
+					}
+
+					hashes[slot] = 0;
+					counts[slot] = 0;
+					identifiers[slot] = null;
+					loggers[slot] = null;
+					locations[slot] = null;
+
+				}
+
+			}
+
+		}
+
+		if (closed == null) {
+
+			return;
+
+		}
+
+		for (Repetitions repetitions : closed) {
+
+			repetitions.publish();
+
+		}
+
+	}
+
+	/**
+	 * Continues the specified FNV-1a hash with the specified characters.
+	 * 
+	 * @param hash
+	 *            the hash.
+	 * @param characters
+	 *            the characters, or null.
+	 * @return the hash.
+	 */
+	private static long hash(long hash, CharSequence characters) {
+
+		if (characters == null) {
+
+			return hash * FNV_PRIME;
+
+		}
+
+		int length = characters.length();
+
+		for (int index = 0; index < length; index++) {
+
+			hash ^= characters.charAt(index);
+			hash *= FNV_PRIME;
+
+		}
+
+		// separates consecutive fields such that their boundary is hashed
+		return (hash ^ 0xff) * FNV_PRIME;
+
+	}
+
+	/**
+	 * Defines the repetitions counted in a slot whose window has closed, which
+	 * are published once the lock of the slot has been released.
+	 */
+	private class Repetitions {
+
+		/** The identifier of the repeated trace. */
+		private final String identifier;
+
+		/** The logger of the repeated trace. */
+		private final Logger logger;
+
+		/** The location of the calling component of the repeated trace. */
+		private final StackTraceElement location;
+
+		/** The description of the repetitions. */
+		private final String description;
+
+		/**
+		 * Creates the repetitions counted in the specified slot while the lock
+		 * of the slot is held.
+		 * 
+		 * @param slot
+		 *            the slot.
+		 */
+		private Repetitions(int slot) {
+
+			identifier = identifiers[slot];
+			logger = loggers[slot];
+			location = locations[slot];
+			description = String.format(Locale.ROOT,
+					"repeated %,d time%s between %s and %s", counts[slot],
+					counts[slot] == 1 ? "" : "s", TIME_FORMAT.format(Instant
+							.ofEpochMilli(firstMillis[slot])), TIME_FORMAT
+							.format(Instant.ofEpochMilli(lastMillis[slot])));
+
+		}
+
+		/**
+		 * Publishes the repetitions as a trace of the repeated call site and
+		 * identifier.
+		 */
+		private void publish() {
+
+			Canary.publishRepetitions(identifier, logger, location,
+					description);
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -20,7 +20,11 @@ package com.zavazoo.canary.output;
 
 /**
  * Variable decorator that represents a variable that is an array of objects
- * using the following notation: [element1, element2, element3]
+ * using the following notation: [element1, element2, element3]<br/>
+ * <br/>
+ * An array larger than the large collection threshold of the
+ * VariableAppender is represented by its size and its first and last
+ * elements, for example [size=5000000: a, b, c ... x, y, z]
  * 
  * @author Chris White <chriswhitelondon@gmail.com>
  * @since JDK6
@@ -34,42 +38,10 @@ public class ArrayVariableDecorator extends VariableDecorator {
 	 */
 	public String representVariable() {
 
-		Object[] array = (Object[]) getVariable();
-		int maximum = getMaximum();
-
-		int arrayLength = array.length;
-
-		int arrayLastIndex = arrayLength - 1;
-
 		StringBuilder representation = new StringBuilder();
-		representation.append('[');
-
-		for (int index = 0; index < arrayLength; index++) {
-
-			Object element = array[index];
-
-			VariableDecorator elementDecorator = VariableDecoratorStrategy
-					.createDecoratorForVariableType(element, maximum);
-
-			String elementRepresentation = elementDecorator.representVariable();
-
-			representation.append(elementRepresentation);
-
-			if (index != arrayLastIndex) {
-
-				representation.append(", ");
-
-			}
-
-			if (representation.length() > maximum) {
-
-				return representation.toString();
-
-			}
-
-		}
 
-		representation.append(']');
+		VariableAppender.appendArray((Object[]) getVariable(), getMaximum(),
+				representation);
 
 		return representation.toString();
 
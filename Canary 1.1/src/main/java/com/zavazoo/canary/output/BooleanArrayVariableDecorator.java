@@ -34,23 +34,12 @@ public class BooleanArrayVariableDecorator extends VariableDecorator {
 	 */
 	public String representVariable() {
 
-		boolean[] booleanArray = (boolean[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int booleanArrayLength = booleanArray.length;
+		VariableAppender.appendArray((boolean[]) getVariable(), getMaximum(),
+				representation);
 
-		Boolean[] objectArray = new Boolean[booleanArrayLength];
-
-		for (int index = 0; index < booleanArrayLength; index++) {
-
-			objectArray[index] = booleanArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
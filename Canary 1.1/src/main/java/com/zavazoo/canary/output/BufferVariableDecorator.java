@@ -18,59 +18,35 @@
 
 package com.zavazoo.canary.output;
 
+import java.nio.Buffer;
+
 /**
- * Variable decorator that represents a variable that is an array of primitives
- * boxed as objects using the following notation: [element1, element2, element3]
+ * Variable decorator that represents a variable that is a buffer using the
+ * following notation: &lt;element1, element2, element3&gt;<br/>
+ * <br/>
+ * Only the elements between the position and the limit of the buffer are
+ * represented. They are read with absolute gets, such that the position and
+ * the limit of the buffer never change and direct and mapped buffers are
+ * never copied, and reading stops once the representation exceeds its maximum
+ * length. Byte buffers are represented as a hex dump, for example &lt;0a ff
+ * 3c&gt;, if VariableAppender.setByteBufferHexDump(true) has been called.
  * 
  * @author Chris White <chriswhitelondon@gmail.com>
- * @since JDK6
+ * @since JDK11
  */
-public class PrimitiveArrayVariableDecorator extends VariableDecorator {
+public class BufferVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of primitives boxed as objects.
+	 * Represents the variable that is a buffer.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		Object[] array = (Object[]) getVariable();
-		int maximum = getMaximum();
-
-		int arrayLength = array.length;
-
-		int arrayLastIndex = arrayLength - 1;
-
 		StringBuilder representation = new StringBuilder();
-		representation.append('[');
-
-		for (int index = 0; index < arrayLength; index++) {
-
-			Object element = array[index];
-
-			VariableDecorator elementDecorator = new SimpleVariableDecorator();
-			elementDecorator.setVariable(element);
-			elementDecorator.setMaximum(getMaximum());
-
-			String elementRepresentation = elementDecorator.representVariable();
-
-			representation.append(elementRepresentation);
-
-			if (index != arrayLastIndex) {
-
-				representation.append(", ");
-
-			}
-
-			if (representation.length() > maximum) {
-
-				return representation.toString();
-
-			}
-
-		}
 
-		representation.append(']');
+		VariableAppender.appendBuffer((Buffer) getVariable(), getMaximum(),
+				representation);
 
 		return representation.toString();
 
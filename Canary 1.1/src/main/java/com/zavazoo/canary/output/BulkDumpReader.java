@@ -0,0 +1,290 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the payload of a dump file written by the {@link BulkDumpWriter}.
+ * Primitive arrays and buffers are read as primitive arrays, and object
+ * arrays and collections as lists whose elements that were written as their
+ * representation are strings.<br/>
+ * <br/>
+ * The payload of a dump file is printed to standard output using the
+ * following command:<br/>
+ * <br/>
+ * java -cp canary.jar com.zavazoo.canary.output.BulkDumpReader &lt;file&gt;
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class BulkDumpReader {
+
+	/**
+	 * Reads the payload of the specified dump file.
+	 * 
+	 * @param file
+	 *            the file.
+	 * @return the payload, as a primitive array or a list.
+	 * @throws IOException
+	 *             if the file cannot be read or is not a dump file.
+	 */
+	public static Object read(File file) throws IOException {
+
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), 65536));
+
+		try {
+
+			if (input.readInt() != BulkDumpWriter.MAGIC) {
+
+				throw new IOException(file + " is not a dump file");
+
+			}
+
+			byte kind = input.readByte();
+
+			long count = input.readLong();
+
+			if (count > Integer.MAX_VALUE - 8) {
+
+				throw new IOException(file + " has too many elements");
+
+			}
+
+			int length = (int) count;
+
+			if (kind == BulkDumpWriter.ELEMENTS) {
+
+				List<Object> elements = new ArrayList<Object>(length);
+
+				for (int index = 0; index < length; index++) {
+
+					elements.add(readElement(input));
+
+				}
+
+				return elements;
+
+			} else if (kind == BulkDumpWriter.BYTES) {
+
+				byte[] array = new byte[length];
+
+				input.readFully(array);
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.SHORTS) {
+
+				short[] array = new short[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readShort();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.CHARS) {
+
+				char[] array = new char[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readChar();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.INTS) {
+
+				int[] array = new int[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readInt();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.FLOATS) {
+
+				float[] array = new float[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readFloat();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.LONGS) {
+
+				long[] array = new long[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readLong();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.DOUBLES) {
+
+				double[] array = new double[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readDouble();
+
+				}
+
+				return array;
+
+			} else if (kind == BulkDumpWriter.BOOLEANS) {
+
+				boolean[] array = new boolean[length];
+
+				for (int index = 0; index < length; index++) {
+
+					array[index] = input.readBoolean();
+
+				}
+
+				return array;
+
+			}
+
+			throw new IOException(file + " has unknown kind " + kind);
+
+		} finally {
+
+			input.close();
+
+		}
+
+	}
+
+	/**
+	 * Reads an element, preceded by its tag, from the specified input.
+	 * 
+	 * @param input
+	 *            the input.
+	 * @return the element.
+	 * @throws IOException
+	 *             if the input cannot be read or the tag is unknown.
+	 */
+	private static Object readElement(DataInputStream input)
+			throws IOException {
+
+		byte tag = input.readByte();
+
+		if (tag == BulkDumpWriter.NULL_TAG) {
+
+			return null;
+
+		} else if (tag == BulkDumpWriter.INTEGER_TAG) {
+
+			return input.readInt();
+
+		} else if (tag == BulkDumpWriter.LONG_TAG) {
+
+			return input.readLong();
+
+		} else if (tag == BulkDumpWriter.DOUBLE_TAG) {
+
+			return input.readDouble();
+
+		} else if (tag == BulkDumpWriter.FLOAT_TAG) {
+
+			return input.readFloat();
+
+		} else if (tag == BulkDumpWriter.SHORT_TAG) {
+
+			return input.readShort();
+
+		} else if (tag == BulkDumpWriter.BYTE_TAG) {
+
+			return input.readByte();
+
+		} else if (tag == BulkDumpWriter.BOOLEAN_TAG) {
+
+			return input.readBoolean();
+
+		} else if (tag == BulkDumpWriter.CHARACTER_TAG) {
+
+			return input.readChar();
+
+		} else if (tag == BulkDumpWriter.STRING_TAG
+				|| tag == BulkDumpWriter.REPRESENTATION_TAG) {
+
+			byte[] bytes = new byte[input.readInt()];
+
+			input.readFully(bytes);
+
+			return new String(bytes, StandardCharsets.UTF_8);
+
+		}
+
+		throw new IOException("unknown element tag " + tag);
+
+	}
+
+	/**
+	 * Prints the payload of the dump file specified by the first argument to
+	 * standard output.
+	 * 
+	 * @param arguments
+	 *            the arguments.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public static void main(String[] arguments) throws IOException {
+
+		if (arguments.length != 1) {
+
+			System.out.println("usage: BulkDumpReader <file>");
+
+			return;
+
+		}
+
+		StringBuilder representation = new StringBuilder();
+
+		VariableAppender.appendVariable(read(new File(arguments[0])),
+				Integer.MAX_VALUE, representation);
+
+		System.out.println(representation);
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,963 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes payloads larger than a threshold in full to dump files of a
+ * directory, such that the trace of a payload carries only a reference to its
+ * dump using the following notation: &lt;dump#1842 int[50000000] &#8594;
+ * dumps/canary-4711-1842.bin&gt;<br/>
+ * <br/>
+ * Each dump begins with a header comprising the magic number, the kind of the
+ * payload and its number of elements. Primitive arrays and buffers follow as
+ * their raw elements in big-endian order, which are copied in bulk through a
+ * direct buffer, or, for direct byte buffers, written by the file channel
+ * straight from the memory of the buffer without being copied at all.
+ * Object arrays and collections follow as their elements in a compact binary
+ * form in which each element is preceded by a tag identifying its type:
+ * numbers, booleans, characters and strings are written as their values and
+ * other elements as their representation. Dumps are read back by the
+ * {@link BulkDumpReader}.<br/>
+ * <br/>
+ * The size of a payload is the size in bytes of its elements, counting eight
+ * bytes for each element of an object array or collection.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class BulkDumpWriter {
+
+	/** The magic number that begins each dump. */
+	static final int MAGIC = 0x43444d50;
+
+	/** The suffix of the name of each dump file. */
+	static final String SUFFIX = ".bin";
+
+	/** The kind of a dump of bytes. */
+	static final byte BYTES = 1;
+
+	/** The kind of a dump of short integers. */
+	static final byte SHORTS = 2;
+
+	/** The kind of a dump of integers. */
+	static final byte INTS = 3;
+
+	/** The kind of a dump of long integers. */
+	static final byte LONGS = 4;
+
+	/** The kind of a dump of floating-point numbers. */
+	static final byte FLOATS = 5;
+
+	/** The kind of a dump of double integers. */
+	static final byte DOUBLES = 6;
+
+	/** The kind of a dump of booleans. */
+	static final byte BOOLEANS = 7;
+
+	/** The kind of a dump of characters. */
+	static final byte CHARS = 8;
+
+	/** The kind of a dump of the elements of an object array or collection. */
+	static final byte ELEMENTS = 9;
+
+	/** The tag of a null element. */
+	static final byte NULL_TAG = 0;
+
+	/** The tag of an integer element. */
+	static final byte INTEGER_TAG = 1;
+
+	/** The tag of a long integer element. */
+	static final byte LONG_TAG = 2;
+
+	/** The tag of a double integer element. */
+	static final byte DOUBLE_TAG = 3;
+
+	/** The tag of a floating-point number element. */
+	static final byte FLOAT_TAG = 4;
+
+	/** The tag of a short integer element. */
+	static final byte SHORT_TAG = 5;
+
+	/** The tag of a byte element. */
+	static final byte BYTE_TAG = 6;
+
+	/** The tag of a boolean element. */
+	static final byte BOOLEAN_TAG = 7;
+
+	/** The tag of a character element. */
+	static final byte CHARACTER_TAG = 8;
+
+	/** The tag of a string element. */
+	static final byte STRING_TAG = 9;
+
+	/** The tag of an element written as its representation. */
+	static final byte REPRESENTATION_TAG = 10;
+
+	/** The size in bytes of the header of each dump. */
+	static final int HEADER_BYTES = 4 + 1 + 8;
+
+	/** The size in bytes of the buffer through which dumps are written. */
+	private static final int CHUNK_BYTES = 1 << 16;
+
+	/** The directory of the dump files. */
+	private final File directory;
+
+	/** The size in bytes above which payloads are dumped. */
+	private final long thresholdBytes;
+
+	/** The prefix of the names of the dump files written by this process. */
+	private final String prefix;
+
+	/** The counter used to number the dumps. */
+	private final AtomicLong dumpCounter = new AtomicLong();
+
+	/**
+	 * Creates a writer of dump files in the specified directory that dumps
+	 * payloads larger than the specified number of bytes.
+	 * 
+	 * @param directory
+	 *            the directory.
+	 * @param thresholdBytes
+	 *            the size in bytes above which payloads are dumped.
+	 * @throws IOException
+	 *             if the directory cannot be created.
+	 */
+	public BulkDumpWriter(File directory, long thresholdBytes)
+			throws IOException {
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+
+			throw new IOException("cannot create dump directory " + directory);
+
+		}
+
+		this.directory = directory;
+		this.thresholdBytes = Math.max(thresholdBytes, 0);
+		this.prefix = "canary-" + ProcessHandle.current().pid() + "-";
+
+	}
+
+	/**
+	 * Gets the directory property.
+	 * 
+	 * @return the directory of the dump files.
+	 */
+	public File getDirectory() {
+
+		return directory;
+
+	}
+
+	/**
+	 * Gets the thresholdBytes property.
+	 * 
+	 * @return the size in bytes above which payloads are dumped.
+	 */
+	public long getThresholdBytes() {
+
+		return thresholdBytes;
+
+	}
+
+	/**
+	 * Gets the size in bytes of the elements of the specified payload.
+	 * 
+	 * @param payload
+	 *            the payload.
+	 * @return the size in bytes, or -1 if the payload is neither an array, a
+	 *         buffer nor a collection.
+	 */
+	public static long getPayloadBytes(Object payload) {
+
+		if (payload instanceof byte[]) {
+
+			return ((byte[]) payload).length;
+
+		} else if (payload instanceof boolean[]) {
+
+			return ((boolean[]) payload).length;
+
+		} else if (payload instanceof short[]) {
+
+			return 2L * ((short[]) payload).length;
+
+		} else if (payload instanceof char[]) {
+
+			return 2L * ((char[]) payload).length;
+
+		} else if (payload instanceof int[]) {
+
+			return 4L * ((int[]) payload).length;
+
+		} else if (payload instanceof float[]) {
+
+			return 4L * ((float[]) payload).length;
+
+		} else if (payload instanceof long[]) {
+
+			return 8L * ((long[]) payload).length;
+
+		} else if (payload instanceof double[]) {
+
+			return 8L * ((double[]) payload).length;
+
+		} else if (payload instanceof Object[]) {
+
+			return 8L * ((Object[]) payload).length;
+
+		} else if (payload instanceof Collection) {
+
+			return 8L * ((Collection<?>) payload).size();
+
+		} else if (payload instanceof Buffer) {
+
+			Buffer buffer = (Buffer) payload;
+
+			return (long) getWidth(getKind(buffer)) * buffer.remaining();
+
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Writes the specified payload to a new dump file if it is larger than
+	 * the threshold, and appends the reference to the dump to the specified
+	 * builder.
+	 * 
+	 * @param payload
+	 *            the payload.
+	 * @param maximum
+	 *            the maximum length of the representation of each element
+	 *            that is written as its representation.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the payload was dumped, false if it is not larger than
+	 *         the threshold or the dump could not be written.
+	 */
+	public boolean dump(Object payload, int maximum,
+			StringBuilder destination) {
+
+		if (getPayloadBytes(payload) <= thresholdBytes) {
+
+			return false;
+
+		}
+
+		long id = dumpCounter.incrementAndGet();
+
+		File file = new File(directory, prefix + id + SUFFIX);
+
+		long count = 0;
+
+		FileChannel channel = null;
+
+		try {
+
+			channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE);
+
+			count = write(payload, maximum, channel);
+
+		} catch (IOException error) {
+
+			error.printStackTrace();
+
+			close(channel);
+
+			file.delete();
+
+			return false;
+
+		}
+
+		close(channel);
+
+		destination.append("<dump#");
+		destination.append(id);
+		destination.append(' ');
+
+		if (payload instanceof Collection) {
+
+			destination.append(payload.getClass().getSimpleName());
+			destination.append('(');
+			destination.append(count);
+			destination.append(')');
+
+		} else {
+
+			destination.append(payload instanceof Buffer ? getBufferType(
+					(Buffer) payload).getSimpleName() : payload.getClass()
+					.getComponentType().getSimpleName());
+			destination.append('[');
+			destination.append(count);
+			destination.append(']');
+
+		}
+
+		destination.append(" \u2192 ");
+		destination.append(file.getPath());
+		destination.append('>');
+
+		return true;
+
+	}
+
+	/**
+	 * Writes the header and the elements of the specified payload to the
+	 * specified channel.
+	 * 
+	 * @param payload
+	 *            the payload.
+	 * @param maximum
+	 *            the maximum length of the representation of each element
+	 *            that is written as its representation.
+	 * @param channel
+	 *            the channel.
+	 * @return the number of elements written.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static long write(Object payload, int maximum, FileChannel channel)
+			throws IOException {
+
+		if (payload instanceof Object[] || payload instanceof Collection) {
+
+			return writeElements(payload, maximum, channel);
+
+		}
+
+		ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+
+		if (payload instanceof Buffer) {
+
+			Buffer buffer = ((Buffer) payload).duplicate();
+
+			byte kind = getKind(buffer);
+
+			int count = buffer.remaining();
+
+			writeHeader(kind, count, chunk, channel);
+
+			if (buffer instanceof ByteBuffer && buffer.isDirect()) {
+
+				// the channel writes straight from the memory of the buffer
+				writeFully((ByteBuffer) buffer, channel);
+
+			} else {
+
+				writeBuffer(buffer, getWidth(kind), chunk, channel);
+
+			}
+
+			return count;
+
+		}
+
+		byte kind = getKind(payload);
+
+		int count = Array.getLength(payload);
+
+		writeHeader(kind, count, chunk, channel);
+
+		writeArray(payload, count, getWidth(kind), chunk, channel);
+
+		return count;
+
+	}
+
+	/**
+	 * Writes the header of a dump of the specified kind and number of
+	 * elements through the specified chunk to the specified channel.
+	 * 
+	 * @param kind
+	 *            the kind.
+	 * @param count
+	 *            the number of elements.
+	 * @param chunk
+	 *            the chunk.
+	 * @param channel
+	 *            the channel.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static void writeHeader(byte kind, long count, ByteBuffer chunk,
+			FileChannel channel) throws IOException {
+
+		chunk.clear();
+		chunk.putInt(MAGIC);
+		chunk.put(kind);
+		chunk.putLong(count);
+		chunk.flip();
+
+		writeFully(chunk, channel);
+
+	}
+
+	/**
+	 * Writes the specified number of elements of the specified primitive
+	 * array, of the specified width, to the specified channel by copying them
+	 * in bulk into the specified chunk.
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param count
+	 *            the number of elements.
+	 * @param width
+	 *            the width of each element in bytes.
+	 * @param chunk
+	 *            the chunk.
+	 * @param channel
+	 *            the channel.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static void writeArray(Object array, int count, int width,
+			ByteBuffer chunk, FileChannel channel) throws IOException {
+
+		int length = 0;
+
+		for (int offset = 0; offset < count; offset += length) {
+
+			length = Math.min(count - offset, CHUNK_BYTES / width);
+
+			chunk.clear();
+
+			if (array instanceof byte[]) {
+
+				chunk.put((byte[]) array, offset, length);
+
+			} else if (array instanceof short[]) {
+
+				chunk.asShortBuffer().put((short[]) array, offset, length);
+
+			} else if (array instanceof char[]) {
+
+				chunk.asCharBuffer().put((char[]) array, offset, length);
+
+			} else if (array instanceof int[]) {
+
+				chunk.asIntBuffer().put((int[]) array, offset, length);
+
+			} else if (array instanceof float[]) {
+
+				chunk.asFloatBuffer().put((float[]) array, offset, length);
+
+			} else if (array instanceof long[]) {
+
+				chunk.asLongBuffer().put((long[]) array, offset, length);
+
+			} else if (array instanceof double[]) {
+
+				chunk.asDoubleBuffer().put((double[]) array, offset, length);
+
+			} else {
+
+				boolean[] booleans = (boolean[]) array;
+
+				for (int index = offset; index < offset + length; index++) {
+
+					chunk.put(booleans[index] ? (byte) 1 : (byte) 0);
+
+				}
+
+			}
+
+			chunk.position(0);
+			chunk.limit(length * width);
+
+			writeFully(chunk, channel);
+
+		}
+
+	}
+
+	/**
+	 * Writes the remaining elements of the specified buffer, of the specified
+	 * width, to the specified channel by copying them in bulk into the
+	 * specified chunk. The buffer must be a duplicate since its position is
+	 * advanced.
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param width
+	 *            the width of each element in bytes.
+	 * @param chunk
+	 *            the chunk.
+	 * @param channel
+	 *            the channel.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static void writeBuffer(Buffer buffer, int width, ByteBuffer chunk,
+			FileChannel channel) throws IOException {
+
+		int limit = buffer.limit();
+
+		while (buffer.hasRemaining()) {
+
+			int length = Math.min(buffer.remaining(), CHUNK_BYTES / width);
+
+			buffer.limit(buffer.position() + length);
+
+			chunk.clear();
+
+			if (buffer instanceof ByteBuffer) {
+
+				chunk.put((ByteBuffer) buffer);
+
+			} else if (buffer instanceof ShortBuffer) {
+
+				chunk.asShortBuffer().put((ShortBuffer) buffer);
+
+			} else if (buffer instanceof CharBuffer) {
+
+				chunk.asCharBuffer().put((CharBuffer) buffer);
+
+			} else if (buffer instanceof IntBuffer) {
+
+				chunk.asIntBuffer().put((IntBuffer) buffer);
+
+			} else if (buffer instanceof FloatBuffer) {
+
+				chunk.asFloatBuffer().put((FloatBuffer) buffer);
+
+			} else if (buffer instanceof LongBuffer) {
+
+				chunk.asLongBuffer().put((LongBuffer) buffer);
+
+			} else {
+
+				chunk.asDoubleBuffer().put((DoubleBuffer) buffer);
+
+			}
+
+			buffer.limit(limit);
+
+			chunk.position(0);
+			chunk.limit(length * width);
+
+			writeFully(chunk, channel);
+
+		}
+
+	}
+
+	/**
+	 * Writes the elements of the specified object array or collection to the
+	 * specified channel in the compact binary form, and then writes their
+	 * number into the header since a collection may change while it is
+	 * iterated.
+	 * 
+	 * @param payload
+	 *            the object array or collection.
+	 * @param maximum
+	 *            the maximum length of the representation of each element
+	 *            that is written as its representation.
+	 * @param channel
+	 *            the channel.
+	 * @return the number of elements written.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static long writeElements(Object payload, int maximum,
+			FileChannel channel) throws IOException {
+
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(Channels.newOutputStream(channel),
+						CHUNK_BYTES));
+
+		output.writeInt(MAGIC);
+		output.writeByte(ELEMENTS);
+		output.writeLong(0);
+
+		long count = 0;
+
+		StringBuilder representation = new StringBuilder();
+
+		if (payload instanceof Object[]) {
+
+			for (Object element : (Object[]) payload) {
+
+				writeElement(element, maximum, representation, output);
+
+				count++;
+
+			}
+
+		} else {
+
+			Iterator<?> iterator = ((Collection<?>) payload).iterator();
+
+			while (iterator.hasNext()) {
+
+				writeElement(iterator.next(), maximum, representation, output);
+
+				count++;
+
+			}
+
+		}
+
+		output.flush();
+
+		ByteBuffer header = ByteBuffer.allocate(8);
+
+		header.putLong(count);
+		header.flip();
+
+		while (header.hasRemaining()) {
+
+			channel.write(header, HEADER_BYTES - 8 + header.position());
+
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Writes the specified element, preceded by its tag, to the specified
+	 * output.
+	 * 
+	 * @param element
+	 *            the element.
+	 * @param maximum
+	 *            the maximum length of the representation of an element that
+	 *            is written as its representation.
+	 * @param representation
+	 *            the builder reused for representations.
+	 * @param output
+	 *            the output.
+	 * @throws IOException
+	 *             if the output cannot be written.
+	 */
+	private static void writeElement(Object element, int maximum,
+			StringBuilder representation, DataOutputStream output)
+			throws IOException {
+
+		if (element == null) {
+
+			output.writeByte(NULL_TAG);
+
+		} else if (element instanceof Integer) {
+
+			output.writeByte(INTEGER_TAG);
+			output.writeInt(((Integer) element).intValue());
+
+		} else if (element instanceof Long) {
+
+			output.writeByte(LONG_TAG);
+			output.writeLong(((Long) element).longValue());
+
+		} else if (element instanceof Double) {
+
+			output.writeByte(DOUBLE_TAG);
+			output.writeDouble(((Double) element).doubleValue());
+
+		} else if (element instanceof Float) {
+
+			output.writeByte(FLOAT_TAG);
+			output.writeFloat(((Float) element).floatValue());
+
+		} else if (element instanceof Short) {
+
+			output.writeByte(SHORT_TAG);
+			output.writeShort(((Short) element).shortValue());
+
+		} else if (element instanceof Byte) {
+
+			output.writeByte(BYTE_TAG);
+			output.writeByte(((Byte) element).byteValue());
+
+		} else if (element instanceof Boolean) {
+
+			output.writeByte(BOOLEAN_TAG);
+			output.writeBoolean(((Boolean) element).booleanValue());
+
+		} else if (element instanceof Character) {
+
+			output.writeByte(CHARACTER_TAG);
+			output.writeChar(((Character) element).charValue());
+
+		} else if (element instanceof String) {
+
+			output.writeByte(STRING_TAG);
+
+			writeString((String) element, output);
+
+		} else {
+
+			representation.setLength(0);
+
+			VariableAppender.appendVariable(element, maximum, representation);
+
+			output.writeByte(REPRESENTATION_TAG);
+
+			writeString(representation.toString(), output);
+
+		}
+
+	}
+
+	/**
+	 * Writes the specified string to the specified output as the length of
+	 * its UTF-8 encoding followed by the encoding.
+	 * 
+	 * @param string
+	 *            the string.
+	 * @param output
+	 *            the output.
+	 * @throws IOException
+	 *             if the output cannot be written.
+	 */
+	private static void writeString(String string, DataOutputStream output)
+			throws IOException {
+
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+		output.writeInt(bytes.length);
+		output.write(bytes);
+
+	}
+
+	/**
+	 * Writes the remaining bytes of the specified buffer to the specified
+	 * channel.
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param channel
+	 *            the channel.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	private static void writeFully(ByteBuffer buffer, FileChannel channel)
+			throws IOException {
+
+		while (buffer.hasRemaining()) {
+
+			channel.write(buffer);
+
+		}
+
+	}
+
+	/**
+	 * Closes the specified channel, ignoring any failure to do so.
+	 * 
+	 * @param channel
+	 *            the channel, or null if it was never opened.
+	 */
+	private static void close(FileChannel channel) {
+
+		if (channel == null) {
+
+			return;
+
+		}
+
+		try {
+
+			channel.close();
+
+		} catch (IOException error) {
+
+			error.printStackTrace();
+
+		}
+
+	}
+
+	/**
+	 * Gets the kind of a dump of the specified primitive array.
+	 * 
+	 * @param array
+	 *            the array.
+	 * @return the kind.
+	 */
+	private static byte getKind(Object array) {
+
+		if (array instanceof byte[]) {
+
+			return BYTES;
+
+		} else if (array instanceof short[]) {
+
+			return SHORTS;
+
+		} else if (array instanceof char[]) {
+
+			return CHARS;
+
+		} else if (array instanceof int[]) {
+
+			return INTS;
+
+		} else if (array instanceof float[]) {
+
+			return FLOATS;
+
+		} else if (array instanceof long[]) {
+
+			return LONGS;
+
+		} else if (array instanceof double[]) {
+
+			return DOUBLES;
+
+		}
+
+		return BOOLEANS;
+
+	}
+
+	/**
+	 * Gets the kind of a dump of the specified buffer.
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @return the kind.
+	 */
+	private static byte getKind(Buffer buffer) {
+
+		if (buffer instanceof ByteBuffer) {
+
+			return BYTES;
+
+		} else if (buffer instanceof ShortBuffer) {
+
+			return SHORTS;
+
+		} else if (buffer instanceof CharBuffer) {
+
+			return CHARS;
+
+		} else if (buffer instanceof IntBuffer) {
+
+			return INTS;
+
+		} else if (buffer instanceof FloatBuffer) {
+
+			return FLOATS;
+
+		} else if (buffer instanceof LongBuffer) {
+
+			return LONGS;
+
+		}
+
+		return DOUBLES;
+
+	}
+
+	/**
+	 * Gets the type of the specified buffer that is named in the reference to
+	 * its dump, such as ByteBuffer rather than its implementation class.
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @return the type.
+	 */
+	private static Class<?> getBufferType(Buffer buffer) {
+
+		if (buffer instanceof ByteBuffer) {
+
+			return ByteBuffer.class;
+
+		} else if (buffer instanceof ShortBuffer) {
+
+			return ShortBuffer.class;
+
+		} else if (buffer instanceof CharBuffer) {
+
+			return CharBuffer.class;
+
+		} else if (buffer instanceof IntBuffer) {
+
+			return IntBuffer.class;
+
+		} else if (buffer instanceof FloatBuffer) {
+
+			return FloatBuffer.class;
+
+		} else if (buffer instanceof LongBuffer) {
+
+			return LongBuffer.class;
+
+		}
+
+		return DoubleBuffer.class;
+
+	}
+
+	/**
+	 * Gets the width in bytes of each element of a dump of the specified
+	 * kind.
+	 * 
+	 * @param kind
+	 *            the kind.
+	 * @return the width in bytes.
+	 */
+	static int getWidth(byte kind) {
+
+		if (kind == SHORTS || kind == CHARS) {
+
+			return 2;
+
+		} else if (kind == INTS || kind == FLOATS) {
+
+			return 4;
+
+		} else if (kind == LONGS || kind == DOUBLES) {
+
+			return 8;
+
+		}
+
+		return 1;
+
+	}
+
+}
\ No newline at end of file
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class ByteArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of bytes.
+	 * Represents the variable that is an array of bytes, appending each element
+	 * directly to the representation without boxing the element or creating an
+	 * intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		byte[] byteArray = (byte[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int byteArrayLength = byteArray.length;
+		VariableAppender.appendArray((byte[]) getVariable(), getMaximum(),
+				representation);
 
-		Byte[] objectArray = new Byte[byteArrayLength];
-
-		for (int index = 0; index < byteArrayLength; index++) {
-
-			objectArray[index] = byteArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
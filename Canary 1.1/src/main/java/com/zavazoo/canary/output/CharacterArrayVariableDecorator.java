@@ -34,23 +34,12 @@ public class CharacterArrayVariableDecorator extends VariableDecorator {
 	 */
 	public String representVariable() {
 
-		char[] characterArray = (char[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int characterArrayLength = characterArray.length;
+		VariableAppender.appendArray((char[]) getVariable(), getMaximum(),
+				representation);
 
-		Character[] objectArray = new Character[characterArrayLength];
-
-		for (int index = 0; index < characterArrayLength; index++) {
-
-			objectArray[index] = characterArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
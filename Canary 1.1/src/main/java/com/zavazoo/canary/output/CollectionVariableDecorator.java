@@ -19,11 +19,14 @@
 package com.zavazoo.canary.output;
 
 import java.util.Collection;
-import java.util.Iterator;
 
 /**
  * Variable decorator that represents a variable that is a collection using the
- * following notation: (element1, element2, element3)
+ * following notation: (element1, element2, element3)<br/>
+ * <br/>
+ * A collection larger than the large collection threshold of the
+ * VariableAppender is represented by its size and its first and last
+ * elements, for example (size=5000000: a, b, c ... x, y, z)
  * 
  * @author Chris White <chriswhitelondon@gmail.com>
  * @since JDK6
@@ -37,40 +40,10 @@ public class CollectionVariableDecorator extends VariableDecorator {
 	 */
 	public String representVariable() {
 
-		Collection<?> collection = (Collection<?>) getVariable();
-		int maximum = getMaximum();
-
-		Iterator<?> collectionIterator = collection.iterator();
-
 		StringBuilder representation = new StringBuilder();
-		representation.append('(');
-
-		while (collectionIterator.hasNext()) {
-
-			Object element = collectionIterator.next();
-
-			VariableDecorator elementDecorator = VariableDecoratorStrategy
-					.createDecoratorForVariableType(element, maximum);
-
-			String elementRepresentation = elementDecorator.representVariable();
-
-			representation.append(elementRepresentation);
-
-			if (collectionIterator.hasNext()) {
-
-				representation.append(", ");
-
-			}
-
-			if (representation.length() > maximum) {
-
-				return representation.toString();
-
-			}
-
-		}
 
-		representation.append(')');
+		VariableAppender.appendCollection((Collection<?>) getVariable(),
+				getMaximum(), representation);
 
 		return representation.toString();
 
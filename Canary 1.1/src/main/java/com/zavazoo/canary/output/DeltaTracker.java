@@ -0,0 +1,526 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents maps, arrays and collections output repeatedly under the same
+ * key by only the entries that have changed since the previous output under
+ * that key, using the following notation for maps: delta{+addedkey =&gt;
+ * value, ~changedkey =&gt; value, -removedkey}<br/>
+ * <br/>
+ * Arrays and collections other than sets are compared by index, using the
+ * following notation for arrays: delta[+10 =&gt; added, ~3 =&gt; changed,
+ * -11..14], where the last entry denotes the indices removed from the end, and
+ * the same notation enclosed by parentheses for collections. Sets are
+ * compared by element using the following notation: delta(+added,
+ * -removed).<br/>
+ * <br/>
+ * For each key the tracker keeps only a fingerprint of the last output: the
+ * representation of each key of a map or element of a set, mapped to a 64-bit
+ * hash of the representation of its value, or the hash of the
+ * representation of each element of an array or collection by index, such
+ * that no reference to the variable itself is retained. The first output
+ * under each key, every output whose variable differs in kind from the
+ * previous one, and every output that completes the snapshot interval is
+ * represented in full as a snapshot that resets the delta.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class DeltaTracker {
+
+	/** The kind of a map, compared by key. */
+	private static final int MAP = 1;
+
+	/** The kind of a set, compared by element. */
+	private static final int SET = 2;
+
+	/** The kind of an array, compared by index. */
+	private static final int ARRAY = 3;
+
+	/** The kind of a collection other than a set, compared by index. */
+	private static final int SEQUENCE = 4;
+
+	/** The offset basis of the FNV-1a hash of a representation. */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/** The prime of the FNV-1a hash of a representation. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The number of outputs under each key between full snapshots. */
+	private final int snapshotInterval;
+
+	/** The fingerprint of the last output under each key. */
+	private final ConcurrentHashMap<String, Fingerprint> fingerprints = new ConcurrentHashMap<String, Fingerprint>();
+
+	/**
+	 * Creates a tracker that represents every output under a key in full
+	 * once the specified number of outputs under the key have passed since
+	 * its last snapshot.
+	 * 
+	 * @param snapshotInterval
+	 *            the number of outputs between full snapshots, or zero if
+	 *            only the first output under each key is a full snapshot.
+	 */
+	public DeltaTracker(int snapshotInterval) {
+
+		this.snapshotInterval = Math.max(snapshotInterval, 0);
+
+	}
+
+	/**
+	 * Gets the snapshotInterval property.
+	 * 
+	 * @return the number of outputs under each key between full snapshots,
+	 *         or zero if only the first output is a full snapshot.
+	 */
+	public int getSnapshotInterval() {
+
+		return snapshotInterval;
+
+	}
+
+	/**
+	 * Appends the delta of the specified map, array or collection since the
+	 * previous output under the specified key, or its full representation if
+	 * the output is a snapshot, and replaces the fingerprint of the key.
+	 * 
+	 * @param key
+	 *            the key, such as the call site and the identifier.
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the delta or the snapshot was appended, false if the
+	 *         variable is neither a map, an array nor a collection.
+	 */
+	public boolean appendDelta(String key, Object variable, int maximum,
+			StringBuilder destination) {
+
+		int kind = getKind(variable);
+
+		if (kind == 0) {
+
+			return false;
+
+		}
+
+		Fingerprint fingerprint = fingerprints.get(key);
+
+		if (fingerprint == null) {
+
+			fingerprint = new Fingerprint();
+
+			Fingerprint existing = fingerprints.putIfAbsent(key,
+					fingerprint);
+
+			if (existing != null) {
+
+				fingerprint = existing;
+
+			}
+
+		}
+
+		synchronized (fingerprint) {
+
+			boolean snapshot = fingerprint.kind != kind
+					|| (snapshotInterval > 0
+							? fingerprint.outputs % snapshotInterval == 0
+							: fingerprint.outputs == 0);
+
+			if (snapshot) {
+
+				fingerprint.outputs = 0;
+
+				VariableAppender.appendVariable(variable, maximum,
+						destination);
+
+			}
+
+			fingerprint.outputs++;
+
+			if (kind == MAP || kind == SET) {
+
+				fingerprint.entries = appendEntries(variable,
+						snapshot ? null : fingerprint.entries, maximum,
+						destination);
+				fingerprint.hashes = null;
+
+			} else {
+
+				fingerprint.hashes = appendIndices(variable, kind,
+						snapshot ? null : fingerprint.hashes, maximum,
+						destination);
+				fingerprint.entries = null;
+
+			}
+
+			fingerprint.kind = kind;
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Appends the entries of the specified map or the elements of the
+	 * specified set that differ from the specified previous fingerprint, and
+	 * fingerprints the map or set.
+	 * 
+	 * @param variable
+	 *            the map or set.
+	 * @param previous
+	 *            the previous fingerprint, or null if nothing should be
+	 *            appended.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return the fingerprint.
+	 */
+	private static Map<String, Long> appendEntries(Object variable,
+			Map<String, Long> previous, int maximum,
+			StringBuilder destination) {
+
+		boolean map = variable instanceof Map;
+
+		Collection<?> source = map ? ((Map<?, ?>) variable).entrySet()
+				: (Collection<?>) variable;
+
+		Map<String, Long> entries = new HashMap<String, Long>(
+				source.size() * 4 / 3 + 1);
+
+		StringBuilder scratch = new StringBuilder();
+
+		int start = destination.length();
+
+		if (previous != null) {
+
+			destination.append(map ? "delta{" : "delta(");
+
+		}
+
+		for (Object element : source) {
+
+			scratch.setLength(0);
+
+			VariableAppender.appendVariable(map ? ((Map.Entry<?, ?>) element)
+					.getKey() : element, maximum, scratch);
+
+			String representation = scratch.toString();
+
+			long hash = 0;
+
+			if (map) {
+
+				scratch.setLength(0);
+
+				VariableAppender.appendVariable(
+						((Map.Entry<?, ?>) element).getValue(), maximum,
+						scratch);
+
+				hash = hash(scratch);
+
+			}
+
+			entries.put(representation, hash);
+
+			if (previous == null || destination.length() - start > maximum) {
+
+				continue;
+
+			}
+
+			Long previousHash = previous.get(representation);
+
+			if (previousHash != null && previousHash.longValue() == hash) {
+
+				continue;
+
+			}
+
+			appendSeparator(start, destination);
+
+			destination.append(previousHash == null ? '+' : '~');
+			destination.append(representation);
+
+			if (map) {
+
+				destination.append(" => ");
+				destination.append(scratch);
+
+			}
+
+		}
+
+		if (previous != null) {
+
+			for (String representation : previous.keySet()) {
+
+				if (destination.length() - start > maximum) {
+
+					break;
+
+				}
+
+				if (!entries.containsKey(representation)) {
+
+					appendSeparator(start, destination);
+
+					destination.append('-');
+					destination.append(representation);
+
+				}
+
+			}
+
+			destination.append(map ? '}' : ')');
+
+		}
+
+		return entries;
+
+	}
+
+	/**
+	 * Appends the elements of the specified array or collection that differ
+	 * by index from the specified previous fingerprint, and the indices
+	 * removed from its end, and fingerprints the array or collection.
+	 * 
+	 * @param variable
+	 *            the array or collection.
+	 * @param kind
+	 *            the kind of the variable.
+	 * @param previous
+	 *            the previous fingerprint, or null if nothing should be
+	 *            appended.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return the fingerprint.
+	 */
+	private static long[] appendIndices(Object variable, int kind,
+			long[] previous, int maximum, StringBuilder destination) {
+
+		boolean array = kind == ARRAY;
+
+		int size = array ? Array.getLength(variable)
+				: ((Collection<?>) variable).size();
+
+		long[] hashes = new long[size];
+
+		Iterator<?> iterator = array ? null : ((Collection<?>) variable)
+				.iterator();
+
+		StringBuilder scratch = new StringBuilder();
+
+		int start = destination.length();
+
+		if (previous != null) {
+
+			destination.append(array ? "delta[" : "delta(");
+
+		}
+
+		int index = 0;
+
+		// a collection may change size while it is iterated
+		for (; index < size && (array || iterator.hasNext()); index++) {
+
+			scratch.setLength(0);
+
+			VariableAppender.appendVariable(array ? Array.get(variable,
+					index) : iterator.next(), maximum, scratch);
+
+			long hash = hash(scratch);
+
+			hashes[index] = hash;
+
+			if (previous == null || destination.length() - start > maximum) {
+
+				continue;
+
+			}
+
+			boolean added = index >= previous.length;
+
+			if (!added && previous[index] == hash) {
+
+				continue;
+
+			}
+
+			appendSeparator(start, destination);
+
+			destination.append(added ? '+' : '~');
+			destination.append(index);
+			destination.append(" => ");
+			destination.append(scratch);
+
+		}
+
+		if (index < size) {
+
+			long[] truncated = new long[index];
+
+			System.arraycopy(hashes, 0, truncated, 0, index);
+
+			hashes = truncated;
+
+		}
+
+		if (previous != null) {
+
+			if (previous.length > hashes.length
+					&& destination.length() - start <= maximum) {
+
+				appendSeparator(start, destination);
+
+				destination.append('-');
+				destination.append(hashes.length);
+
+				if (previous.length - 1 > hashes.length) {
+
+					destination.append("..");
+					destination.append(previous.length - 1);
+
+				}
+
+			}
+
+			destination.append(array ? ']' : ')');
+
+		}
+
+		return hashes;
+
+	}
+
+	/**
+	 * Appends the separator that precedes an entry of the delta begun at the
+	 * specified start, unless it is the first entry.
+	 * 
+	 * @param start
+	 *            the length of the builder before the delta.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendSeparator(int start, StringBuilder destination) {
+
+		if (destination.length() - start > "delta{".length()) {
+
+			destination.append(", ");
+
+		}
+
+	}
+
+	/**
+	 * Gets the kind of the specified variable.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @return the kind, or zero if the variable is neither a map, an array
+	 *         nor a collection.
+	 */
+	private static int getKind(Object variable) {
+
+		if (variable instanceof Map) {
+
+			return MAP;
+
+		} else if (variable instanceof Set) {
+
+			return SET;
+
+		} else if (variable instanceof Collection) {
+
+			return SEQUENCE;
+
+		} else if (variable != null && variable.getClass().isArray()) {
+
+			return ARRAY;
+
+		}
+
+		return 0;
+
+	}
+
+	/**
+	 * Hashes the specified representation using the 64-bit FNV-1a hash.
+	 * 
+	 * @param representation
+	 *            the representation.
+	 * @return the hash.
+	 */
+	private static long hash(CharSequence representation) {
+
+		long hash = FNV_OFFSET_BASIS;
+
+		int length = representation.length();
+
+		for (int index = 0; index < length; index++) {
+
+			hash ^= representation.charAt(index);
+			hash *= FNV_PRIME;
+
+		}
+
+		return hash;
+
+	}
+
+	/**
+	 * Defines the fingerprint of the last output under a single key.
+	 */
+	private static class Fingerprint {
+
+		/** The kind of the last variable, or zero before the first output. */
+		private int kind;
+
+		/** The number of outputs since the last snapshot. */
+		private long outputs;
+
+		/**
+		 * The hash of the representation of the value of each key of a map,
+		 * or zero for each element of a set, by its representation.
+		 */
+		private Map<String, Long> entries;
+
+		/** The hash of the representation of each element, by index. */
+		private long[] hashes;
+
+	}
+
+}
\ No newline at end of file
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class DoubleIntegerArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of double integers.
+	 * Represents the variable that is an array of double integers, appending
+	 * each element directly to the representation without boxing the element or
+	 * creating an intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		double[] doubleArray = (double[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int doubleArrayLength = doubleArray.length;
+		VariableAppender.appendArray((double[]) getVariable(), getMaximum(),
+				representation);
 
-		Double[] objectArray = new Double[doubleArrayLength];
-
-		for (int index = 0; index < doubleArrayLength; index++) {
-
-			objectArray[index] = doubleArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class FloatArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of floating-point numbers.
+	 * Represents the variable that is an array of floating-point numbers,
+	 * appending each element directly to the representation without boxing the
+	 * element or creating an intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		float[] floatArray = (float[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int floatArrayLength = floatArray.length;
+		VariableAppender.appendArray((float[]) getVariable(), getMaximum(),
+				representation);
 
-		Float[] objectArray = new Float[floatArrayLength];
-
-		for (int index = 0; index < floatArrayLength; index++) {
-
-			objectArray[index] = floatArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class IntegerArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of integers.
+	 * Represents the variable that is an array of integers, appending each
+	 * element directly to the representation without boxing the element or
+	 * creating an intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		int[] intArray = (int[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int intArrayLength = intArray.length;
+		VariableAppender.appendArray((int[]) getVariable(), getMaximum(),
+				representation);
 
-		Integer[] objectArray = new Integer[intArrayLength];
-
-		for (int index = 0; index < intArrayLength; index++) {
-
-			objectArray[index] = intArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
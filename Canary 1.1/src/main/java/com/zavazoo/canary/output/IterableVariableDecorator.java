@@ -0,0 +1,54 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.output;
+
+/**
+ * Variable decorator that represents a variable that is an iterable other than
+ * a collection, or an iterator, spliterator or stream, using the following
+ * notation: (element1, element2, element3)<br/>
+ * <br/>
+ * Elements are pulled only until the representation exceeds its maximum
+ * length, such that lazy sources such as paged results are never
+ * materialised in their entirety. Iterators, spliterators and streams yield
+ * each element once and are therefore only decorated by this decorator if
+ * VariableAppender.setIteratorRendering(true) has been called.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class IterableVariableDecorator extends VariableDecorator {
+
+	/**
+	 * Represents the variable that is an iterable, iterator, spliterator or
+	 * stream.
+	 * 
+	 * @return the representation.
+	 */
+	public String representVariable() {
+
+		StringBuilder representation = new StringBuilder();
+
+		VariableAppender.appendVariable(getVariable(), getMaximum(),
+				representation);
+
+		return representation.toString();
+
+	}
+
+}
\ No newline at end of file
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class LongIntegerArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of long integers.
+	 * Represents the variable that is an array of long integers, appending each
+	 * element directly to the representation without boxing the element or
+	 * creating an intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		long[] longArray = (long[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int longArrayLength = longArray.length;
+		VariableAppender.appendArray((long[]) getVariable(), getMaximum(),
+				representation);
 
-		Long[] objectArray = new Long[longArrayLength];
-
-		for (int index = 0; index < longArrayLength; index++) {
-
-			objectArray[index] = longArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
@@ -78,7 +78,8 @@ public class MapVariableDecorator extends VariableDecorator {
 
 			}
 
-			if (representation.length() > maximum) {
+			if (representation.length() > maximum
+					|| RenderDeadline.isExceeded(representation)) {
 
 				return representation.toString();
 
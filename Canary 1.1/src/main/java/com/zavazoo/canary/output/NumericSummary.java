@@ -0,0 +1,698 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.output;
+
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * Summarises a numeric array, or a collection of numbers, by its count,
+ * minimum, maximum, mean, standard deviation, NaN and zero counts and a coarse
+ * histogram, using the following notation: summary[count=10000000, min=-4.9,
+ * max=5.1, mean=0.0012, stddev=1.0003, nan=0, zero=12, histogram=12 845 ...]
+ * <br/>
+ * <br/>
+ * The statistics are accumulated in a single pass of primitive loops using
+ * Welford's algorithm, and the histogram, whose eight buckets evenly divide
+ * the range between the minimum and the maximum, in a second pass once the
+ * range is known. Arrays of at least PARALLEL_THRESHOLD elements are divided
+ * into chunks of CHUNK_SIZE elements that are summarised in parallel by the
+ * common fork-join pool and merged in order, such that the summary of an
+ * array never depends on the scheduling of its chunks. The mean and the
+ * standard deviation, which is the population standard deviation, exclude
+ * NaN values.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class NumericSummary {
+
+	/** The number of elements from which arrays are summarised in parallel. */
+	public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+	/** The number of elements of each chunk of a parallel summary. */
+	public static final int CHUNK_SIZE = 1 << 16;
+
+	/** The number of buckets of the histogram. */
+	private static final int BUCKETS = 8;
+
+	/** The number of elements, including NaN values. */
+	private long count;
+
+	/** The number of NaN values. */
+	private long nanCount;
+
+	/** The number of zero values. */
+	private long zeroCount;
+
+	/** The minimum value. */
+	private double minimum = Double.POSITIVE_INFINITY;
+
+	/** The maximum value. */
+	private double maximum = Double.NEGATIVE_INFINITY;
+
+	/** The mean of the values. */
+	private double mean;
+
+	/** The sum of the squared differences of the values from the mean. */
+	private double squaredDifferences;
+
+	/** Switch used to indicate that every value is an integer. */
+	private boolean integral = true;
+
+	/** The minimum integer value, used while every value is an integer. */
+	private long integralMinimum = Long.MAX_VALUE;
+
+	/** The maximum integer value, used while every value is an integer. */
+	private long integralMaximum = Long.MIN_VALUE;
+
+	/** The histogram, or null if it has not been accumulated. */
+	private long[] histogram;
+
+	/**
+	 * Creates an empty summary.
+	 */
+	private NumericSummary() {
+
+	}
+
+	/**
+	 * Determines whether the specified variable is a numeric array or a
+	 * collection that may be summarised, without inspecting its elements.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @return true if the variable may be summarised, false otherwise.
+	 */
+	public static boolean isSummarisable(Object variable) {
+
+		return variable instanceof double[] || variable instanceof float[]
+				|| variable instanceof long[] || variable instanceof int[]
+				|| variable instanceof short[] || variable instanceof byte[]
+				|| variable instanceof Collection;
+
+	}
+
+	/**
+	 * Determines the number of elements of the specified variable that may be
+	 * summarised.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @return the number of elements, or -1 if the variable may not be
+	 *         summarised.
+	 */
+	public static int getSize(Object variable) {
+
+		if (variable instanceof Collection) {
+
+			return ((Collection<?>) variable).size();
+
+		} else if (variable instanceof double[]) {
+
+			return ((double[]) variable).length;
+
+		} else if (variable instanceof float[]) {
+
+			return ((float[]) variable).length;
+
+		} else if (variable instanceof long[]) {
+
+			return ((long[]) variable).length;
+
+		} else if (variable instanceof int[]) {
+
+			return ((int[]) variable).length;
+
+		} else if (variable instanceof short[]) {
+
+			return ((short[]) variable).length;
+
+		} else if (variable instanceof byte[]) {
+
+			return ((byte[]) variable).length;
+
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Summarises the specified numeric array or collection of numbers.
+	 * 
+	 * @param variable
+	 *            the array or collection.
+	 * @return the summary, or null if the variable is neither a numeric array
+	 *         nor a collection whose elements are all numbers.
+	 */
+	public static NumericSummary summarise(Object variable) {
+
+		if (variable instanceof Collection) {
+
+			return summariseCollection((Collection<?>) variable);
+
+		}
+
+		int size = getSize(variable);
+
+		if (size < 0) {
+
+			return null;
+
+		}
+
+		if (size < PARALLEL_THRESHOLD) {
+
+			NumericSummary summary = new NumericSummary();
+			summary.accumulate(variable, 0, size);
+
+			if (summary.hasRange()) {
+
+				summary.histogram = new long[BUCKETS];
+				summary.accumulateHistogram(variable, 0, size,
+						summary.histogram);
+
+			}
+
+			return summary;
+
+		}
+
+		int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+		NumericSummary summary = IntStream.range(0, chunks).parallel()
+				.mapToObj(chunk -> {
+
+					NumericSummary partial = new NumericSummary();
+					partial.accumulate(variable, chunk * CHUNK_SIZE,
+							Math.min(size, (chunk + 1) * CHUNK_SIZE));
+
+					return partial;
+
+				}).reduce(NumericSummary::merge).get();
+
+		if (!summary.hasRange()) {
+
+			return summary;
+
+		}
+
+		summary.histogram = IntStream.range(0, chunks).parallel()
+				.mapToObj(chunk -> {
+
+					long[] histogram = new long[BUCKETS];
+
+					summary.accumulateHistogram(variable, chunk * CHUNK_SIZE,
+							Math.min(size, (chunk + 1) * CHUNK_SIZE),
+							histogram);
+
+					return histogram;
+
+				}).reduce(NumericSummary::merge).get();
+
+		return summary;
+
+	}
+
+	/**
+	 * Appends the summary to the specified builder.
+	 * 
+	 * @param destination
+	 *            the builder.
+	 */
+	public void appendTo(StringBuilder destination) {
+
+		destination.append("summary[count=");
+		destination.append(count);
+
+		if (count > nanCount) {
+
+			destination.append(", min=");
+
+			if (integral) {
+
+				destination.append(integralMinimum);
+
+			} else {
+
+				VariableAppender.appendDouble(minimum, destination);
+
+			}
+
+			destination.append(", max=");
+
+			if (integral) {
+
+				destination.append(integralMaximum);
+
+			} else {
+
+				VariableAppender.appendDouble(maximum, destination);
+
+			}
+
+			destination.append(", mean=");
+			VariableAppender.appendDouble(mean, destination);
+
+			destination.append(", stddev=");
+			VariableAppender.appendDouble(
+					Math.sqrt(squaredDifferences / (count - nanCount)),
+					destination);
+
+		}
+
+		destination.append(", nan=");
+		destination.append(nanCount);
+		destination.append(", zero=");
+		destination.append(zeroCount);
+
+		if (histogram != null) {
+
+			destination.append(", histogram=");
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+
+				if (bucket > 0) {
+
+					destination.append(' ');
+
+				}
+
+				destination.append(histogram[bucket]);
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Summarises the specified collection, provided that all of its elements
+	 * are numbers.
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @return the summary, or null if an element is not a number.
+	 */
+	private static NumericSummary summariseCollection(Collection<?> collection) {
+
+		NumericSummary summary = new NumericSummary();
+
+		for (Object element : collection) {
+
+			if (element instanceof Long || element instanceof Integer
+					|| element instanceof Short || element instanceof Byte) {
+
+				summary.accumulate(((Number) element).longValue());
+
+			} else if (element instanceof Number) {
+
+				summary.accumulate(((Number) element).doubleValue());
+
+			} else {
+
+				return null;
+
+			}
+
+		}
+
+		if (summary.hasRange()) {
+
+			summary.histogram = new long[BUCKETS];
+
+			for (Object element : collection) {
+
+				summary.accumulateHistogram(((Number) element).doubleValue(),
+						summary.histogram);
+
+			}
+
+		}
+
+		return summary;
+
+	}
+
+	/**
+	 * Accumulates the elements of the specified numeric array between the
+	 * specified indexes.
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param from
+	 *            the first index, inclusive.
+	 * @param to
+	 *            the last index, exclusive.
+	 */
+	private void accumulate(Object array, int from, int to) {
+
+		if (array instanceof double[]) {
+
+			double[] values = (double[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate(values[index]);
+
+			}
+
+		} else if (array instanceof float[]) {
+
+			float[] values = (float[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate(values[index]);
+
+			}
+
+		} else if (array instanceof long[]) {
+
+			long[] values = (long[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate(values[index]);
+
+			}
+
+		} else if (array instanceof int[]) {
+
+			int[] values = (int[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate((long) values[index]);
+
+			}
+
+		} else if (array instanceof short[]) {
+
+			short[] values = (short[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate((long) values[index]);
+
+			}
+
+		} else if (array instanceof byte[]) {
+
+			byte[] values = (byte[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulate((long) values[index]);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Accumulates the specified floating-point value.
+	 * 
+	 * @param value
+	 *            the value.
+	 */
+	private void accumulate(double value) {
+
+		count++;
+
+		if (value != value) {
+
+			nanCount++;
+
+			return;
+
+		}
+
+		integral = false;
+
+		accumulateValue(value);
+
+	}
+
+	/**
+	 * Accumulates the specified integer value.
+	 * 
+	 * @param value
+	 *            the value.
+	 */
+	private void accumulate(long value) {
+
+		count++;
+
+		if (value < integralMinimum) {
+
+			integralMinimum = value;
+
+		}
+
+		if (value > integralMaximum) {
+
+			integralMaximum = value;
+
+		}
+
+		accumulateValue(value);
+
+	}
+
+	/**
+	 * Accumulates the specified value that is not NaN into the minimum,
+	 * maximum, zero count, mean and squared differences.
+	 * 
+	 * @param value
+	 *            the value.
+	 */
+	private void accumulateValue(double value) {
+
+		if (value < minimum) {
+
+			minimum = value;
+
+		}
+
+		if (value > maximum) {
+
+			maximum = value;
+
+		}
+
+		if (value == 0) {
+
+			zeroCount++;
+
+		}
+
+		double difference = value - mean;
+
+		mean += difference / (count - nanCount);
+		squaredDifferences += difference * (value - mean);
+
+	}
+
+	/**
+	 * Accumulates the elements of the specified numeric array between the
+	 * specified indexes into the specified histogram.
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param from
+	 *            the first index, inclusive.
+	 * @param to
+	 *            the last index, exclusive.
+	 * @param histogram
+	 *            the histogram.
+	 */
+	private void accumulateHistogram(Object array, int from, int to,
+			long[] histogram) {
+
+		if (array instanceof double[]) {
+
+			double[] values = (double[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		} else if (array instanceof float[]) {
+
+			float[] values = (float[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		} else if (array instanceof long[]) {
+
+			long[] values = (long[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		} else if (array instanceof int[]) {
+
+			int[] values = (int[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		} else if (array instanceof short[]) {
+
+			short[] values = (short[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		} else if (array instanceof byte[]) {
+
+			byte[] values = (byte[]) array;
+
+			for (int index = from; index < to; index++) {
+
+				accumulateHistogram(values[index], histogram);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Accumulates the specified value into the specified histogram, ignoring
+	 * NaN values.
+	 * 
+	 * @param value
+	 *            the value.
+	 * @param histogram
+	 *            the histogram.
+	 */
+	private void accumulateHistogram(double value, long[] histogram) {
+
+		if (value != value) {
+
+			return;
+
+		}
+
+		int bucket = (int) ((value - minimum) / (maximum - minimum) * BUCKETS);
+
+		histogram[Math.min(Math.max(bucket, 0), BUCKETS - 1)]++;
+
+	}
+
+	/**
+	 * Determines whether the values have a finite range that the histogram
+	 * may divide.
+	 * 
+	 * @return true if the range is finite, false otherwise.
+	 */
+	private boolean hasRange() {
+
+		return count > nanCount && Double.isFinite(maximum - minimum);
+
+	}
+
+	/**
+	 * Merges the specified summary of the elements that follow the elements
+	 * of the specified summary.
+	 * 
+	 * @param first
+	 *            the summary of the first elements.
+	 * @param second
+	 *            the summary of the following elements.
+	 * @return the merged summary.
+	 */
+	private static NumericSummary merge(NumericSummary first,
+			NumericSummary second) {
+
+		NumericSummary merged = new NumericSummary();
+
+		long firstValues = first.count - first.nanCount;
+		long secondValues = second.count - second.nanCount;
+		long values = firstValues + secondValues;
+
+		merged.count = first.count + second.count;
+		merged.nanCount = first.nanCount + second.nanCount;
+		merged.zeroCount = first.zeroCount + second.zeroCount;
+		merged.minimum = Math.min(first.minimum, second.minimum);
+		merged.maximum = Math.max(first.maximum, second.maximum);
+		merged.integral = first.integral && second.integral;
+		merged.integralMinimum = Math.min(first.integralMinimum,
+				second.integralMinimum);
+		merged.integralMaximum = Math.max(first.integralMaximum,
+				second.integralMaximum);
+
+		if (values > 0) {
+
+			double difference = second.mean - first.mean;
+
+			merged.mean = first.mean + difference * secondValues / values;
+			merged.squaredDifferences = first.squaredDifferences
+					+ second.squaredDifferences + difference * difference
+					* firstValues * secondValues / values;
+
+		}
+
+		return merged;
+
+	}
+
+	/**
+	 * Merges the specified histograms.
+	 * 
+	 * @param first
+	 *            the first histogram.
+	 * @param second
+	 *            the second histogram.
+	 * @return the first histogram, to which the second has been added.
+	 */
+	private static long[] merge(long[] first, long[] second) {
+
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+
+			first[bucket] += second[bucket];
+
+		}
+
+		return first;
+
+	}
+
+}
\ No newline at end of file
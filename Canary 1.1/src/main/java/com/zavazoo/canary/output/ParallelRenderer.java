@@ -0,0 +1,502 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Renders huge arrays, random access lists and ordered collections whose
+ * spliterators split by dividing them into chunks of CHUNK_SIZE elements that
+ * are rendered in parallel by the common fork-join pool into separate builders
+ * and stitched together in order.<br/>
+ * <br/>
+ * The representation is identical to the sequential representation because
+ * each element is represented independently of the elements around it.
+ * Chunks are rendered in waves of twice as many chunks as the parallelism of
+ * the pool, such that rendering stops at the first wave that exceeds the
+ * maximum length of the representation, and the chunk that exceeds it is
+ * rendered again sequentially to stop after the same element as the
+ * sequential representation does.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+abstract class ParallelRenderer {
+
+	/** The number of elements of each chunk. */
+	static final int CHUNK_SIZE = 1 << 14;
+
+	/** The number of chunks of each wave for each thread of the pool. */
+	private static final int WAVE_CHUNKS = 2;
+
+	/** The length of the shortest representation of an element. */
+	private static final int MINIMUM_ELEMENT_LENGTH = 1;
+
+	/** The separator that follows each element but the last. */
+	private static final String SEPARATOR = ", ";
+
+	/**
+	 * Appends the representation of the element at a specified index of an
+	 * array or random access list.
+	 */
+	interface ElementAppender {
+
+		/**
+		 * Appends the representation of the element at the specified index.
+		 * 
+		 * @param index
+		 *            the index.
+		 * @param destination
+		 *            the builder.
+		 */
+		void appendElement(int index, StringBuilder destination);
+
+	}
+
+	/**
+	 * Determines whether a representation of the specified maximum length has
+	 * room for every chunk of the first wave, since the chunks of a wave that
+	 * exceed the maximum length are rendered in vain and a maximum length
+	 * shorter than the shortest representation of a wave makes the
+	 * parallelism entirely wasted.
+	 * 
+	 * @param maximum
+	 *            the maximum length.
+	 * @return true if the maximum length has room for the first wave, false
+	 *         otherwise.
+	 */
+	static boolean isWithinMaximum(int maximum) {
+
+		long shortestWave = (long) getWaveSize() * CHUNK_SIZE
+				* (MINIMUM_ELEMENT_LENGTH + SEPARATOR.length());
+
+		return maximum >= shortestWave;
+
+	}
+
+	/**
+	 * Gets the number of chunks rendered by each wave.
+	 * 
+	 * @return the number of chunks.
+	 */
+	private static int getWaveSize() {
+
+		return Math.max(ForkJoinPool.getCommonPoolParallelism(), 1)
+				* WAVE_CHUNKS;
+
+	}
+
+	/**
+	 * Appends the representation of the elements of an array or random access
+	 * list of the specified size, enclosed by the specified opening and
+	 * closing characters.
+	 * 
+	 * @param size
+	 *            the size of the array or list.
+	 * @param opening
+	 *            the opening character.
+	 * @param closing
+	 *            the closing character.
+	 * @param appender
+	 *            the appender of the elements.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	static void appendIndexed(int size, char opening, char closing,
+			ElementAppender appender, int maximum, StringBuilder destination) {
+
+		List<Chunk> chunks = new ArrayList<Chunk>(
+				(size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+
+		for (int from = 0; from < size; from += CHUNK_SIZE) {
+
+			chunks.add(new Chunk(appender, from, Math.min(from + CHUNK_SIZE,
+					size)));
+
+		}
+
+		appendChunks(chunks, opening, closing, maximum, destination);
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified collection
+	 * using the following notation: (element1, element2, element3)
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the representation was appended, false if the
+	 *         spliterator of the collection is not ordered and therefore might
+	 *         not split in the order in which the collection is iterated.
+	 */
+	static boolean appendSplittable(Collection<?> collection, int maximum,
+			StringBuilder destination) {
+
+		Spliterator<?> spliterator = collection.spliterator();
+
+		if (!spliterator.hasCharacteristics(Spliterator.ORDERED)) {
+
+			return false;
+
+		}
+
+		List<Chunk> chunks = new ArrayList<Chunk>();
+
+		split(spliterator, maximum, chunks);
+
+		appendChunks(chunks, '(', ')', maximum, destination);
+
+		return true;
+
+	}
+
+	/**
+	 * Splits the specified spliterator into chunks of no more than CHUNK_SIZE
+	 * elements, or as near to that as the spliterator splits, in order.
+	 * 
+	 * @param spliterator
+	 *            the spliterator.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param chunks
+	 *            the list to which the chunks are added.
+	 */
+	private static void split(Spliterator<?> spliterator, int maximum,
+			List<Chunk> chunks) {
+
+		while (spliterator.estimateSize() > CHUNK_SIZE) {
+
+			Spliterator<?> prefix = spliterator.trySplit();
+
+			if (prefix == null) {
+
+				break;
+
+			}
+
+			split(prefix, maximum, chunks);
+
+		}
+
+		chunks.add(new Chunk(spliterator, maximum));
+
+	}
+
+	/**
+	 * Renders the specified chunks in waves and appends their
+	 * representations, enclosed by the specified opening and closing
+	 * characters, in order.
+	 * 
+	 * @param chunks
+	 *            the chunks.
+	 * @param opening
+	 *            the opening character.
+	 * @param closing
+	 *            the closing character.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendChunks(List<Chunk> chunks, char opening,
+			char closing, int maximum, StringBuilder destination) {
+
+		int start = destination.length();
+
+		destination.append(opening);
+
+		int wave = getWaveSize();
+
+		// the chunks share the deadline of the trace, which is otherwise
+		// never armed on the threads of the pool
+		boolean timed = RenderDeadline.isArmed();
+		long expiry = RenderDeadline.getExpiry();
+
+		boolean separated = false;
+
+		for (int first = 0; first < chunks.size(); first += wave) {
+
+			List<Chunk> rendered = chunks.subList(first,
+					Math.min(first + wave, chunks.size()));
+
+			for (Chunk chunk : rendered) {
+
+				chunk.timed = timed;
+				chunk.expiry = expiry;
+
+			}
+
+			ForkJoinTask.invokeAll(rendered);
+
+			for (Chunk chunk : rendered) {
+
+				StringBuilder representation = chunk.join();
+
+				if (chunk.from == chunk.to && !chunk.exceeded) {
+
+					continue;
+
+				}
+
+				// the separator that follows the last element of the previous
+				// chunk is only known to be needed once this chunk is known to
+				// have elements
+
+				if (separated) {
+
+					destination.append(SEPARATOR);
+
+					if (destination.length() - start > maximum) {
+
+						return;
+
+					}
+
+				}
+
+				if (chunk.exceeded) {
+
+					// the representation ends with the marker, and any length
+					// beyond the maximum is truncated with the trace
+
+					destination.append(representation);
+
+					RenderDeadline.exceed();
+
+					return;
+
+				}
+
+				if (destination.length() + representation.length() - start
+						> maximum) {
+
+					int last = chunk.to - 1;
+
+					for (int index = chunk.from; index < last; index++) {
+
+						chunk.appender.appendElement(index, destination);
+
+						destination.append(SEPARATOR);
+
+						if (destination.length() - start > maximum) {
+
+							return;
+
+						}
+
+					}
+
+					chunk.appender.appendElement(last, destination);
+
+				} else {
+
+					destination.append(representation);
+
+				}
+
+				separated = true;
+
+			}
+
+		}
+
+		if (separated && destination.length() - start > maximum) {
+
+			return;
+
+		}
+
+		destination.append(closing);
+
+	}
+
+	/**
+	 * A chunk of the elements of an array, random access list or collection,
+	 * rendered into its own builder.
+	 */
+	private static class Chunk extends RecursiveTask<StringBuilder> {
+
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The spliterator of the elements of a collection, or null if the
+		 * chunk is of an array or random access list.
+		 */
+		private final Spliterator<?> spliterator;
+
+		/** The maximum length of the representations of the elements. */
+		private final int maximum;
+
+		/**
+		 * The appender of the elements, which for a collection is set once
+		 * its elements have been drained from the spliterator.
+		 */
+		private ElementAppender appender;
+
+		/** The index of the first element. */
+		private int from;
+
+		/** The index after the last element. */
+		private int to;
+
+		/** Switch used to indicate that the chunk shares a deadline. */
+		private boolean timed;
+
+		/** The monotonic time in nanoseconds at which the deadline passes. */
+		private long expiry;
+
+		/**
+		 * Switch used to indicate that the deadline passed before the chunk
+		 * was rendered, in which case its representation ends with the
+		 * marker.
+		 */
+		private boolean exceeded;
+
+		/**
+		 * Creates a chunk of the elements of an array or random access list.
+		 * 
+		 * @param appender
+		 *            the appender of the elements.
+		 * @param from
+		 *            the index of the first element.
+		 * @param to
+		 *            the index after the last element.
+		 */
+		Chunk(ElementAppender appender, int from, int to) {
+
+			this.spliterator = null;
+			this.maximum = 0;
+			this.appender = appender;
+			this.from = from;
+			this.to = to;
+
+		}
+
+		/**
+		 * Creates a chunk of the elements of a collection.
+		 * 
+		 * @param spliterator
+		 *            the spliterator of the elements.
+		 * @param maximum
+		 *            the maximum length of the representations of the
+		 *            elements.
+		 */
+		Chunk(Spliterator<?> spliterator, int maximum) {
+
+			this.spliterator = spliterator;
+			this.maximum = maximum;
+
+		}
+
+		/**
+		 * Renders the elements of this chunk separated by commas, under the
+		 * deadline of the trace if it shares one, checking the deadline
+		 * before the first element and after each separator as the
+		 * sequential traversals do.
+		 * 
+		 * @return the representation.
+		 */
+		@Override
+		protected StringBuilder compute() {
+
+			boolean armed = timed && RenderDeadline.begin(expiry);
+
+			try {
+
+				return render();
+
+			} finally {
+
+				RenderDeadline.end(armed);
+
+			}
+
+		}
+
+		/**
+		 * Renders the elements of this chunk separated by commas.
+		 * 
+		 * @return the representation.
+		 */
+		private StringBuilder render() {
+
+			StringBuilder representation = new StringBuilder();
+
+			if (RenderDeadline.isExceeded(representation)) {
+
+				exceeded = true;
+
+				return representation;
+
+			}
+
+			if (spliterator != null) {
+
+				List<Object> elements = new ArrayList<Object>();
+
+				spliterator.forEachRemaining(elements::add);
+
+				appender = (index, destination) -> VariableAppender
+						.appendVariable(elements.get(index), maximum,
+								destination);
+				to = elements.size();
+
+			}
+
+			for (int index = from; index < to; index++) {
+
+				appender.appendElement(index, representation);
+
+				if (index != to - 1) {
+
+					representation.append(SEPARATOR);
+
+					if (RenderDeadline.isExceeded(representation)) {
+
+						exceeded = true;
+
+						break;
+
+					}
+
+				}
+
+			}
+
+			return representation;
+
+		}
+
+	}
+
+}
\ No newline at end of file
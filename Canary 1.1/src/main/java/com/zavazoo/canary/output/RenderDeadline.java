@@ -0,0 +1,429 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the time taken to render a single trace, alongside the maximum
+ * number of characters of its representation, such that the latency of a
+ * trace call stays bounded whatever variable is passed in.<br/>
+ * <br/>
+ * Each trace arms a deadline of the render budget when its rendering begins,
+ * which nested renderings, such as those of the variables of a single trace
+ * or of a trace written from the toString() operation of a variable, share.
+ * Arrays, collections, iterators and maps check the deadline between
+ * elements and, once it has passed, abandon the traversal with the marker
+ * &lt;render deadline exceeded&gt;.<br/>
+ * <br/>
+ * A toString() operation cannot be abandoned once called, so each call is
+ * timed instead and a type whose toString() operation either exceeds the
+ * entire render budget or passes the deadline of its trace on the strike
+ * limit number of occasions is remembered as a slow type. Variables of slow
+ * types are thereafter represented by their type and identity hash code, for
+ * example com.example.Order@1b6d3586, without calling their toString()
+ * operation at all.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class RenderDeadline {
+
+	/** The marker that replaces the elements left unrendered. */
+	public static final String MARKER = "<render deadline exceeded>";
+
+	/** The maximum number of types whose strikes are counted. */
+	private static final int MAXIMUM_TYPES = 1024;
+
+	/**
+	 * The time in nanoseconds allowed for the rendering of a single trace, or
+	 * zero if rendering is not bounded in time.
+	 */
+	private static volatile long budgetNanos = 0;
+
+	/**
+	 * The number of occasions on which the toString() operation of a type
+	 * exceeds the render budget before the type is remembered as slow.
+	 */
+	private static volatile int strikeLimit = 3;
+
+	/** The number of strikes of each type that has exceeded the budget. */
+	private static final ConcurrentHashMap<Class<?>, AtomicInteger> strikes = new ConcurrentHashMap<Class<?>, AtomicInteger>();
+
+	/** The deadline of the rendering in progress on each thread. */
+	private static final ThreadLocal<Deadline> DEADLINE = new ThreadLocal<Deadline>() {
+
+		@Override
+		protected Deadline initialValue() {
+
+			return new Deadline();
+
+		}
+
+	};
+
+	/**
+	 * Gets the budget nanos property.
+	 * 
+	 * @return the time in nanoseconds allowed for the rendering of a single
+	 *         trace, or zero if rendering is not bounded in time.
+	 */
+	public static long getBudgetNanos() {
+
+		return budgetNanos;
+
+	}
+
+	/**
+	 * Sets the budget nanos property.
+	 * 
+	 * @param budgetNanos
+	 *            the time in nanoseconds allowed for the rendering of a
+	 *            single trace, or zero if rendering is not bounded in time.
+	 */
+	public static void setBudgetNanos(long budgetNanos) {
+
+		RenderDeadline.budgetNanos = Math.max(budgetNanos, 0);
+
+	}
+
+	/**
+	 * Gets the strike limit property.
+	 * 
+	 * @return the number of occasions on which the toString() operation of a
+	 *         type exceeds the render budget before the type is remembered as
+	 *         slow.
+	 */
+	public static int getStrikeLimit() {
+
+		return strikeLimit;
+
+	}
+
+	/**
+	 * Sets the strike limit property.
+	 * 
+	 * @param strikeLimit
+	 *            the number of occasions on which the toString() operation of
+	 *            a type exceeds the render budget before the type is
+	 *            remembered as slow.
+	 */
+	public static void setStrikeLimit(int strikeLimit) {
+
+		RenderDeadline.strikeLimit = Math.max(strikeLimit, 1);
+
+	}
+
+	/**
+	 * Begins the rendering of a trace on the current thread, arming a
+	 * deadline of the render budget unless a rendering is already in
+	 * progress on the thread, in which case its deadline is shared.
+	 * 
+	 * @return true if a deadline was armed, in which case end() must be called
+	 *         once the rendering is complete, false otherwise.
+	 */
+	public static boolean begin() {
+
+		long budget = budgetNanos;
+
+		if (budget <= 0) {
+
+			return false;
+
+		}
+
+		Deadline deadline = DEADLINE.get();
+
+		if (deadline.armed) {
+
+			return false;
+
+		}
+
+		deadline.armed = true;
+		deadline.exceeded = false;
+		deadline.expiry = System.nanoTime() + budget;
+
+		return true;
+
+	}
+
+	/**
+	 * Ends the rendering of a trace on the current thread, disarming the
+	 * deadline if the rendering armed it.
+	 * 
+	 * @param armed
+	 *            the result of the corresponding call to begin().
+	 */
+	public static void end(boolean armed) {
+
+		if (armed) {
+
+			DEADLINE.get().armed = false;
+
+		}
+
+	}
+
+	/**
+	 * Determines whether a deadline is armed on the current thread, such that
+	 * the parts of its rendering handed to other threads share it.
+	 * 
+	 * @return true if a deadline is armed, false otherwise.
+	 */
+	static boolean isArmed() {
+
+		return budgetNanos > 0 && DEADLINE.get().armed;
+
+	}
+
+	/**
+	 * Gets the expiry of the deadline armed on the current thread.
+	 * 
+	 * @return the monotonic time in nanoseconds at which the deadline passes.
+	 */
+	static long getExpiry() {
+
+		return DEADLINE.get().expiry;
+
+	}
+
+	/**
+	 * Begins a part of the rendering of a trace handed to the current thread
+	 * by the thread that armed its deadline, arming a deadline with the
+	 * specified expiry unless a rendering is already in progress on the
+	 * thread, in which case its deadline is shared.
+	 * 
+	 * @param expiry
+	 *            the monotonic time in nanoseconds at which the deadline
+	 *            passes.
+	 * @return true if a deadline was armed, in which case end() must be called
+	 *         once the part is rendered, false otherwise.
+	 */
+	static boolean begin(long expiry) {
+
+		Deadline deadline = DEADLINE.get();
+
+		if (deadline.armed) {
+
+			return false;
+
+		}
+
+		deadline.armed = true;
+		deadline.exceeded = false;
+		deadline.expiry = expiry;
+
+		return true;
+
+	}
+
+	/**
+	 * Records that the deadline armed on the current thread has passed
+	 * without appending the marker, which a part of the rendering handed to
+	 * another thread has already appended, such that the traversals that
+	 * enclose the part stop without appending further markers.
+	 */
+	static void exceed() {
+
+		Deadline deadline = DEADLINE.get();
+
+		if (deadline.armed) {
+
+			deadline.exceeded = true;
+
+		}
+
+	}
+
+	/**
+	 * Determines whether the deadline of the rendering in progress on the
+	 * current thread has passed, appending the marker to the specified
+	 * builder when the deadline is first found to have passed such that the
+	 * traversal that found it and every traversal that encloses it stop
+	 * without appending further markers.
+	 * 
+	 * @param destination
+	 *            the builder.
+	 * @return true if the deadline has passed, false otherwise.
+	 */
+	public static boolean isExceeded(StringBuilder destination) {
+
+		if (budgetNanos <= 0) {
+
+			return false;
+
+		}
+
+		Deadline deadline = DEADLINE.get();
+
+		if (!deadline.armed) {
+
+			return false;
+
+		}
+
+		if (deadline.exceeded) {
+
+			return true;
+
+		}
+
+		if (System.nanoTime() - deadline.expiry < 0) {
+
+			return false;
+
+		}
+
+		deadline.exceeded = true;
+
+		destination.append(MARKER);
+
+		return true;
+
+	}
+
+	/**
+	 * Represents the specified variable by the result of its toString()
+	 * operation, timing the operation and counting a strike against its type
+	 * if it exceeds the render budget or passes the deadline, or by its type
+	 * and identity hash code if its type is remembered as slow.
+	 * 
+	 * @param variable
+	 *            the variable, which is not null.
+	 * @return the representation.
+	 */
+	static String represent(Object variable) {
+
+		long budget = budgetNanos;
+
+		if (budget <= 0) {
+
+			return variable.toString();
+
+		}
+
+		Class<?> type = variable.getClass();
+
+		if (isSlow(type)) {
+
+			return type.getName() + "@"
+					+ Integer.toHexString(System.identityHashCode(variable));
+
+		}
+
+		long start = System.nanoTime();
+
+		String representation = variable.toString();
+
+		long end = System.nanoTime();
+
+		Deadline deadline = DEADLINE.get();
+
+		if (end - start > budget
+				|| (deadline.armed && end - deadline.expiry >= 0 && start
+						- deadline.expiry < 0)) {
+
+			strike(type);
+
+		}
+
+		return representation;
+
+	}
+
+	/**
+	 * Determines whether the specified type is remembered as slow.
+	 * 
+	 * @param type
+	 *            the type.
+	 * @return true if the type is slow, false otherwise.
+	 */
+	public static boolean isSlow(Class<?> type) {
+
+		AtomicInteger typeStrikes = strikes.get(type);
+
+		return typeStrikes != null && typeStrikes.get() >= strikeLimit;
+
+	}
+
+	/**
+	 * Forgets every type remembered as slow and every strike counted, such
+	 * that each type is given another chance to represent itself.
+	 */
+	public static void forgetSlowTypes() {
+
+		strikes.clear();
+
+	}
+
+	/**
+	 * Counts a strike against the specified type, whose toString() operation
+	 * has exceeded the render budget or passed the deadline.
+	 * 
+	 * @param type
+	 *            the type.
+	 */
+	private static void strike(Class<?> type) {
+
+		AtomicInteger typeStrikes = strikes.get(type);
+
+		if (typeStrikes == null) {
+
+			if (strikes.size() >= MAXIMUM_TYPES) {
+
+				return;
+
+			}
+
+			typeStrikes = new AtomicInteger();
+
+			AtomicInteger existing = strikes.putIfAbsent(type, typeStrikes);
+
+			if (existing != null) {
+
+				typeStrikes = existing;
+
+			}
+
+		}
+
+		typeStrikes.incrementAndGet();
+
+	}
+
+	/**
+	 * Defines the deadline of the rendering in progress on a single thread.
+	 */
+	private static class Deadline {
+
+		/** Switch used to indicate that a rendering is in progress. */
+		private boolean armed;
+
+		/** Switch used to indicate that the deadline has passed. */
+		private boolean exceeded;
+
+		/** The monotonic time in nanoseconds at which the deadline passes. */
+		private long expiry;
+
+	}
+
+}
\ No newline at end of file
@@ -28,29 +28,20 @@ package com.zavazoo.canary.output;
 public class ShortIntegerArrayVariableDecorator extends VariableDecorator {
 
 	/**
-	 * Represents the variable that is an array of short integers.
+	 * Represents the variable that is an array of short integers, appending
+	 * each element directly to the representation without boxing the element or
+	 * creating an intermediate string for it.
 	 * 
 	 * @return the representation.
 	 */
 	public String representVariable() {
 
-		short[] shortArray = (short[]) getVariable();
+		StringBuilder representation = new StringBuilder();
 
-		int shortArrayLength = shortArray.length;
+		VariableAppender.appendArray((short[]) getVariable(), getMaximum(),
+				representation);
 
-		Short[] objectArray = new Short[shortArrayLength];
-
-		for (int index = 0; index < shortArrayLength; index++) {
-
-			objectArray[index] = shortArray[index];
-
-		}
-
-		VariableDecorator arrayDecorator = new PrimitiveArrayVariableDecorator();
-		arrayDecorator.setVariable(objectArray);
-		arrayDecorator.setMaximum(getMaximum());
-
-		return arrayDecorator.representVariable();
+		return representation.toString();
 
 	}
 
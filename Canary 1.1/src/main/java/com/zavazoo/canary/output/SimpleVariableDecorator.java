@@ -20,7 +20,8 @@ package com.zavazoo.canary.output;
 
 /**
  * Variable decorator that simply uses the representation resulting from the
- * toString() operation exposed by the variable.
+ * toString() operation exposed by the variable, unless the RenderDeadline
+ * remembers the type of the variable as slow.
  * 
  * @author Chris White <chriswhitelondon@gmail.com>
  * @since JDK6
@@ -30,7 +31,8 @@ public class SimpleVariableDecorator extends VariableDecorator {
 	/**
 	 * Yields the result of a call to the toString() operation exposed by the
 	 * variable notwithstanding a null variable that will be represented as
-	 * 'null'.
+	 * 'null' and a variable of a slow type that will be represented by its
+	 * type and identity hash code.
 	 * 
 	 * @return the representation.
 	 */
@@ -58,7 +60,7 @@ public class SimpleVariableDecorator extends VariableDecorator {
 
 		}
 
-		return variable.toString();
+		return RenderDeadline.represent(variable);
 
 	}
 
@@ -0,0 +1,2362 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.output;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.BaseStream;
+
+/**
+ * Strategically appends the representation of a variable to a builder
+ * according to the type of the variable, using the same notation as the
+ * variable decorators but without creating any decorators, boxed elements or
+ * intermediate strings.<br/>
+ * <br/>
+ * Primitives, strings, boxed primitives, arrays and random access lists of
+ * those are appended without allocating any objects. Other collections and
+ * maps allocate a single iterator, and variables of any other type are
+ * appended using the result of their toString() operation.<br/>
+ * <br/>
+ * Numbers are appended by the builder itself, which writes the digits of
+ * integers and the shortest decimal digits of floating-point numbers that
+ * Double.toString() and Float.toString() yield straight into its own
+ * characters, such that the representation of a number is identical to its
+ * string without the string being created. The primitive array decorators
+ * use the array appenders of this class for the same reason. Integral
+ * floating-point numbers of fewer than eight digits, such as counters and
+ * whole measurements, are appended as integers followed by '.0' without
+ * deriving their decimal digits at all.<br/>
+ * <br/>
+ * Buffers are represented by the elements between their position and limit,
+ * which are read with absolute gets such that neither the position nor the
+ * limit of a buffer ever changes and direct and mapped buffers are never
+ * copied. Byte buffers may instead be represented as a hex dump.<br/>
+ * <br/>
+ * Iterables other than collections, and iterators, spliterators and streams
+ * if iterator rendering is switched on, are represented in the same notation
+ * as collections by pulling only as many elements as the maximum length of
+ * the representation allows. Paths are iterable but are represented by their
+ * toString() operation. Character sequences other than strings are appended
+ * without being converted to strings and only up to the maximum length.<br/>
+ * <br/>
+ * Arrays and collections larger than the large collection threshold, if one
+ * is set, are represented by their size and their first and last elements,
+ * which are read by index or by iterating in reverse such that the elements
+ * between them are never visited. Numeric arrays and collections of numbers
+ * larger than the summary threshold, if one is set, are instead represented
+ * by their NumericSummary.<br/>
+ * <br/>
+ * Arrays, random access lists and ordered collections larger than the
+ * parallel rendering threshold, if one is set, are rendered in chunks by the
+ * ParallelRenderer, which stitches the chunks together into the same
+ * representation as sequential rendering.<br/>
+ * <br/>
+ * Arrays, buffers and collections larger than the threshold of the
+ * BulkDumpWriter, if one is set, are written in full to a dump file and
+ * represented only by a reference to the dump.<br/>
+ * <br/>
+ * Arrays of objects, collections, iterators and maps stop between elements
+ * once the RenderDeadline of the trace has passed, and variables of any other
+ * type are represented through the RenderDeadline, which represents types
+ * whose toString() operation is remembered as slow by their identity.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class VariableAppender {
+
+	/**
+	 * The magnitude from which Double.toString() and Float.toString() use
+	 * computerised scientific notation for integral values.
+	 */
+	private static final int INTEGRAL_LIMIT = 10000000;
+
+	/** The digits of a hex dump. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Switch used to indicate that byte buffers are represented as a hex dump
+	 * rather than as signed bytes.
+	 */
+	private static volatile boolean byteBufferHexDump = false;
+
+	/**
+	 * Switch used to indicate that iterators, spliterators and streams are
+	 * represented by the elements that they yield, which consumes those
+	 * elements, rather than by the result of their toString() operation.
+	 */
+	private static volatile boolean iteratorRendering = false;
+
+	/**
+	 * The size above which numeric arrays and collections of numbers are
+	 * represented by their numeric summary, or zero if they are never
+	 * summarised by size.
+	 */
+	private static volatile int summaryThreshold = 0;
+
+	/**
+	 * The size above which arrays and collections are represented by their
+	 * size and their first and last elements, or zero if they are always
+	 * represented in their entirety.
+	 */
+	private static volatile int largeCollectionThreshold = 0;
+
+	/**
+	 * The number of first elements, and of last elements, that represent a
+	 * large array or collection.
+	 */
+	private static volatile int largeCollectionElements = 3;
+
+	/**
+	 * Switch used to indicate that large collections that can be neither
+	 * indexed nor iterated in reverse are represented by a sample of their
+	 * elements rather than by their first elements.
+	 */
+	private static volatile boolean largeCollectionSampling = false;
+
+	/** The seed of each sample, such that samples are deterministic. */
+	private static final long SAMPLE_SEED = 0x2545f4914f6cdd1dL;
+
+	/**
+	 * The writer of the dump files to which large payloads are written in
+	 * full, or null if payloads are never dumped.
+	 */
+	private static volatile BulkDumpWriter bulkDumpWriter = null;
+
+	/**
+	 * The size above which arrays, random access lists and ordered
+	 * collections are rendered in parallel, or zero if they are always
+	 * rendered sequentially.
+	 */
+	private static volatile int parallelRenderingThreshold = 0;
+
+	/**
+	 * Appends the representation of the specified variable to the specified
+	 * builder using the specified maximum length of the representation.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendVariable(Object variable, int maximum,
+			StringBuilder destination) {
+
+		if (variable == null) {
+
+			destination.append("null");
+
+		} else if (variable instanceof Object[]) {
+
+			appendArray((Object[]) variable, maximum, destination);
+
+		} else if (variable instanceof byte[]) {
+
+			appendArray((byte[]) variable, maximum, destination);
+
+		} else if (variable instanceof short[]) {
+
+			appendArray((short[]) variable, maximum, destination);
+
+		} else if (variable instanceof int[]) {
+
+			appendArray((int[]) variable, maximum, destination);
+
+		} else if (variable instanceof long[]) {
+
+			appendArray((long[]) variable, maximum, destination);
+
+		} else if (variable instanceof float[]) {
+
+			appendArray((float[]) variable, maximum, destination);
+
+		} else if (variable instanceof double[]) {
+
+			appendArray((double[]) variable, maximum, destination);
+
+		} else if (variable instanceof boolean[]) {
+
+			appendArray((boolean[]) variable, maximum, destination);
+
+		} else if (variable instanceof char[]) {
+
+			appendArray((char[]) variable, maximum, destination);
+
+		} else if (variable instanceof Buffer) {
+
+			appendBuffer((Buffer) variable, maximum, destination);
+
+		} else if (variable instanceof Collection) {
+
+			appendCollection((Collection<?>) variable, maximum, destination);
+
+		} else if (variable instanceof Map) {
+
+			appendMap((Map<?, ?>) variable, maximum, destination);
+
+		} else if (isIterableRendered(variable)) {
+
+			appendIterable((Iterable<?>) variable, maximum, destination);
+
+		} else if (variable instanceof Optional) {
+
+			appendOptional((Optional<?>) variable, maximum, destination);
+
+		} else if (variable instanceof CharSequence
+				&& !(variable instanceof String)) {
+
+			appendCharSequence((CharSequence) variable, maximum, destination);
+
+		} else if (iteratorRendering && variable instanceof Iterator) {
+
+			appendIterator((Iterator<?>) variable, maximum, destination);
+
+		} else if (iteratorRendering && variable instanceof Spliterator) {
+
+			appendIterator(Spliterators.iterator((Spliterator<?>) variable),
+					maximum, destination);
+
+		} else if (iteratorRendering && variable instanceof BaseStream) {
+
+			appendIterator(((BaseStream<?, ?>) variable).iterator(), maximum,
+					destination);
+
+		} else {
+
+			appendSimple(variable, destination);
+
+		}
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of objects using the
+	 * following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(Object[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> appendVariable(array[index], maximum,
+							builder), maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			appendVariable(array[index], maximum, destination);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination) || RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of bytes using the
+	 * following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(byte[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> builder.append(array[index]),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			destination.append(array[index]);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of short integers using
+	 * the following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(short[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> builder.append(array[index]),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			destination.append(array[index]);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of integers using the
+	 * following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(int[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> builder.append(array[index]),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			destination.append(array[index]);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of long integers using
+	 * the following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(long[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> builder.append(array[index]),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			destination.append(array[index]);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of floating-point
+	 * numbers using the following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(float[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> appendFloat(array[index], builder),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			appendFloat(array[index], destination);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of double integers
+	 * using the following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(double[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (appendSummary(array, array.length, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> appendDouble(array[index], builder),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			appendDouble(array[index], destination);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of booleans using the
+	 * following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(boolean[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> builder.append(array[index]),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			destination.append(array[index]);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified array of characters using the
+	 * following notation: [element1, element2, element3]
+	 * 
+	 * @param array
+	 *            the array.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendArray(char[] array, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(array, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(array.length)) {
+
+			appendHeadAndTail(array, array.length, maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(array.length, maximum)) {
+
+			ParallelRenderer.appendIndexed(array.length, '[', ']',
+					(index, builder) -> appendCharacter(array[index], builder),
+					maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('[');
+
+		for (int index = 0; index < array.length; index++) {
+
+			appendCharacter(array[index], destination);
+
+			if (appendSeparator(index, array.length, start, maximum,
+					destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(']');
+
+	}
+
+	/**
+	 * Appends the representation of the specified buffer, according to the
+	 * type of its elements, using the following notation: &lt;element1,
+	 * element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(Buffer buffer, int maximum,
+			StringBuilder destination) {
+
+		if (appendDump(buffer, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (buffer instanceof ByteBuffer) {
+
+			if (byteBufferHexDump) {
+
+				appendHexDump((ByteBuffer) buffer, maximum, destination);
+
+			} else {
+
+				appendBuffer((ByteBuffer) buffer, maximum, destination);
+
+			}
+
+		} else if (buffer instanceof CharBuffer) {
+
+			appendBuffer((CharBuffer) buffer, maximum, destination);
+
+		} else if (buffer instanceof ShortBuffer) {
+
+			appendBuffer((ShortBuffer) buffer, maximum, destination);
+
+		} else if (buffer instanceof IntBuffer) {
+
+			appendBuffer((IntBuffer) buffer, maximum, destination);
+
+		} else if (buffer instanceof LongBuffer) {
+
+			appendBuffer((LongBuffer) buffer, maximum, destination);
+
+		} else if (buffer instanceof FloatBuffer) {
+
+			appendBuffer((FloatBuffer) buffer, maximum, destination);
+
+		} else if (buffer instanceof DoubleBuffer) {
+
+			appendBuffer((DoubleBuffer) buffer, maximum, destination);
+
+		} else {
+
+			destination.append(buffer.toString());
+
+		}
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * bytes between its position and limit using the following notation:
+	 * &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(ByteBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			destination.append(buffer.get(position + index));
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * characters between its position and limit using the following notation:
+	 * &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(CharBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			appendCharacter(buffer.get(position + index), destination);
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * short integers between its position and limit using the following
+	 * notation: &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(ShortBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			destination.append(buffer.get(position + index));
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * integers between its position and limit using the following notation:
+	 * &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(IntBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			destination.append(buffer.get(position + index));
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * long integers between its position and limit using the following
+	 * notation: &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(LongBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			destination.append(buffer.get(position + index));
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * floating-point numbers between its position and limit using the following
+	 * notation: &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(FloatBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			appendFloat(buffer.get(position + index), destination);
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends the representation of the elements of the specified buffer of
+	 * double integers between its position and limit using the following
+	 * notation: &lt;element1, element2, element3&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendBuffer(DoubleBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			appendDouble(buffer.get(position + index), destination);
+
+			if (appendSeparator(index, length, start, maximum, destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Appends a hex dump of the bytes of the specified buffer between its
+	 * position and limit using the following notation: &lt;0a ff 3c&gt;
+	 * 
+	 * @param buffer
+	 *            the buffer.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendHexDump(ByteBuffer buffer, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		int position = buffer.position();
+		int length = buffer.limit() - position;
+
+		// each byte is two digits and a space
+		destination.ensureCapacity(start + Math.min(length * 3, maximum + 3)
+				+ 2);
+
+		destination.append('<');
+
+		for (int index = 0; index < length; index++) {
+
+			int value = buffer.get(position + index) & 0xff;
+
+			destination.append(HEX_DIGITS[value >>> 4]);
+			destination.append(HEX_DIGITS[value & 0x0f]);
+
+			if (index != length - 1) {
+
+				destination.append(' ');
+
+			}
+
+			if (destination.length() - start > maximum) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('>');
+
+	}
+
+	/**
+	 * Determines whether byte buffers are represented as a hex dump.
+	 * 
+	 * @return true if byte buffers are represented as a hex dump, false if
+	 *         they are represented as signed bytes.
+	 */
+	public static boolean isByteBufferHexDump() {
+
+		return byteBufferHexDump;
+
+	}
+
+	/**
+	 * Switches the representation of byte buffers between a hex dump and
+	 * signed bytes.
+	 * 
+	 * @param byteBufferHexDump
+	 *            true if byte buffers should be represented as a hex dump,
+	 *            false if they should be represented as signed bytes.
+	 */
+	public static void setByteBufferHexDump(boolean byteBufferHexDump) {
+
+		VariableAppender.byteBufferHexDump = byteBufferHexDump;
+
+	}
+
+	/**
+	 * Determines whether iterators, spliterators and streams are represented
+	 * by the elements that they yield.
+	 * 
+	 * @return true if iterators, spliterators and streams are represented by
+	 *         their elements, false if they are represented by the result of
+	 *         their toString() operation.
+	 */
+	public static boolean isIteratorRendering() {
+
+		return iteratorRendering;
+
+	}
+
+	/**
+	 * Switches the representation of iterators, spliterators and streams
+	 * between the elements that they yield and the result of their toString()
+	 * operation. Since these sources yield each element once, representing
+	 * their elements consumes the elements represented, and the element that
+	 * follows them, from the calling component.
+	 * 
+	 * @param iteratorRendering
+	 *            true if iterators, spliterators and streams should be
+	 *            represented by their elements, false otherwise.
+	 */
+	public static void setIteratorRendering(boolean iteratorRendering) {
+
+		VariableAppender.iteratorRendering = iteratorRendering;
+
+	}
+
+	/**
+	 * Gets the size above which numeric arrays and collections of numbers are
+	 * represented by their numeric summary.
+	 * 
+	 * @return the size, or zero if they are never summarised by size.
+	 */
+	public static int getSummaryThreshold() {
+
+		return summaryThreshold;
+
+	}
+
+	/**
+	 * Sets the size above which numeric arrays and collections of numbers are
+	 * represented by their numeric summary, which takes precedence over the
+	 * large collection threshold.
+	 * 
+	 * @param summaryThreshold
+	 *            the size, or zero if they should never be summarised by
+	 *            size.
+	 */
+	public static void setSummaryThreshold(int summaryThreshold) {
+
+		VariableAppender.summaryThreshold = Math.max(summaryThreshold, 0);
+
+	}
+
+	/**
+	 * Appends the numeric summary of the specified numeric array or
+	 * collection of numbers.
+	 * 
+	 * @param variable
+	 *            the array or collection.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the summary was appended, false if the variable is
+	 *         neither a numeric array nor a collection of numbers.
+	 */
+	public static boolean appendSummary(Object variable,
+			StringBuilder destination) {
+
+		NumericSummary summary = NumericSummary.summarise(variable);
+
+		if (summary == null) {
+
+			return false;
+
+		}
+
+		summary.appendTo(destination);
+
+		return true;
+
+	}
+
+	/**
+	 * Appends the numeric summary of the specified numeric array or
+	 * collection of numbers of the specified size if the size is above the
+	 * summary threshold.
+	 * 
+	 * @param variable
+	 *            the array or collection.
+	 * @param size
+	 *            the size of the array or collection.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the summary was appended, false otherwise.
+	 */
+	private static boolean appendSummary(Object variable, int size,
+			StringBuilder destination) {
+
+		int threshold = summaryThreshold;
+
+		if (threshold <= 0 || size <= threshold) {
+
+			return false;
+
+		}
+
+		return appendSummary(variable, destination);
+
+	}
+
+	/**
+	 * Gets the size above which arrays and collections are represented by
+	 * their size and their first and last elements.
+	 * 
+	 * @return the size, or zero if arrays and collections are always
+	 *         represented in their entirety.
+	 */
+	public static int getLargeCollectionThreshold() {
+
+		return largeCollectionThreshold;
+
+	}
+
+	/**
+	 * Sets the size above which arrays and collections are represented by
+	 * their size and their first and last elements, for example (size=5000000:
+	 * a, b, c ... x, y, z)
+	 * 
+	 * @param largeCollectionThreshold
+	 *            the size, or zero if arrays and collections should always be
+	 *            represented in their entirety.
+	 */
+	public static void setLargeCollectionThreshold(
+			int largeCollectionThreshold) {
+
+		VariableAppender.largeCollectionThreshold = Math.max(
+				largeCollectionThreshold, 0);
+
+	}
+
+	/**
+	 * Gets the number of first elements, and of last elements, that represent
+	 * a large array or collection.
+	 * 
+	 * @return the number of elements.
+	 */
+	public static int getLargeCollectionElements() {
+
+		return largeCollectionElements;
+
+	}
+
+	/**
+	 * Sets the number of first elements, and of last elements, that represent
+	 * a large array or collection.
+	 * 
+	 * @param largeCollectionElements
+	 *            the number of elements.
+	 */
+	public static void setLargeCollectionElements(int largeCollectionElements) {
+
+		VariableAppender.largeCollectionElements = Math.max(
+				largeCollectionElements, 1);
+
+	}
+
+	/**
+	 * Determines whether large collections that can be neither indexed nor
+	 * iterated in reverse are represented by a sample of their elements.
+	 * 
+	 * @return true if such collections are sampled, false if they are
+	 *         represented by their first elements.
+	 */
+	public static boolean isLargeCollectionSampling() {
+
+		return largeCollectionSampling;
+
+	}
+
+	/**
+	 * Switches the representation of large collections that can be neither
+	 * indexed nor iterated in reverse between a deterministic reservoir
+	 * sample of twice the number of first elements, drawn in a single pass
+	 * over the collection, and their first elements.
+	 * 
+	 * @param largeCollectionSampling
+	 *            true if such collections should be sampled, false otherwise.
+	 */
+	public static void setLargeCollectionSampling(
+			boolean largeCollectionSampling) {
+
+		VariableAppender.largeCollectionSampling = largeCollectionSampling;
+
+	}
+
+	/**
+	 * Gets the writer of the dump files to which large payloads are written.
+	 * 
+	 * @return the writer, or null if payloads are never dumped.
+	 */
+	public static BulkDumpWriter getBulkDumpWriter() {
+
+		return bulkDumpWriter;
+
+	}
+
+	/**
+	 * Sets the writer of the dump files to which arrays, buffers and
+	 * collections larger than its threshold are written in full, such that
+	 * they are represented only by a reference to their dump. Dumping takes
+	 * precedence over every other representation of a large payload.
+	 * 
+	 * @param bulkDumpWriter
+	 *            the writer, or null if payloads should never be dumped.
+	 */
+	public static void setBulkDumpWriter(BulkDumpWriter bulkDumpWriter) {
+
+		VariableAppender.bulkDumpWriter = bulkDumpWriter;
+
+	}
+
+	/**
+	 * Writes the specified array, buffer or collection to a dump file if the
+	 * bulk dump writer is set and the payload is larger than its threshold,
+	 * and appends the reference to the dump.
+	 * 
+	 * @param variable
+	 *            the array, buffer or collection.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the payload was dumped, false otherwise.
+	 */
+	private static boolean appendDump(Object variable, int maximum,
+			StringBuilder destination) {
+
+		BulkDumpWriter writer = bulkDumpWriter;
+
+		return writer != null && writer.dump(variable, maximum, destination);
+
+	}
+
+	/**
+	 * Gets the size above which arrays, random access lists and ordered
+	 * collections are rendered in parallel.
+	 * 
+	 * @return the size, or zero if they are always rendered sequentially.
+	 */
+	public static int getParallelRenderingThreshold() {
+
+		return parallelRenderingThreshold;
+
+	}
+
+	/**
+	 * Sets the size above which arrays, random access lists and ordered
+	 * collections are rendered in parallel by the common fork-join pool,
+	 * which produces the same representation as sequential rendering.
+	 * 
+	 * @param parallelRenderingThreshold
+	 *            the size, or zero if they should always be rendered
+	 *            sequentially.
+	 */
+	public static void setParallelRenderingThreshold(
+			int parallelRenderingThreshold) {
+
+		VariableAppender.parallelRenderingThreshold = Math.max(
+				parallelRenderingThreshold, 0);
+
+	}
+
+	/**
+	 * Determines whether an array or collection of the specified size is
+	 * rendered in parallel, which it never is unless it has more than one
+	 * chunk of elements, there is more than one processor to render them and
+	 * the maximum length has room for a whole wave of chunks, since with a
+	 * short maximum length the sequential traversal stops after a few
+	 * elements while the parallel chunks would be rendered and thrown away.
+	 * 
+	 * @param size
+	 *            the size.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return true if the array or collection is rendered in parallel, false
+	 *         otherwise.
+	 */
+	private static boolean isParallel(int size, int maximum) {
+
+		int threshold = parallelRenderingThreshold;
+
+		return threshold > 0 && size > threshold
+				&& size > ParallelRenderer.CHUNK_SIZE
+				&& ParallelRenderer.isWithinMaximum(maximum)
+				&& Runtime.getRuntime().availableProcessors() > 1;
+
+	}
+
+	/**
+	 * Determines whether an array or collection of the specified size is
+	 * large.
+	 * 
+	 * @param size
+	 *            the size.
+	 * @return true if the array or collection is large, false otherwise.
+	 */
+	private static boolean isLarge(int size) {
+
+		int threshold = largeCollectionThreshold;
+
+		return threshold > 0 && size > threshold;
+
+	}
+
+	/**
+	 * Appends the representation of the specified large array or random
+	 * access list using the following notation: [size=5000000: a, b, c ... x,
+	 * y, z] for arrays or (size=5000000: a, b, c ... x, y, z) for lists. The
+	 * first and last elements are read by index such that the elements
+	 * between them are never visited.
+	 * 
+	 * @param source
+	 *            the array or random access list.
+	 * @param size
+	 *            the size of the array or list.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendHeadAndTail(Object source, int size,
+			int maximum, StringBuilder destination) {
+
+		boolean list = source instanceof List;
+
+		int start = destination.length();
+
+		int head = Math.min(largeCollectionElements, size);
+		int tail = Math.min(largeCollectionElements, size - head);
+
+		destination.append(list ? '(' : '[');
+		destination.append("size=");
+		destination.append(size);
+		destination.append(": ");
+
+		for (int index = 0; index < head + tail; index++) {
+
+			int sourceIndex = index < head ? index : size - head - tail
+					+ index;
+
+			appendElement(source, sourceIndex, maximum, destination);
+
+			if (appendElision(index, head, tail, size, start, maximum,
+					destination) || RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(list ? ')' : ']');
+
+	}
+
+	/**
+	 * Appends the representation of the element at the specified index of the
+	 * specified array or random access list, reading the elements of arrays of
+	 * primitives by typed index such that they are neither read reflectively
+	 * nor boxed, and representing them as the sequential appendArray()
+	 * operations do.
+	 * 
+	 * @param source
+	 *            the array or random access list.
+	 * @param index
+	 *            the index of the element.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendElement(Object source, int index, int maximum,
+			StringBuilder destination) {
+
+		if (source instanceof Object[]) {
+
+			appendVariable(((Object[]) source)[index], maximum, destination);
+
+		} else if (source instanceof byte[]) {
+
+			destination.append(((byte[]) source)[index]);
+
+		} else if (source instanceof short[]) {
+
+			destination.append(((short[]) source)[index]);
+
+		} else if (source instanceof int[]) {
+
+			destination.append(((int[]) source)[index]);
+
+		} else if (source instanceof long[]) {
+
+			destination.append(((long[]) source)[index]);
+
+		} else if (source instanceof float[]) {
+
+			appendFloat(((float[]) source)[index], destination);
+
+		} else if (source instanceof double[]) {
+
+			appendDouble(((double[]) source)[index], destination);
+
+		} else if (source instanceof boolean[]) {
+
+			destination.append(((boolean[]) source)[index]);
+
+		} else if (source instanceof char[]) {
+
+			appendCharacter(((char[]) source)[index], destination);
+
+		} else {
+
+			appendVariable(((List<?>) source).get(index), maximum,
+					destination);
+
+		}
+
+	}
+
+	/**
+	 * Appends the representation of the specified large collection that
+	 * cannot be indexed using the following notation: (size=5000000: a, b, c
+	 * ... x, y, z) where the last elements are read by iterating in reverse if
+	 * the collection is a deque or a navigable set. Otherwise the collection
+	 * is represented either by a sample of its elements, (size=5000000,
+	 * sample: a, b, c, d, e, f), or by its first elements, (size=5000000: a,
+	 * b, c ...)
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendLargeCollection(Collection<?> collection,
+			int maximum, StringBuilder destination) {
+
+		int size = collection.size();
+
+		int start = destination.length();
+
+		int head = Math.min(largeCollectionElements, size);
+		int tail = Math.min(largeCollectionElements, size - head);
+
+		Iterator<?> descendingIterator = null;
+
+		if (collection instanceof Deque) {
+
+			descendingIterator = ((Deque<?>) collection).descendingIterator();
+
+		} else if (collection instanceof NavigableSet) {
+
+			descendingIterator = ((NavigableSet<?>) collection)
+					.descendingIterator();
+
+		}
+
+		Object[] elements = null;
+
+		boolean sampled = false;
+
+		if (descendingIterator != null) {
+
+			elements = new Object[head + tail];
+
+			Iterator<?> iterator = collection.iterator();
+
+			for (int index = 0; index < head; index++) {
+
+				elements[index] = iterator.next();
+
+			}
+
+			for (int index = head + tail - 1; index >= head; index--) {
+
+				elements[index] = descendingIterator.next();
+
+			}
+
+		} else if (largeCollectionSampling) {
+
+			elements = sample(collection, head + tail);
+
+			sampled = true;
+
+			// the sample is represented in its entirety without an elision
+			head = elements.length;
+			tail = 0;
+			size = head;
+
+		} else {
+
+			elements = new Object[head];
+
+			Iterator<?> iterator = collection.iterator();
+
+			for (int index = 0; index < head; index++) {
+
+				elements[index] = iterator.next();
+
+			}
+
+			tail = 0;
+
+		}
+
+		destination.append("(size=");
+		destination.append(collection.size());
+		destination.append(sampled ? ", sample: " : ": ");
+
+		for (int index = 0; index < head + tail; index++) {
+
+			appendVariable(elements[index], maximum, destination);
+
+			if (appendElision(index, head, tail, size, start, maximum,
+					destination) || RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(')');
+
+	}
+
+	/**
+	 * Draws a deterministic reservoir sample of the specified number of
+	 * elements from the specified collection in a single pass, retaining the
+	 * order in which the sampled elements were drawn.
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @param count
+	 *            the number of elements.
+	 * @return the sample.
+	 */
+	private static Object[] sample(Collection<?> collection, int count) {
+
+		Object[] reservoir = new Object[count];
+
+		long state = SAMPLE_SEED;
+
+		int index = 0;
+
+		for (Object element : collection) {
+
+			if (index < count) {
+
+				reservoir[index] = element;
+
+			} else {
+
+				// xorshift generator such that no random is allocated
+				state ^= state << 13;
+				state ^= state >>> 7;
+				state ^= state << 17;
+
+				long slot = Long.remainderUnsigned(state, index + 1);
+
+				if (slot < count) {
+
+					reservoir[(int) slot] = element;
+
+				}
+
+			}
+
+			index++;
+
+		}
+
+		return index < count ? Arrays.copyOf(reservoir, index) : reservoir;
+
+	}
+
+	/**
+	 * Appends the separator that follows the element at the specified index
+	 * of the first and last elements of a large array or collection, which is
+	 * an elision between the first and the last elements, and determines
+	 * whether the representation begun at the specified start has exceeded
+	 * the maximum length.
+	 * 
+	 * @param index
+	 *            the index of the element among the first and last elements.
+	 * @param head
+	 *            the number of first elements.
+	 * @param tail
+	 *            the number of last elements.
+	 * @param size
+	 *            the size of the array or collection.
+	 * @param start
+	 *            the length of the builder before the representation.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the representation has exceeded the maximum length,
+	 *         false otherwise.
+	 */
+	private static boolean appendElision(int index, int head, int tail,
+			int size, int start, int maximum, StringBuilder destination) {
+
+		if (index == head - 1 && head + tail < size) {
+
+			destination.append(" ...");
+
+			if (tail > 0) {
+
+				destination.append(' ');
+
+			}
+
+		} else if (index != head + tail - 1) {
+
+			destination.append(", ");
+
+		}
+
+		return destination.length() - start > maximum;
+
+	}
+
+	/**
+	 * Appends the representation of the specified collection using the
+	 * following notation: (element1, element2, element3)
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendCollection(Collection<?> collection,
+			int maximum, StringBuilder destination) {
+
+		if (appendDump(collection, maximum, destination)) {
+
+			return;
+
+		}
+
+		if (!(collection instanceof List)
+				|| !(collection instanceof RandomAccess)) {
+
+			if (appendSummary(collection, collection.size(), destination)) {
+
+				// the collection is summarised
+
+			} else if (isLarge(collection.size())) {
+
+				appendLargeCollection(collection, maximum, destination);
+
+			} else if (isParallel(collection.size(), maximum)
+					&& ParallelRenderer.appendSplittable(collection, maximum,
+							destination)) {
+
+				// the collection is rendered in parallel
+
+			} else {
+
+				appendIterator(collection.iterator(), maximum, destination);
+
+			}
+
+			return;
+
+		}
+
+		List<?> list = (List<?>) collection;
+
+		if (appendSummary(list, list.size(), destination)) {
+
+			return;
+
+		}
+
+		if (isLarge(list.size())) {
+
+			appendHeadAndTail(list, list.size(), maximum, destination);
+
+			return;
+
+		}
+
+		if (isParallel(list.size(), maximum)) {
+
+			ParallelRenderer.appendIndexed(list.size(), '(', ')',
+					(index, builder) -> appendVariable(list.get(index), maximum,
+							builder), maximum, destination);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		destination.append('(');
+
+		int size = list.size();
+
+		for (int index = 0; index < size; index++) {
+
+			appendVariable(list.get(index), maximum, destination);
+
+			if (appendSeparator(index, size, start, maximum, destination)
+					|| RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(')');
+
+	}
+
+	/**
+	 * Appends the representation of the elements yielded by the specified
+	 * iterator using the following notation: (element1, element2,
+	 * element3)<br/>
+	 * <br/>
+	 * Elements are pulled from the iterator only until the representation
+	 * exceeds the maximum length, such that a lazy source is never
+	 * materialised beyond the element that follows the last one represented.
+	 * 
+	 * @param iterator
+	 *            the iterator.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendIterator(Iterator<?> iterator, int maximum,
+			StringBuilder destination) {
+
+		appendElements(iterator, null, maximum, destination);
+
+	}
+
+	/**
+	 * Determines whether the specified variable is an iterable that is
+	 * represented by its elements, which it is unless it is a path, whose
+	 * elements are themselves paths, or a throwable, such as a
+	 * java.sql.SQLException whose iterator yields the exception itself
+	 * followed by its chained exceptions.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @return true if the variable is represented by its elements, false
+	 *         otherwise.
+	 */
+	public static boolean isIterableRendered(Object variable) {
+
+		return variable instanceof Iterable && !(variable instanceof Path)
+				&& !(variable instanceof Throwable);
+
+	}
+
+	/**
+	 * Appends the representation of the specified iterable other than a
+	 * collection using the following notation: (element1, element2,
+	 * element3)<br/>
+	 * <br/>
+	 * An iterable whose iterator yields the iterable itself is represented by
+	 * the result of its toString() operation instead, since representing its
+	 * elements would never end.
+	 * 
+	 * @param iterable
+	 *            the iterable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendIterable(Iterable<?> iterable, int maximum,
+			StringBuilder destination) {
+
+		appendElements(iterable.iterator(), iterable, maximum, destination);
+
+	}
+
+	/**
+	 * Appends the elements yielded by the specified iterator using the
+	 * following notation: (element1, element2, element3)<br/>
+	 * <br/>
+	 * If the iterator yields the specified iterable that created it, the
+	 * elements appended so far are discarded and the iterable is represented
+	 * by the result of its toString() operation instead.
+	 * 
+	 * @param iterator
+	 *            the iterator.
+	 * @param iterable
+	 *            the iterable that created the iterator, or null.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendElements(Iterator<?> iterator,
+			Iterable<?> iterable, int maximum, StringBuilder destination) {
+
+		int start = destination.length();
+
+		destination.append('(');
+
+		while (iterator.hasNext()) {
+
+			Object element = iterator.next();
+
+			if (iterable != null && element == iterable) {
+
+				destination.setLength(start);
+
+				appendSimple(iterable, destination);
+
+				return;
+
+			}
+
+			appendVariable(element, maximum, destination);
+
+			if (iterator.hasNext()) {
+
+				destination.append(", ");
+
+			}
+
+			if (destination.length() - start > maximum
+					|| RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append(')');
+
+	}
+
+	/**
+	 * Appends the representation of the specified optional using the same
+	 * notation as its toString() operation, Optional[value] or
+	 * Optional.empty, but representing the value according to its type.
+	 * 
+	 * @param optional
+	 *            the optional.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendOptional(Optional<?> optional, int maximum,
+			StringBuilder destination) {
+
+		if (optional.isPresent()) {
+
+			destination.append("Optional[");
+
+			appendVariable(optional.get(), maximum, destination);
+
+			destination.append(']');
+
+		} else {
+
+			destination.append("Optional.empty");
+
+		}
+
+	}
+
+	/**
+	 * Appends the characters of the specified character sequence without
+	 * converting it to a string, appending no more than one character beyond
+	 * the maximum length since the representation is truncated at the
+	 * maximum length in any case.
+	 * 
+	 * @param sequence
+	 *            the character sequence.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendCharSequence(CharSequence sequence, int maximum,
+			StringBuilder destination) {
+
+		destination.append(sequence, 0,
+				Math.min(sequence.length(), Math.max(maximum, 0) + 1));
+
+	}
+
+	/**
+	 * Appends the representation of the specified map using the following
+	 * notation: {entry1key => entry1value, entry2key => entry2value}
+	 * 
+	 * @param map
+	 *            the map.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendMap(Map<?, ?> map, int maximum,
+			StringBuilder destination) {
+
+		int start = destination.length();
+
+		destination.append('{');
+
+		Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet()
+				.iterator();
+
+		while (iterator.hasNext()) {
+
+			Map.Entry<?, ?> entry = iterator.next();
+
+			appendVariable(entry.getKey(), maximum, destination);
+			destination.append(" => ");
+			appendVariable(entry.getValue(), maximum, destination);
+
+			if (iterator.hasNext()) {
+
+				destination.append(", ");
+
+			}
+
+			if (destination.length() - start > maximum
+					|| RenderDeadline.isExceeded(destination)) {
+
+				return;
+
+			}
+
+		}
+
+		destination.append('}');
+
+	}
+
+	/**
+	 * Appends the representation of the specified variable that is neither an
+	 * array, a collection nor a map, appending primitives directly and using
+	 * the result of the toString() operation exposed by any other variable.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendSimple(Object variable,
+			StringBuilder destination) {
+
+		if (variable instanceof String) {
+
+			destination.append((String) variable);
+
+		} else if (variable instanceof Integer || variable instanceof Long
+				|| variable instanceof Short || variable instanceof Byte) {
+
+			destination.append(((Number) variable).longValue());
+
+		} else if (variable instanceof Double) {
+
+			appendDouble(((Double) variable).doubleValue(), destination);
+
+		} else if (variable instanceof Float) {
+
+			appendFloat(((Float) variable).floatValue(), destination);
+
+		} else if (variable instanceof Boolean) {
+
+			destination.append(((Boolean) variable).booleanValue());
+
+		} else if (variable instanceof Character) {
+
+			appendCharacter(((Character) variable).charValue(), destination);
+
+		} else {
+
+			destination.append(RenderDeadline.represent(variable));
+
+		}
+
+	}
+
+	/**
+	 * Appends the specified double integer as Double.toString() represents it,
+	 * appending integral values of fewer than eight digits as integers, which
+	 * Double.toString() represents as the integer followed by '.0'.
+	 * 
+	 * @param value
+	 *            the double integer.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendDouble(double value, StringBuilder destination) {
+
+		long integer = (long) value;
+
+		if (integer == value && integer > -INTEGRAL_LIMIT
+				&& integer < INTEGRAL_LIMIT
+				&& (integer != 0 || Double.doubleToRawLongBits(value) == 0)) {
+
+			destination.append(integer);
+			destination.append(".0");
+
+		} else {
+
+			destination.append(value);
+
+		}
+
+	}
+
+	/**
+	 * Appends the specified floating-point number as Float.toString()
+	 * represents it, appending integral values of fewer than eight digits as
+	 * integers, which Float.toString() represents as the integer followed by
+	 * '.0'.
+	 * 
+	 * @param value
+	 *            the floating-point number.
+	 * @param destination
+	 *            the builder.
+	 */
+	public static void appendFloat(float value, StringBuilder destination) {
+
+		int integer = (int) value;
+
+		if (integer == value && integer > -INTEGRAL_LIMIT
+				&& integer < INTEGRAL_LIMIT
+				&& (integer != 0 || Float.floatToRawIntBits(value) == 0)) {
+
+			destination.append(integer);
+			destination.append(".0");
+
+		} else {
+
+			destination.append(value);
+
+		}
+
+	}
+
+	/**
+	 * Appends the specified character, representing the 0 character as
+	 * 'null' as the simple variable decorator does for the 0 character.
+	 * 
+	 * @param character
+	 *            the character.
+	 * @param destination
+	 *            the builder.
+	 */
+	private static void appendCharacter(char character,
+			StringBuilder destination) {
+
+		if (character == 0) {
+
+			destination.append("null");
+
+		} else {
+
+			destination.append(character);
+
+		}
+
+	}
+
+	/**
+	 * Appends the separator that follows the element at the specified index,
+	 * unless it is the last element, and determines whether the
+	 * representation begun at the specified start has exceeded the maximum
+	 * length.
+	 * 
+	 * @param index
+	 *            the index of the element.
+	 * @param length
+	 *            the number of elements.
+	 * @param start
+	 *            the length of the builder before the representation.
+	 * @param maximum
+	 *            the maximum length.
+	 * @param destination
+	 *            the builder.
+	 * @return true if the representation has exceeded the maximum length,
+	 *         false otherwise.
+	 */
+	private static boolean appendSeparator(int index, int length, int start,
+			int maximum, StringBuilder destination) {
+
+		if (index != length - 1) {
+
+			destination.append(", ");
+
+		}
+
+		return destination.length() - start > maximum;
+
+	}
+
+}
\ No newline at end of file
@@ -18,8 +18,13 @@
 
 package com.zavazoo.canary.output;
 
+import java.nio.Buffer;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.BaseStream;
 
 /**
  * Strategically creates the optimal variable decorator according to the type of
@@ -86,6 +91,10 @@ public abstract class VariableDecoratorStrategy {
 
 			decorator = new CharacterArrayVariableDecorator();
 
+		} else if (variable instanceof Buffer) {
+
+			decorator = new BufferVariableDecorator();
+
 		} else if (variable instanceof Collection) {
 
 			decorator = new CollectionVariableDecorator();
@@ -94,6 +103,26 @@ public abstract class VariableDecoratorStrategy {
 
 			decorator = new MapVariableDecorator();
 
+		} else if (VariableAppender.isIterableRendered(variable)) {
+
+			decorator = new IterableVariableDecorator();
+
+		} else if (variable instanceof Optional) {
+
+			decorator = new OptionalVariableDecorator();
+
+		} else if (variable instanceof CharSequence
+				&& !(variable instanceof String)) {
+
+			decorator = new CharSequenceVariableDecorator();
+
+		} else if (VariableAppender.isIteratorRendering()
+				&& (variable instanceof Iterator
+						|| variable instanceof Spliterator
+						|| variable instanceof BaseStream)) {
+
+			decorator = new IterableVariableDecorator();
+
 		} else {
 
 			decorator = new SimpleVariableDecorator();
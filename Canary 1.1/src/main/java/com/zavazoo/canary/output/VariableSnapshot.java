@@ -0,0 +1,348 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.output;
+
+import java.lang.reflect.Array;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Takes a cheap, bounded, shallow snapshot of an array, a collection or a map
+ * on the calling thread, such that the snapshot may be rendered later on
+ * another thread into the same representation as the variable itself even if
+ * the variable has since been modified.<br/>
+ * <br/>
+ * A snapshot holds only as many elements or entries as could ever be
+ * represented within the maximum length of the representation, since every
+ * element is followed by a separator of at least two characters, so that
+ * taking a snapshot costs no more than copying that many references or
+ * primitives however large the variable. Primitive arrays are copied with
+ * System.arraycopy, collections into an array of their first elements and
+ * maps into arrays of their first keys and values. The elements themselves
+ * are held by reference, such that immutable elements such as strings and
+ * boxed primitives are represented exactly as they were, whereas mutable
+ * elements are represented as they are when the snapshot is rendered.<br/>
+ * <br/>
+ * Variables whose representation depends on more than their first elements,
+ * being arrays and collections larger than the large collection threshold or
+ * the summary threshold and any payload while a BulkDumpWriter is set, and
+ * variables of any other type are never snapshotted.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class VariableSnapshot {
+
+	/**
+	 * Takes a snapshot of the specified variable sufficient to represent it
+	 * within the specified maximum length of the representation.
+	 * 
+	 * @param variable
+	 *            the variable.
+	 * @param maximum
+	 *            the maximum length.
+	 * @return the snapshot, which is represented in the same way as the
+	 *         variable, or null if the variable cannot be snapshotted.
+	 */
+	public static Object take(Object variable, int maximum) {
+
+		if (variable == null || VariableAppender.getBulkDumpWriter() != null) {
+
+			return null;
+
+		}
+
+		// every element is followed by a separator of at least two
+		// characters so no representation shows more elements than this
+		int elements = Math.max(maximum, 0) / 2 + 2;
+
+		if (variable instanceof Object[]) {
+
+			Object[] array = (Object[]) variable;
+
+			if (!isSnapshotted(array.length)) {
+
+				return null;
+
+			}
+
+			return Arrays.copyOf(array, Math.min(array.length, elements));
+
+		} else if (variable.getClass().isArray()) {
+
+			return copyPrimitiveArray(variable, elements);
+
+		} else if (variable instanceof Collection) {
+
+			return copyCollection((Collection<?>) variable, elements);
+
+		} else if (variable instanceof Map) {
+
+			return copyMap((Map<?, ?>) variable, elements);
+
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Determines whether an array or collection of the specified size is
+	 * represented by its first elements alone, such that it may be
+	 * snapshotted.
+	 * 
+	 * @param size
+	 *            the size.
+	 * @return true if it may be snapshotted, false otherwise.
+	 */
+	private static boolean isSnapshotted(int size) {
+
+		int largeCollectionThreshold = VariableAppender
+				.getLargeCollectionThreshold();
+		int summaryThreshold = VariableAppender.getSummaryThreshold();
+
+		return (largeCollectionThreshold <= 0
+				|| size <= largeCollectionThreshold)
+				&& (summaryThreshold <= 0 || size <= summaryThreshold);
+
+	}
+
+	/**
+	 * Copies the first elements of the specified primitive array.
+	 * 
+	 * @param array
+	 *            the primitive array.
+	 * @param elements
+	 *            the maximum number of elements.
+	 * @return the copy, or null if the array cannot be snapshotted.
+	 */
+	private static Object copyPrimitiveArray(Object array, int elements) {
+
+		int length = Array.getLength(array);
+
+		if (!isSnapshotted(length)) {
+
+			return null;
+
+		}
+
+		int count = Math.min(length, elements);
+
+		Object copy = Array.newInstance(array.getClass().getComponentType(),
+				count);
+
+		System.arraycopy(array, 0, copy, 0, count);
+
+		return copy;
+
+	}
+
+	/**
+	 * Copies the first elements of the specified collection into a list.
+	 * 
+	 * @param collection
+	 *            the collection.
+	 * @param elements
+	 *            the maximum number of elements.
+	 * @return the copy, or null if the collection cannot be snapshotted or is
+	 *         modified while it is copied.
+	 */
+	private static Object copyCollection(Collection<?> collection,
+			int elements) {
+
+		if (!isSnapshotted(collection.size())) {
+
+			return null;
+
+		}
+
+		Object[] copy = new Object[Math.min(collection.size(), elements)];
+
+		int count = 0;
+
+		try {
+
+			Iterator<?> iterator = collection.iterator();
+
+			while (count < copy.length && iterator.hasNext()) {
+
+				copy[count++] = iterator.next();
+
+			}
+
+		} catch (ConcurrentModificationException error) {
+
+			return null;
+
+		} catch (NoSuchElementException error) {
+
+			return null;
+
+		}
+
+		return Arrays.asList(count < copy.length ? Arrays.copyOf(copy, count)
+				: copy);
+
+	}
+
+	/**
+	 * Copies the first entries of the specified map into a map snapshot.
+	 * 
+	 * @param map
+	 *            the map.
+	 * @param elements
+	 *            the maximum number of entries.
+	 * @return the copy, or null if the map is modified while it is copied.
+	 */
+	private static Object copyMap(Map<?, ?> map, int elements) {
+
+		int capacity = Math.min(map.size(), elements);
+
+		Object[] keys = new Object[capacity];
+		Object[] values = new Object[capacity];
+
+		int count = 0;
+
+		try {
+
+			Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet()
+					.iterator();
+
+			while (count < capacity && iterator.hasNext()) {
+
+				Map.Entry<?, ?> entry = iterator.next();
+
+				keys[count] = entry.getKey();
+				values[count] = entry.getValue();
+
+				count++;
+
+			}
+
+		} catch (ConcurrentModificationException error) {
+
+			return null;
+
+		} catch (NoSuchElementException error) {
+
+			return null;
+
+		}
+
+		return new MapSnapshot(keys, values, count);
+
+	}
+
+	/**
+	 * Defines the snapshot of the first entries of a map, which iterates its
+	 * entries in the order in which they were copied without hashing any key.
+	 */
+	private static class MapSnapshot extends AbstractMap<Object, Object> {
+
+		/** The keys of the entries. */
+		private final Object[] keys;
+
+		/** The values of the entries. */
+		private final Object[] values;
+
+		/** The number of entries. */
+		private final int count;
+
+		/**
+		 * Creates the snapshot of the specified number of keys and values.
+		 * 
+		 * @param keys
+		 *            the keys.
+		 * @param values
+		 *            the values.
+		 * @param count
+		 *            the number of entries.
+		 */
+		private MapSnapshot(Object[] keys, Object[] values, int count) {
+
+			this.keys = keys;
+			this.values = values;
+			this.count = count;
+
+		}
+
+		/**
+		 * Gets the entries of this snapshot.
+		 * 
+		 * @return the entries.
+		 */
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+
+			return new AbstractSet<Map.Entry<Object, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<Object, Object>> iterator() {
+
+					return new Iterator<Map.Entry<Object, Object>>() {
+
+						private int index;
+
+						public boolean hasNext() {
+
+							return index < count;
+
+						}
+
+						public Map.Entry<Object, Object> next() {
+
+							if (index >= count) {
+
+								throw new NoSuchElementException();
+
+							}
+
+							int entry = index++;
+
+							return new SimpleImmutableEntry<Object, Object>(
+									keys[entry], values[entry]);
+
+						}
+
+					};
+
+				}
+
+				@Override
+				public int size() {
+
+					return count;
+
+				}
+
+			};
+
+		}
+
+	}
+
+}
\ No newline at end of file
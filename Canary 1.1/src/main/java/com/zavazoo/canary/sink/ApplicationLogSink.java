@@ -0,0 +1,171 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+
+/**
+ * Sink that writes the text of each event to the application logs using the
+ * logger specified by the calling component, or the default logger in the
+ * absence of a specified logger, and the log level of Canary. The pairs of
+ * the trace context of each event are put in the mapped diagnostic context of
+ * log4j while the event is logged, such that layouts and appenders index
+ * events by context fields, for example through %X{requestId}.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class ApplicationLogSink extends CanarySink {
+
+	/** The logger used when calling components do not specify a logger. */
+	private final Logger defaultLogger;
+
+	/**
+	 * Creates a sink that writes to the application logs using the specified
+	 * default logger.
+	 * 
+	 * @param defaultLogger
+	 *            the default logger.
+	 */
+	public ApplicationLogSink(Logger defaultLogger) {
+
+		this.defaultLogger = defaultLogger;
+
+	}
+
+	/**
+	 * Confines this sink to the capturing thread, since log4j layouts read the
+	 * name, nested diagnostic context and location of the logging thread.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isThreadConfined() {
+
+		return true;
+
+	}
+
+	/**
+	 * Writes the text of the specified event to the application logs with the
+	 * pairs of its trace context in the mapped diagnostic context, restoring
+	 * any values that the pairs replaced once the event is logged.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		Logger logger = event.getLogger();
+
+		if (logger == null) {
+
+			logger = defaultLogger;
+
+		}
+
+		TraceContext context = event.getContext();
+
+		if (context.isEmpty()) {
+
+			log(logger, event.getLevel(), event.getText());
+
+			return;
+
+		}
+
+		Object[] replaced = new Object[context.size()];
+
+		for (int index = 0; index < replaced.length; index++) {
+
+			replaced[index] = MDC.get(context.getKey(index));
+
+			MDC.put(context.getKey(index), context.getValue(index));
+
+		}
+
+		try {
+
+			log(logger, event.getLevel(), event.getText());
+
+		} finally {
+
+			for (int index = 0; index < replaced.length; index++) {
+
+				if (replaced[index] == null) {
+
+					MDC.remove(context.getKey(index));
+
+				} else {
+
+					MDC.put(context.getKey(index), replaced[index]);
+
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes the specified text to the specified logger at the specified log
+	 * level.
+	 * 
+	 * @param logger
+	 *            the logger.
+	 * @param logLevel
+	 *            the log level.
+	 * @param text
+	 *            the text.
+	 */
+	private static void log(Logger logger, Level logLevel, String text) {
+
+		if (logLevel == Level.DEBUG) {
+
+			logger.debug(text);
+
+		} else if (logLevel == Level.INFO) {
+
+			logger.info(text);
+
+		} else if (logLevel == Level.WARN) {
+
+			logger.warn(text);
+
+		} else if (logLevel == Level.ERROR) {
+
+			logger.error(text);
+
+		} else if (logLevel == Level.FATAL) {
+
+			logger.fatal(text);
+
+		} else {
+
+			// use the 'trace' log level by default
+			logger.trace(text);
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,645 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.lang.StackWalker.StackFrame;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Defines a single trace captured by Canary and consumed by every active sink.
+ * The representation of the variable is rendered exactly once however many
+ * sinks consume the event, and the location of the calling component is only
+ * resolved if a sink asks for it.<br/>
+ * <br/>
+ * The location is resolved by walking the stack of the calling thread and
+ * therefore must be resolved before the event is handed to another thread,
+ * which Canary does on behalf of any sink that requires the location.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class CanaryEvent {
+
+	/** The name of the class through which calling components enter Canary. */
+	private static final String ENTRY_CLASS_NAME = "com.zavazoo.canary.Canary";
+
+	/** The name of the class of the probes of Canary. */
+	private static final String PROBE_CLASS_NAME = "com.zavazoo.canary.CanaryProbe";
+
+	/** The walker used to resolve the location of the calling component. */
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	/** The function that selects the frame of the calling component. */
+	private static final Function<Stream<StackFrame>, Optional<StackFrame>> CALLER_FRAME = frames -> frames
+			.dropWhile(frame -> !isEntryFrame(frame))
+			.dropWhile(frame -> isEntryFrame(frame)).findFirst();
+
+	/** The wall clock time in milliseconds at which the event was captured. */
+	private long timeMillis;
+
+	/** The monotonic time in nanoseconds at which the event was captured. */
+	private long nanoTime;
+
+	/** The thread that captured the event. */
+	private Thread thread;
+
+	/** The identifier of the variable, or null for a remark. */
+	private String identifier;
+
+	/** The log level of Canary at the time the event was captured. */
+	private Level level;
+
+	/** The logger specified by the calling component, or null. */
+	private Logger logger;
+
+	/** The maximum number of characters of the text of the event. */
+	private int maximum;
+
+	/** The representation of the variable or the text of the remark. */
+	private CharSequence representation;
+
+	/** The time in nanoseconds taken to render the representation. */
+	private long renderNanos;
+
+	/** The text of the event, built on demand. */
+	private String text;
+
+	/** The location of the calling component, resolved on demand. */
+	private StackTraceElement location;
+
+	/** The trace context open on the thread that captured the event. */
+	private TraceContext context = TraceContext.EMPTY;
+
+	/** The flight recorder event begun for the event, if any. */
+	private FlightRecorderTraceEvent flightRecorderEvent;
+
+	/**
+	 * Switch used to indicate that the event is reused for subsequent traces,
+	 * possibly of other threads.
+	 */
+	private boolean reused;
+
+	/**
+	 * Captures an event on the current thread.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param level
+	 *            the log level.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param maximum
+	 *            the maximum number of characters of the text.
+	 */
+	public CanaryEvent(String identifier, Level level, Logger logger,
+			int maximum) {
+
+		this.timeMillis = System.currentTimeMillis();
+		this.nanoTime = System.nanoTime();
+		this.thread = Thread.currentThread();
+		this.identifier = identifier;
+		this.level = level;
+		this.logger = logger;
+		this.maximum = maximum;
+
+	}
+
+	/**
+	 * Creates an event that is captured by reuse.
+	 */
+	public CanaryEvent() {
+
+	}
+
+	/**
+	 * Captures this event again on the current thread such that the event is
+	 * reused rather than allocated for each trace. Used by Canary in the
+	 * garbage-free mode, in which case sinks must not retain the event, its
+	 * representation or its text beyond their write operation.
+	 * 
+	 * @param identifier
+	 *            the identifier, or null for a remark.
+	 * @param level
+	 *            the log level.
+	 * @param logger
+	 *            the logger specified by the calling component, or null.
+	 * @param maximum
+	 *            the maximum number of characters of the text.
+	 */
+	public void reuse(String identifier, Level level, Logger logger,
+			int maximum) {
+
+		this.timeMillis = System.currentTimeMillis();
+		this.nanoTime = System.nanoTime();
+		this.thread = Thread.currentThread();
+		this.identifier = identifier;
+		this.level = level;
+		this.logger = logger;
+		this.maximum = maximum;
+		this.representation = null;
+		this.renderNanos = 0;
+		this.text = null;
+		this.location = null;
+		this.context = TraceContext.EMPTY;
+		this.flightRecorderEvent = null;
+		this.reused = true;
+
+	}
+
+	/**
+	 * Determines whether this event is reused for subsequent traces,
+	 * possibly of other threads, in which case it must not be retained.
+	 * 
+	 * @return true if the event is reused, false otherwise.
+	 */
+	public boolean isReused() {
+
+		return reused;
+
+	}
+
+	/**
+	 * Gets the time millis property.
+	 * 
+	 * @return the wall clock time in milliseconds at which the event was
+	 *         captured.
+	 */
+	public long getTimeMillis() {
+
+		return timeMillis;
+
+	}
+
+	/**
+	 * Gets the nano time property.
+	 * 
+	 * @return the monotonic time in nanoseconds at which the event was
+	 *         captured.
+	 */
+	public long getNanoTime() {
+
+		return nanoTime;
+
+	}
+
+	/**
+	 * Gets the thread property.
+	 * 
+	 * @return the thread that captured the event.
+	 */
+	public Thread getThread() {
+
+		return thread;
+
+	}
+
+	/**
+	 * Gets the identifier property.
+	 * 
+	 * @return the identifier of the variable, or null for a remark.
+	 */
+	public String getIdentifier() {
+
+		return identifier;
+
+	}
+
+	/**
+	 * Gets the level property.
+	 * 
+	 * @return the log level of Canary at the time the event was captured.
+	 */
+	public Level getLevel() {
+
+		return level;
+
+	}
+
+	/**
+	 * Gets the logger property.
+	 * 
+	 * @return the logger specified by the calling component, or null.
+	 */
+	public Logger getLogger() {
+
+		return logger;
+
+	}
+
+	/**
+	 * Gets the maximum property.
+	 * 
+	 * @return the maximum number of characters of the text of the event.
+	 */
+	public int getMaximum() {
+
+		return maximum;
+
+	}
+
+	/**
+	 * Gets the context property.
+	 * 
+	 * @return the trace context open on the thread that captured the event,
+	 *         which is empty if no context was open.
+	 */
+	public TraceContext getContext() {
+
+		return context;
+
+	}
+
+	/**
+	 * Sets the context property.
+	 * 
+	 * @param context
+	 *            the trace context open on the thread that captured the
+	 *            event.
+	 */
+	public void setContext(TraceContext context) {
+
+		this.context = context;
+
+	}
+
+	/**
+	 * Gets the flightRecorderEvent property.
+	 * 
+	 * @return the flight recorder event begun for the event, or null.
+	 */
+	FlightRecorderTraceEvent getFlightRecorderEvent() {
+
+		return flightRecorderEvent;
+
+	}
+
+	/**
+	 * Sets the flightRecorderEvent property.
+	 * 
+	 * @param flightRecorderEvent
+	 *            the flight recorder event begun for the event, or null.
+	 */
+	void setFlightRecorderEvent(FlightRecorderTraceEvent flightRecorderEvent) {
+
+		this.flightRecorderEvent = flightRecorderEvent;
+
+	}
+
+	/**
+	 * Appends the trace context of the event followed by a space to the
+	 * specified builder, unless the context is empty.
+	 * 
+	 * @param destination
+	 *            the builder.
+	 */
+	public void appendContext(StringBuilder destination) {
+
+		if (!context.isEmpty()) {
+
+			context.appendTo(destination);
+			destination.append(' ');
+
+		}
+
+	}
+
+	/**
+	 * Gets the representation property.
+	 * 
+	 * @return the representation of the variable or the text of the remark.
+	 */
+	public String getRepresentation() {
+
+		if (!(representation instanceof String) && representation != null) {
+
+			representation = representation.toString();
+
+		}
+
+		return (String) representation;
+
+	}
+
+	/**
+	 * Gets the render nanos property.
+	 * 
+	 * @return the time in nanoseconds taken to render the representation.
+	 */
+	public long getRenderNanos() {
+
+		return renderNanos;
+
+	}
+
+	/**
+	 * Sets the representation of the variable or the text of the remark and
+	 * the time taken to render it. Unless this event is reused the
+	 * representation must not change once set.
+	 * 
+	 * @param representation
+	 *            the representation.
+	 * @param renderNanos
+	 *            the time in nanoseconds taken to render the representation.
+	 */
+	public void setRepresentation(CharSequence representation,
+			long renderNanos) {
+
+		this.representation = representation;
+		this.renderNanos = renderNanos;
+		this.text = null;
+
+	}
+
+	/**
+	 * Gets the text of the event, being the identifier and the representation
+	 * separated by a colon, or the text of the remark, truncated to the
+	 * maximum number of characters. The text is built once however many sinks
+	 * ask for it.
+	 * 
+	 * @return the text.
+	 */
+	public String getText() {
+
+		if (text == null) {
+
+			StringBuilder builder = new StringBuilder(representation.length()
+					+ (identifier == null ? 0 : identifier.length() + 2));
+
+			appendText(builder);
+
+			text = builder.toString();
+
+		}
+
+		return text;
+
+	}
+
+	/**
+	 * Appends the text of the event, as yielded by getText(), to the specified
+	 * builder without building the text, such that sinks that assemble their
+	 * output in reusable builders allocate nothing.
+	 * 
+	 * @param destination
+	 *            the builder.
+	 */
+	public void appendText(StringBuilder destination) {
+
+		if (text != null) {
+
+			destination.append(text);
+
+			return;
+
+		}
+
+		int start = destination.length();
+
+		if (identifier != null) {
+
+			destination.append(identifier);
+			destination.append(": ");
+
+		}
+
+		destination.append(representation);
+
+		if (destination.length() - start > maximum) {
+
+			destination.setLength(start + maximum);
+			destination.append("...");
+
+		}
+
+	}
+
+	/**
+	 * Encodes the text of the event, as yielded by getText(), as UTF-8 into
+	 * the specified buffer without building the text, such that sinks that
+	 * write bytes encode the representation once, straight into the buffer
+	 * that they write. The maximum number of characters of the text is
+	 * counted in characters rather than bytes.
+	 * 
+	 * @param destination
+	 *            the buffer in write mode.
+	 * @return true if the text was encoded, false if the text does not fit in
+	 *         the remainder of the buffer in which case the position of the
+	 *         buffer is unchanged.
+	 */
+	public boolean encodeText(ByteBuffer destination) {
+
+		int mark = destination.position();
+
+		int length = representation.length();
+
+		if (text != null) {
+
+			if (!encode(text, text.length(), destination)) {
+
+				destination.position(mark);
+
+				return false;
+
+			}
+
+			return true;
+
+		}
+
+		if (identifier != null) {
+
+			length += identifier.length() + 2;
+
+		}
+
+		int remaining = Math.min(length, maximum);
+
+		if (identifier != null) {
+
+			int count = Math.min(identifier.length(), remaining);
+
+			if (!encode(identifier, count, destination)) {
+
+				destination.position(mark);
+
+				return false;
+
+			}
+
+			remaining -= count;
+
+			count = Math.min(2, remaining);
+
+			if (!encode(": ", count, destination)) {
+
+				destination.position(mark);
+
+				return false;
+
+			}
+
+			remaining -= count;
+
+		}
+
+		if (!encode(representation, remaining, destination)
+				|| (length > maximum && !encode("...", 3, destination))) {
+
+			destination.position(mark);
+
+			return false;
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Encodes the specified number of leading characters of the specified
+	 * sequence into the specified buffer.
+	 * 
+	 * @param source
+	 *            the sequence.
+	 * @param count
+	 *            the number of characters.
+	 * @param destination
+	 *            the buffer.
+	 * @return true if the characters were encoded, false if they do not fit.
+	 */
+	private static boolean encode(CharSequence source, int count,
+			ByteBuffer destination) {
+
+		return Utf8Encoder.encode(source, 0, count, destination) == count;
+
+	}
+
+	/**
+	 * Determines whether the location of the calling component has been
+	 * resolved.
+	 * 
+	 * @return true if the location has been resolved, false otherwise.
+	 */
+	public boolean isLocationResolved() {
+
+		return location != null;
+
+	}
+
+	/**
+	 * Gets the location of the calling component, resolving the location by
+	 * walking the stack if it has not been resolved. Unless the location has
+	 * been resolved this method must be called on the thread that captured
+	 * the event while Canary is dispatching the event.
+	 * 
+	 * @return the location.
+	 */
+	public StackTraceElement getLocation() {
+
+		if (location == null) {
+
+			location = resolveLocation();
+
+		}
+
+		return location;
+
+	}
+
+	/**
+	 * Resolves the location of the calling component by walking the stack,
+	 * which must be done on a thread inside Canary that was entered by the
+	 * calling component.
+	 * 
+	 * @return the location.
+	 */
+	public static StackTraceElement resolveLocation() {
+
+		Optional<StackFrame> frame = STACK_WALKER.walk(CALLER_FRAME);
+
+		if (frame.isPresent()) {
+
+			return frame.get().toStackTraceElement();
+
+		}
+
+		return new StackTraceElement("unknown", "unknown", null, -1);
+
+	}
+
+	/**
+	 * Sets the location of the calling component if it is already known such
+	 * that the location is not resolved by walking the stack.
+	 * 
+	 * @param location
+	 *            the location.
+	 */
+	public void setLocation(StackTraceElement location) {
+
+		this.location = location;
+
+	}
+
+	/**
+	 * Truncates the specified text to the specified maximum number of
+	 * characters, denoting the truncation using an ellipsis.
+	 * 
+	 * @param text
+	 *            the text.
+	 * @param maximum
+	 *            the maximum number of characters.
+	 * @return the truncated text, or the text itself if it is short enough.
+	 */
+	public static String truncate(String text, int maximum) {
+
+		if (text.length() > maximum) {
+
+			text = text.substring(0, maximum);
+			text = text + "...";
+
+		}
+
+		return text;
+
+	}
+
+	/**
+	 * Determines whether the specified frame belongs to a class through which
+	 * calling components enter Canary.
+	 * 
+	 * @param frame
+	 *            the frame.
+	 * @return true if the frame belongs to an entry class, false otherwise.
+	 */
+	private static boolean isEntryFrame(StackFrame frame) {
+
+		String className = frame.getClassName();
+
+		return className.equals(ENTRY_CLASS_NAME)
+				|| className.equals(PROBE_CLASS_NAME);
+
+	}
+
+}
\ No newline at end of file
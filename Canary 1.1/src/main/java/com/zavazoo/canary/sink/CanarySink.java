@@ -0,0 +1,133 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.util.Properties;
+
+/**
+ * Defines a destination of the events captured by Canary. Each sink formats
+ * and batches events in its own way. Sinks are registered with Canary either
+ * programmatically or by naming the implementation class in a file named
+ * META-INF/services/com.zavazoo.canary.sink.CanarySink such that the sink is
+ * discovered by the service loader when Canary is initialised.<br/>
+ * <br/>
+ * Canary dispatches each event to each sink on the thread that captured the
+ * event, therefore sinks must be thread-safe and should hand expensive work to
+ * another thread.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class CanarySink {
+
+	/**
+	 * Configures this sink from the Canary properties when the sink is
+	 * discovered by the service loader. Does nothing by default.
+	 * 
+	 * @param properties
+	 *            the properties.
+	 */
+	public void configure(Properties properties) {
+
+	}
+
+	/**
+	 * Determines whether this sink currently accepts events. Canary performs
+	 * no work, not even rendering, if no sink accepts events. Enabled by
+	 * default.
+	 * 
+	 * @return true if this sink accepts events, false otherwise.
+	 */
+	public boolean isEnabled() {
+
+		return true;
+
+	}
+
+	/**
+	 * Determines whether this sink requires the location of the calling
+	 * component, in which case Canary resolves the location before
+	 * dispatching the event to any sink. Sinks that only require the location
+	 * occasionally should return false and call CanaryEvent.getLocation()
+	 * during dispatch instead. Not required by default.
+	 * 
+	 * @return true if this sink requires the location, false otherwise.
+	 */
+	public boolean isLocationRequired() {
+
+		return false;
+
+	}
+
+	/**
+	 * Determines whether this sink retains events beyond its write operation,
+	 * for example to hand them to another thread, in which case Canary never
+	 * reuses the events that it dispatches while this sink is enabled. Not
+	 * retained by default.
+	 * 
+	 * @return true if this sink retains events, false otherwise.
+	 */
+	public boolean isRetainingEvents() {
+
+		return false;
+
+	}
+
+	/**
+	 * Determines whether this sink must be written on the thread on which it
+	 * began the event, for example because it holds the begun event in a
+	 * thread local, in which case Canary never defers the rendering of events
+	 * to another thread while this sink is enabled. Not confined by default.
+	 * 
+	 * @return true if this sink is confined to the capturing thread, false
+	 *         otherwise.
+	 */
+	public boolean isThreadConfined() {
+
+		return false;
+
+	}
+
+	/**
+	 * Begins the specified event before the variable is rendered. Does nothing
+	 * by default.
+	 * 
+	 * @param event
+	 *            the event without a representation.
+	 */
+	public void begin(CanaryEvent event) {
+
+	}
+
+	/**
+	 * Writes the specified rendered event.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public abstract void write(CanaryEvent event);
+
+	/**
+	 * Writes any events that this sink has batched. Does nothing by default.
+	 */
+	public void flush() {
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import jdk.jfr.EventType;
+
+/**
+ * Sink that publishes each event as a {@link FlightRecorderTraceEvent} subject
+ * to the settings of the running recording. The flight recorder event begins
+ * before the variable is rendered such that the threshold of the recording
+ * applies to the rendering, and the location of the calling component is only
+ * resolved for flight recorder events that are committed.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class FlightRecorderSink extends CanarySink {
+
+	/** The type of the flight recorder event. */
+	private final EventType eventType = EventType
+			.getEventType(FlightRecorderTraceEvent.class);
+
+	/**
+	 * Determines whether the running recording, if any, has enabled the
+	 * flight recorder event.
+	 * 
+	 * @return true if the event is enabled, false otherwise.
+	 */
+	@Override
+	public boolean isEnabled() {
+
+		return eventType.isEnabled();
+
+	}
+
+	/**
+	 * Confines this sink to the capturing thread, since the flight recorder
+	 * records the thread that commits each flight recorder event.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isThreadConfined() {
+
+		return true;
+
+	}
+
+	/**
+	 * Begins a flight recorder event for the specified event, holding the
+	 * flight recorder event by the event such that traces nested within the
+	 * rendering of the event begin their own flight recorder events.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	@Override
+	public void begin(CanaryEvent event) {
+
+		FlightRecorderTraceEvent flightRecorderEvent = new FlightRecorderTraceEvent();
+		flightRecorderEvent.begin();
+
+		event.setFlightRecorderEvent(flightRecorderEvent);
+
+	}
+
+	/**
+	 * Ends the flight recorder event begun for the specified event and commits
+	 * the flight recorder event if it exceeds the threshold of the running
+	 * recording.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		FlightRecorderTraceEvent flightRecorderEvent = event
+				.getFlightRecorderEvent();
+
+		if (flightRecorderEvent == null) {
+
+			return;
+
+		}
+
+		event.setFlightRecorderEvent(null);
+
+		flightRecorderEvent.end();
+
+		if (flightRecorderEvent.shouldCommit()) {
+
+			String representation = CanaryEvent.truncate(
+					event.getRepresentation(), event.getMaximum());
+
+			flightRecorderEvent.setRenderDuration(event.getRenderNanos());
+			flightRecorderEvent.setIdentifier(event.getIdentifier());
+			flightRecorderEvent.setRepresentation(representation);
+			flightRecorderEvent.setCaller(event.getLocation());
+
+			if (!event.getContext().isEmpty()) {
+
+				flightRecorderEvent.setContext(event.getContext().toString());
+
+			}
+
+			flightRecorderEvent.commit();
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Defines a JDK Flight Recorder event that records a single Canary trace such
+ * that Canary traces share the timeline of the garbage collection, lock and
+ * allocation events of the recording.<br/>
+ * <br/>
+ * The duration of the event spans the rendering of the variable and is
+ * therefore subject to the threshold configured for the event in the recording
+ * settings, for example:<br/>
+ * <br/>
+ * jcmd &lt;pid&gt; JFR.configure com.zavazoo.canary.Trace#threshold=1ms
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+@Name("com.zavazoo.canary.Trace")
+@Label("Canary Trace")
+@Category("Canary")
+@Description("Representation of a variable or a remark written by Canary")
+@StackTrace(false)
+public class FlightRecorderTraceEvent extends Event {
+
+	/** The identifier of the variable, or null for a remark. */
+	@Label("Identifier")
+	private String identifier;
+
+	/** The representation of the variable or the text of the remark. */
+	@Label("Representation")
+	private String representation;
+
+	/** The name of the class of the calling component. */
+	@Label("Class")
+	private String callerClass;
+
+	/** The name of the method of the calling component. */
+	@Label("Method")
+	private String callerMethod;
+
+	/** The line number of the calling component. */
+	@Label("Line")
+	private int callerLine;
+
+	/** The trace context of the thread that captured the trace, if any. */
+	@Label("Context")
+	private String context;
+
+	/** The time taken to render the representation. */
+	@Label("Render Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long renderDuration;
+
+	/**
+	 * Sets the identifier property.
+	 * 
+	 * @param identifier
+	 *            the identifier property.
+	 */
+	public void setIdentifier(String identifier) {
+
+		this.identifier = identifier;
+
+	}
+
+	/**
+	 * Sets the representation property.
+	 * 
+	 * @param representation
+	 *            the representation property.
+	 */
+	public void setRepresentation(String representation) {
+
+		this.representation = representation;
+
+	}
+
+	/**
+	 * Sets the location properties from the specified stack trace element of
+	 * the calling component.
+	 * 
+	 * @param element
+	 *            the stack trace element.
+	 */
+	public void setCaller(StackTraceElement element) {
+
+		this.callerClass = element.getClassName();
+		this.callerMethod = element.getMethodName();
+		this.callerLine = element.getLineNumber();
+
+	}
+
+	/**
+	 * Sets the context property.
+	 * 
+	 * @param context
+	 *            the context property.
+	 */
+	public void setContext(String context) {
+
+		this.context = context;
+
+	}
+
+	/**
+	 * Sets the render duration property.
+	 * 
+	 * @param renderDuration
+	 *            the render duration property in nanoseconds.
+	 */
+	public void setRenderDuration(long renderDuration) {
+
+		this.renderDuration = renderDuration;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,347 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the shard files written by the {@link ShardedTraceFileWriter} to a
+ * directory into a single stream of records ordered by the monotonic time at
+ * which each record was written, relative to the wall clock time of its shard,
+ * breaking ties by shard and sequence. Only the
+ * next record of each shard is held in memory such that directories of any
+ * size are merged on demand.<br/>
+ * <br/>
+ * The merged stream of a directory is printed to standard output using the
+ * following command:<br/>
+ * <br/>
+ * java -cp canary.jar com.zavazoo.canary.sink.ShardedTraceFileReader
+ * &lt;directory&gt;
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class ShardedTraceFileReader implements Closeable {
+
+	/** The cursors of the shards that have records remaining. */
+	private final PriorityQueue<Cursor> cursors = new PriorityQueue<Cursor>(
+			11, new Comparator<Cursor>() {
+
+				public int compare(Cursor left, Cursor right) {
+
+					int comparison = Long.compare(left.epochNanos,
+							right.epochNanos);
+
+					if (comparison == 0) {
+
+						comparison = left.record.getShard().compareTo(
+								right.record.getShard());
+
+					}
+
+					if (comparison == 0) {
+
+						comparison = Long.compare(left.record.getSequence(),
+								right.record.getSequence());
+
+					}
+
+					return comparison;
+
+				}
+
+			});
+
+	/**
+	 * Opens all shard files in the specified directory.
+	 * 
+	 * @param directory
+	 *            the directory.
+	 * @throws IOException
+	 *             if a shard file cannot be read.
+	 */
+	public ShardedTraceFileReader(File directory) throws IOException {
+
+		File[] files = directory.listFiles(new FileFilter() {
+
+			public boolean accept(File file) {
+
+				return file.isFile()
+						&& file.getName().endsWith(
+								ShardedTraceFileWriter.SUFFIX);
+
+			}
+
+		});
+
+		if (files == null) {
+
+			throw new IOException("cannot list trace file directory "
+					+ directory);
+
+		}
+
+		Cursor cursor = null;
+
+		try {
+
+			for (File file : files) {
+
+				cursor = new Cursor(file);
+
+				if (cursor.advance()) {
+
+					cursors.add(cursor);
+
+				}
+
+				cursor = null;
+
+			}
+
+		} catch (IOException error) {
+
+			// close the shards already opened before the failure is reported
+			try {
+
+				if (cursor != null) {
+
+					cursor.input.close();
+
+				}
+
+				close();
+
+			} catch (IOException suppressed) {
+
+				error.addSuppressed(suppressed);
+
+			}
+
+			throw error;
+
+		}
+
+	}
+
+	/**
+	 * Reads the next record of the merged stream.
+	 * 
+	 * @return the record, or null if all shards are exhausted.
+	 * @throws IOException
+	 *             if a shard file cannot be read.
+	 */
+	public TraceFileRecord read() throws IOException {
+
+		Cursor cursor = cursors.poll();
+
+		if (cursor == null) {
+
+			return null;
+
+		}
+
+		TraceFileRecord record = cursor.record;
+
+		if (cursor.advance()) {
+
+			cursors.add(cursor);
+
+		}
+
+		return record;
+
+	}
+
+	/**
+	 * Closes all shard files.
+	 * 
+	 * @throws IOException
+	 *             if a shard file cannot be closed.
+	 */
+	public void close() throws IOException {
+
+		for (Cursor cursor : cursors) {
+
+			cursor.input.close();
+
+		}
+
+		cursors.clear();
+
+	}
+
+	/**
+	 * Prints the merged stream of the shard files in the directory specified
+	 * by the first argument to standard output.
+	 * 
+	 * @param arguments
+	 *            the arguments.
+	 * @throws IOException
+	 *             if a shard file cannot be read.
+	 */
+	public static void main(String[] arguments) throws IOException {
+
+		if (arguments.length != 1) {
+
+			System.out.println("usage: ShardedTraceFileReader <directory>");
+
+			return;
+
+		}
+
+		ShardedTraceFileReader reader = new ShardedTraceFileReader(new File(
+				arguments[0]));
+
+		try {
+
+			TraceFileRecord record = null;
+
+			while ((record = reader.read()) != null) {
+
+				System.out.println(record);
+
+			}
+
+		} finally {
+
+			reader.close();
+
+		}
+
+	}
+
+	/**
+	 * Defines the position of the merge within a single shard file.
+	 */
+	private static class Cursor {
+
+		/** The input of the shard file. */
+		private final DataInputStream input;
+
+		/** The wall clock time at which the shard was created. */
+		private final long baseMillis;
+
+		/** The monotonic time at which the shard was created. */
+		private final long baseNanos;
+
+		/** The name of the shard. */
+		private final String name;
+
+		/** The next record of the shard. */
+		private TraceFileRecord record;
+
+		/**
+		 * The wall clock time of the next record in nanoseconds, being the
+		 * monotonic time of the record relative to the wall clock time of the
+		 * shard such that records of shards written by the same process are
+		 * ordered exactly.
+		 */
+		private long epochNanos;
+
+		/**
+		 * Opens the specified shard file and reads its header.
+		 * 
+		 * @param file
+		 *            the file.
+		 * @throws IOException
+		 *             if the file is not a shard file.
+		 */
+		private Cursor(File file) throws IOException {
+
+			input = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file), 65536));
+
+			try {
+
+				if (input.readInt() != ShardedTraceFileWriter.MAGIC) {
+
+					throw new IOException(file
+							+ " is not a canary trace file");
+
+				}
+
+				baseMillis = input.readLong();
+				baseNanos = input.readLong();
+
+				byte[] nameBytes = new byte[input.readInt()];
+				input.readFully(nameBytes);
+
+				name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			} catch (IOException error) {
+
+				input.close();
+
+				throw error;
+
+			}
+
+		}
+
+		/**
+		 * Reads the next record of the shard, closing the shard if it is
+		 * exhausted or ends with a partially written record.
+		 * 
+		 * @return true if a record was read, false otherwise.
+		 * @throws IOException
+		 *             if the shard file cannot be read.
+		 */
+		private boolean advance() throws IOException {
+
+			try {
+
+				long nanos = input.readLong();
+				long sequence = input.readLong();
+
+				byte[] textBytes = new byte[input.readInt()];
+				input.readFully(textBytes);
+
+				epochNanos = baseMillis * 1000000L + (nanos - baseNanos);
+
+				long millis = epochNanos / 1000000L;
+
+				record = new TraceFileRecord(nanos, millis, name, sequence,
+						new String(textBytes, StandardCharsets.UTF_8));
+
+				return true;
+
+			} catch (EOFException expected) {
+
+				input.close();
+
+				return false;
+
+			}
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,626 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes trace records to a directory of shard files such that writing threads
+ * never coordinate with each other. Either each thread appends to its own
+ * shard or, if a number of stripes is specified, each thread appends to the
+ * shard of the stripe selected by its thread id such that only threads of the
+ * same stripe share a shard. Virtual threads never have shards of their own
+ * but share the shards of a bounded number of virtual stripes, and every
+ * shard is guarded by a reentrant lock rather than a monitor such that a
+ * virtual thread writing a shard never pins its carrier thread.<br/>
+ * <br/>
+ * Each shard begins with a header comprising the magic number, the wall clock
+ * time in milliseconds and the monotonic time in nanoseconds at which this
+ * writer was created and the name of the shard. Each record comprises the
+ * monotonic time in nanoseconds at which it was written, its sequence within
+ * the shard, the length of its text and its text encoded as UTF-8. The
+ * monotonic time is shared by all shards of the same process and therefore
+ * the records of all shards are merged into a single chronological stream on
+ * demand by the {@link ShardedTraceFileReader}.<br/>
+ * <br/>
+ * The text of each record is encoded by the Utf8Encoder straight into the
+ * buffer of its shard, which may be allocated outside the heap such that the
+ * file channel writes it without first copying it into a temporary direct
+ * buffer.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class ShardedTraceFileWriter {
+
+	/** The magic number that begins each shard. */
+	static final int MAGIC = 0x43414e59;
+
+	/** The suffix of the name of each shard file. */
+	static final String SUFFIX = ".trace";
+
+	/** The size in bytes of the record header preceding the text. */
+	static final int RECORD_HEADER_BYTES = 8 + 8 + 4;
+
+	/** The directory of the shard files. */
+	private final File directory;
+
+	/** The prefix of the names of the shard files written by this process. */
+	private final String prefix;
+
+	/** The size in bytes of the buffer of each shard. */
+	private final int bufferBytes;
+
+	/** Switch used to indicate that shard buffers are direct byte buffers. */
+	private final boolean direct;
+
+	/** The wall clock time at which this writer was created. */
+	private final long baseMillis;
+
+	/** The monotonic time at which this writer was created. */
+	private final long baseNanos;
+
+	/** The counter used to number the shards of individual threads. */
+	private final AtomicInteger shardCounter = new AtomicInteger();
+
+	/** The shards of the stripes, or null if each thread has its own shard. */
+	private final Shard[] stripes;
+
+	/** All open shards. */
+	private final ConcurrentLinkedQueue<Shard> shards = new ConcurrentLinkedQueue<Shard>();
+
+	/**
+	 * The shards of the stripes shared by virtual threads if each platform
+	 * thread has its own shard, each opened when first used.
+	 */
+	private final Shard[] virtualStripes = new Shard[VirtualThreads
+			.getStripeCount()];
+
+	/** The lock guarding the opening of the shards of virtual stripes. */
+	private final ReentrantLock virtualStripeLock = new ReentrantLock();
+
+	/**
+	 * The shard of the current platform thread if each thread has its own
+	 * shard.
+	 */
+	private final ThreadLocal<Shard> threadShard = new ThreadLocal<Shard>() {
+
+		@Override
+		protected Shard initialValue() {
+
+			Thread thread = Thread.currentThread();
+
+			return openShard("thread-" + shardCounter.getAndIncrement(),
+					thread.getName(), thread);
+
+		}
+
+	};
+
+	/**
+	 * Creates a writer of shard files in the specified directory that stripes
+	 * threads over the specified number of shards, or gives each thread its
+	 * own shard if the number of stripes is zero, and that writes the buffer
+	 * of a shard once it exceeds the specified number of bytes and writes all
+	 * buffers at the specified interval.
+	 * 
+	 * @param directory
+	 *            the directory.
+	 * @param stripeCount
+	 *            the number of stripes, or zero for a shard per thread.
+	 * @param bufferBytes
+	 *            the size of the buffer of each shard in bytes.
+	 * @param flushMillis
+	 *            the flush interval in milliseconds.
+	 * @throws IOException
+	 *             if the directory cannot be created.
+	 */
+	public ShardedTraceFileWriter(File directory, int stripeCount,
+			int bufferBytes, long flushMillis) throws IOException {
+
+		this(directory, stripeCount, bufferBytes, flushMillis, false);
+
+	}
+
+	/**
+	 * Creates a writer of shard files in the specified directory that stripes
+	 * threads over the specified number of shards, or gives each thread its
+	 * own shard if the number of stripes is zero, and that writes the buffer
+	 * of a shard once it exceeds the specified number of bytes and writes all
+	 * buffers at the specified interval, allocating buffers outside the heap
+	 * if specified.
+	 * 
+	 * @param directory
+	 *            the directory.
+	 * @param stripeCount
+	 *            the number of stripes, or zero for a shard per thread.
+	 * @param bufferBytes
+	 *            the size of the buffer of each shard in bytes.
+	 * @param flushMillis
+	 *            the flush interval in milliseconds.
+	 * @param direct
+	 *            true if shard buffers should be direct byte buffers, false
+	 *            otherwise.
+	 * @throws IOException
+	 *             if the directory cannot be created.
+	 */
+	public ShardedTraceFileWriter(File directory, int stripeCount,
+			int bufferBytes, final long flushMillis, boolean direct)
+			throws IOException {
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+
+			throw new IOException("cannot create trace file directory "
+					+ directory);
+
+		}
+
+		this.directory = directory;
+		this.prefix = "canary-" + ProcessHandle.current().pid() + "-"
+				+ System.currentTimeMillis() + "-";
+		this.bufferBytes = Math.max(bufferBytes, 1024);
+		this.direct = direct;
+		this.baseMillis = System.currentTimeMillis();
+		this.baseNanos = System.nanoTime();
+
+		if (stripeCount > 0) {
+
+			stripes = new Shard[stripeCount];
+
+			for (int index = 0; index < stripeCount; index++) {
+
+				stripes[index] = openShard("stripe-" + index, "stripe-"
+						+ index, null);
+
+			}
+
+		} else {
+
+			stripes = null;
+
+		}
+
+		Thread flusher = new Thread(new Runnable() {
+
+			public void run() {
+
+				while (true) {
+
+					try {
+
+						Thread.sleep(Math.max(flushMillis, 1));
+
+					} catch (InterruptedException error) {
+
+						return;
+
+					}
+
+					flush();
+
+				}
+
+			}
+
+		}, "canary-trace-file-flusher");
+
+		flusher.setDaemon(true);
+		flusher.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			public void run() {
+
+				flush();
+
+			}
+
+		}, "canary-trace-file-shutdown"));
+
+	}
+
+	/**
+	 * Gets the directory of the shard files.
+	 * 
+	 * @return the directory.
+	 */
+	public File getDirectory() {
+
+		return directory;
+
+	}
+
+	/**
+	 * Appends a record with the specified text to the shard of the current
+	 * thread. The text is encoded directly into the buffer of the shard unless
+	 * it could exceed the capacity of the buffer.
+	 * 
+	 * @param text
+	 *            the text.
+	 */
+	public void write(CharSequence text) {
+
+		Shard shard = null;
+
+		Thread thread = Thread.currentThread();
+
+		if (stripes != null) {
+
+			shard = stripes[(int) (thread.getId() % stripes.length)];
+
+		} else if (VirtualThreads.isVirtual(thread)) {
+
+			shard = virtualStripe(VirtualThreads.getStripe(thread));
+
+		} else {
+
+			shard = threadShard.get();
+
+		}
+
+		shard.lock.lock();
+
+		try {
+
+			shard.append(text);
+
+		} finally {
+
+			shard.lock.unlock();
+
+		}
+
+	}
+
+	/**
+	 * Writes the buffers of all shards to their files and closes the shards
+	 * of threads that have terminated.
+	 */
+	public void flush() {
+
+		Iterator<Shard> iterator = shards.iterator();
+
+		while (iterator.hasNext()) {
+
+			Shard shard = iterator.next();
+
+			shard.lock.lock();
+
+			try {
+
+				shard.write();
+
+				if (shard.owner != null
+						&& (shard.owner.get() == null || !shard.owner.get()
+								.isAlive())) {
+
+					shard.close();
+					iterator.remove();
+
+				}
+
+			} finally {
+
+				shard.lock.unlock();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the shard of the specified virtual stripe, opening it if it is not
+	 * yet open.
+	 * 
+	 * @param stripe
+	 *            the index of the virtual stripe.
+	 * @return the shard.
+	 */
+	private Shard virtualStripe(int stripe) {
+
+		Shard shard = virtualStripes[stripe];
+
+		if (shard == null) {
+
+			virtualStripeLock.lock();
+
+			try {
+
+				shard = virtualStripes[stripe];
+
+				if (shard == null) {
+
+					shard = openShard("virtual-" + stripe, "virtual-"
+							+ stripe, null);
+
+					virtualStripes[stripe] = shard;
+
+				}
+
+			} finally {
+
+				virtualStripeLock.unlock();
+
+			}
+
+		}
+
+		return shard;
+
+	}
+
+	/**
+	 * Opens a new shard with the specified file name suffix and name that is
+	 * owned by the specified thread.
+	 * 
+	 * @param suffix
+	 *            the suffix of the file name.
+	 * @param name
+	 *            the name recorded in the header of the shard.
+	 * @param owner
+	 *            the thread, or null for the shard of a stripe.
+	 * @return the shard.
+	 */
+	private Shard openShard(String suffix, String name, Thread owner) {
+
+		Shard shard = new Shard(new File(directory, prefix + suffix + SUFFIX),
+				name, owner);
+
+		shards.add(shard);
+
+		return shard;
+
+	}
+
+	/**
+	 * Defines a single shard file and its buffer.
+	 */
+	private class Shard {
+
+		/** The thread that owns this shard, or null for a stripe. */
+		private final WeakReference<Thread> owner;
+
+		/** The lock guarding this shard. */
+		private final ReentrantLock lock = new ReentrantLock();
+
+		/** The buffer of records in write mode. */
+		private final ByteBuffer buffer = direct ? ByteBuffer
+				.allocateDirect(bufferBytes) : ByteBuffer.allocate(bufferBytes);
+
+		/** The channel to the shard file, or null if it could not be opened. */
+		private FileChannel channel;
+
+		/** The sequence of the next record. */
+		private long sequence;
+
+		/**
+		 * Creates the shard file with the specified name, owned by the
+		 * specified thread, and writes the header.
+		 * 
+		 * @param file
+		 *            the file.
+		 * @param name
+		 *            the name of the shard.
+		 * @param owner
+		 *            the thread, or null for a stripe.
+		 */
+		private Shard(File file, String name, Thread owner) {
+
+			this.owner = owner == null ? null : new WeakReference<Thread>(
+					owner);
+
+			try {
+
+				channel = new RandomAccessFile(file, "rw").getChannel();
+
+			} catch (IOException error) {
+
+				error.printStackTrace();
+
+			}
+
+			if (name.length() > 128) {
+
+				name = name.substring(0, 128);
+
+			}
+
+			byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+			buffer.putInt(MAGIC);
+			buffer.putLong(baseMillis);
+			buffer.putLong(baseNanos);
+			buffer.putInt(nameBytes.length);
+			buffer.put(nameBytes);
+
+		}
+
+		/**
+		 * Appends a record with the specified text to the buffer, stamped with
+		 * the current monotonic time, encoding the text directly after the
+		 * record header and filling the header once the length of the encoded
+		 * text is known. The buffer is written first if the record might not
+		 * fit. The time is taken while the shard is held, such that the
+		 * records of a shard shared by several threads are in time order.
+		 * 
+		 * @param text
+		 *            the text.
+		 */
+		private void append(CharSequence text) {
+
+			long nanos = System.nanoTime();
+
+			int length = text.length();
+
+			int maximumBytes = RECORD_HEADER_BYTES
+					+ Utf8Encoder.getMaximumBytes(length);
+
+			if (maximumBytes > buffer.remaining()) {
+
+				write();
+
+			}
+
+			if (maximumBytes > buffer.remaining()) {
+
+				append(nanos,
+						text.toString().getBytes(StandardCharsets.UTF_8));
+
+				return;
+
+			}
+
+			int start = buffer.position();
+
+			buffer.position(start + RECORD_HEADER_BYTES);
+
+			Utf8Encoder.encode(text, 0, length, buffer);
+
+			buffer.putLong(start, nanos);
+			buffer.putLong(start + 8, sequence++);
+			buffer.putInt(start + 16, buffer.position() - start
+					- RECORD_HEADER_BYTES);
+
+		}
+
+		/**
+		 * Appends a record with the specified time and text to the buffer,
+		 * writing the buffer first if the record would not fit.
+		 * 
+		 * @param nanos
+		 *            the monotonic time.
+		 * @param bytes
+		 *            the text encoded as UTF-8.
+		 */
+		private void append(long nanos, byte[] bytes) {
+
+			int length = RECORD_HEADER_BYTES + bytes.length;
+
+			if (length > buffer.remaining()) {
+
+				write();
+
+			}
+
+			if (length > buffer.remaining()) {
+
+				ByteBuffer record = ByteBuffer.allocate(length);
+				record.putLong(nanos).putLong(sequence++)
+						.putInt(bytes.length).put(bytes);
+				record.flip();
+
+				write(record);
+
+				return;
+
+			}
+
+			buffer.putLong(nanos);
+			buffer.putLong(sequence++);
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+
+		}
+
+		/**
+		 * Writes the buffer to the shard file and empties the buffer.
+		 */
+		private void write() {
+
+			if (buffer.position() == 0) {
+
+				return;
+
+			}
+
+			buffer.flip();
+			write(buffer);
+			buffer.clear();
+
+		}
+
+		/**
+		 * Writes the specified bytes to the shard file.
+		 * 
+		 * @param bytes
+		 *            the bytes in read mode.
+		 */
+		private void write(ByteBuffer bytes) {
+
+			if (channel == null) {
+
+				return;
+
+			}
+
+			try {
+
+				while (bytes.hasRemaining()) {
+
+					channel.write(bytes);
+
+				}
+
+			} catch (IOException error) {
+
+				error.printStackTrace();
+
+			}
+
+		}
+
+		/**
+		 * Closes the shard file.
+		 */
+		private void close() {
+
+			if (channel == null) {
+
+				return;
+
+			}
+
+			try {
+
+				channel.close();
+
+			} catch (IOException error) {
+
+				error.printStackTrace();
+
+			}
+
+			channel = null;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Sink that writes each event to standard output as a single line comprising
+ * the date and time, the class name, method name and line number of the
+ * calling component and the text of the event, for example:<br/>
+ * <br/>
+ * 2012/11/11 14:31:21.164 Example.main.27: fruit: (apple, banana, orange, pear)
+ * <br/>
+ * <br/>
+ * The text is preceded by the trace context of the event, if any, for
+ * example:<br/>
+ * <br/>
+ * 2012/11/11 14:31:21.164 Example.main.27: {requestId=42} fruit: (apple)<br/>
+ * <br/>
+ * Each line is assembled in its entirety before it is written such that lines
+ * written by concurrent threads never interleave. Lines are written using
+ * System.out unless a {@link StandardOutputWriter} is specified.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class StandardOutputSink extends CanarySink {
+
+	/**
+	 * The date format used to represent the time of each event to the second,
+	 * followed by the milliseconds.
+	 */
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy/MM/dd HH:mm:ss.")
+			.withZone(ZoneId.systemDefault());
+
+	/** The writer used to write in batches, or null to use System.out. */
+	private final StandardOutputWriter writer;
+
+	/**
+	 * The representation of the most recent second represented by this sink
+	 * such that the date and time are only formatted once per second.
+	 */
+	private volatile FormattedSecond formattedSecond;
+
+	/**
+	 * Creates a sink that writes to standard output using the specified
+	 * writer, or using System.out if the writer is null.
+	 * 
+	 * @param writer
+	 *            the writer, or null.
+	 */
+	public StandardOutputSink(StandardOutputWriter writer) {
+
+		this.writer = writer;
+
+	}
+
+	/**
+	 * Requires the location of the calling component for every line.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isLocationRequired() {
+
+		return true;
+
+	}
+
+	/**
+	 * Writes the specified event to standard output as a single line.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		StackTraceElement element = event.getLocation();
+
+		StringBuilder line = null;
+
+		if (writer == null) {
+
+			line = new StringBuilder();
+
+		} else {
+
+			line = writer.beginLine();
+
+		}
+
+		appendTime(event.getTimeMillis(), line);
+
+		line.append(' ');
+		line.append(element.getClassName());
+		line.append('.');
+		line.append(element.getMethodName());
+		line.append('.');
+		line.append(element.getLineNumber());
+		line.append(": ");
+
+		event.appendContext(line);
+		event.appendText(line);
+
+		if (writer == null) {
+
+			System.out.println(line);
+
+		} else {
+
+			writer.completeLine(line);
+
+		}
+
+	}
+
+	/**
+	 * Writes the batches of the writer, if any.
+	 */
+	@Override
+	public void flush() {
+
+		if (writer != null) {
+
+			writer.flush();
+
+		}
+
+	}
+
+	/**
+	 * Appends the date and time of the specified wall clock time to the
+	 * specified line, reusing the representation of the second unless the
+	 * second has changed.
+	 * 
+	 * @param millis
+	 *            the wall clock time in milliseconds.
+	 * @param line
+	 *            the line.
+	 */
+	private void appendTime(long millis, StringBuilder line) {
+
+		long second = Math.floorDiv(millis, 1000L);
+
+		FormattedSecond formattedSecond = this.formattedSecond;
+
+		if (formattedSecond == null || formattedSecond.second != second) {
+
+			formattedSecond = new FormattedSecond(second,
+					DATE_FORMAT.format(Instant.ofEpochSecond(second)));
+
+			this.formattedSecond = formattedSecond;
+
+		}
+
+		line.append(formattedSecond.representation);
+
+		int milliseconds = (int) Math.floorMod(millis, 1000L);
+
+		if (milliseconds < 100) {
+
+			line.append('0');
+
+		}
+
+		if (milliseconds < 10) {
+
+			line.append('0');
+
+		}
+
+		line.append(milliseconds);
+
+	}
+
+	/**
+	 * Defines the representation of a single second.
+	 */
+	private static class FormattedSecond {
+
+		/** The second since the epoch. */
+		private final long second;
+
+		/** The representation of the second. */
+		private final String representation;
+
+		/**
+		 * Creates the representation of a single second.
+		 * 
+		 * @param second
+		 *            the second since the epoch.
+		 * @param representation
+		 *            the representation.
+		 */
+		private FormattedSecond(long second, String representation) {
+
+			this.second = second;
+			this.representation = representation;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,527 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes complete lines to the standard output file descriptor such that
+ * concurrent lines never interleave and threads never contend for the
+ * standard output stream.<br/>
+ * <br/>
+ * Each thread assembles its lines in its own reusable buffers and encodes each
+ * completed line into its own batch. A batch is written to the standard output
+ * file descriptor through a file channel in a single operation either when the
+ * batch exceeds the size threshold or when the flush interval elapses, so that
+ * threads only meet at the file channel once per batch rather than once per
+ * print. Lines from different threads therefore appear on standard output in
+ * batches rather than in strict chronological order.<br/>
+ * <br/>
+ * If the default charset is UTF-8 each line is encoded by the Utf8Encoder
+ * straight from the line builder into the batch. Batches may be allocated
+ * outside the heap such that the file channel writes them without first
+ * copying them into a temporary direct buffer.<br/>
+ * <br/>
+ * Virtual threads share the buffers of a bounded number of stripes, selected
+ * by thread id, rather than holding buffers of their own, and every buffer
+ * and the file channel are guarded by reentrant locks rather than monitors
+ * such that a virtual thread writing a batch never pins its carrier
+ * thread.<br/>
+ * <br/>
+ * Since this writer bypasses System.out it also bypasses any redirection of
+ * standard output by means of System.setOut().
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class StandardOutputWriter {
+
+	/** The line separator appended to each line. */
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	/** The channel to the standard output file descriptor. */
+	private final FileChannel channel;
+
+	/** The charset used to encode lines. */
+	private final Charset charset;
+
+	/** Switch used to indicate that lines are encoded by the Utf8Encoder. */
+	private final boolean utf8;
+
+	/** Switch used to indicate that batches are direct byte buffers. */
+	private final boolean direct;
+
+	/** The number of bytes in a batch that causes the batch to be written. */
+	private final int bufferBytes;
+
+	/** The interval in milliseconds at which all batches are written. */
+	private final long flushMillis;
+
+	/** The lock guarding the file channel. */
+	private final ReentrantLock channelLock = new ReentrantLock();
+
+	/** The buffers of all threads and stripes that have written lines. */
+	private final ConcurrentLinkedQueue<ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue<ThreadBuffer>();
+
+	/** The buffers of the current platform thread. */
+	private final ThreadLocal<ThreadBuffer> threadBuffer = new ThreadLocal<ThreadBuffer>() {
+
+		@Override
+		protected ThreadBuffer initialValue() {
+
+			ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread());
+
+			threadBuffers.add(buffer);
+
+			return buffer;
+
+		}
+
+	};
+
+	/**
+	 * The buffers of the stripes shared by virtual threads, each created when
+	 * first used.
+	 */
+	private final ThreadBuffer[] stripeBuffers = new ThreadBuffer[VirtualThreads
+			.getStripeCount()];
+
+	/** The lock guarding the creation of the buffers of stripes. */
+	private final ReentrantLock stripeLock = new ReentrantLock();
+
+	/**
+	 * Creates a writer to the standard output file descriptor that writes the
+	 * batch of a thread once the batch exceeds the specified number of bytes
+	 * and writes all batches at the specified interval.
+	 * 
+	 * @param bufferBytes
+	 *            the size threshold of each batch in bytes.
+	 * @param flushMillis
+	 *            the flush interval in milliseconds.
+	 */
+	public StandardOutputWriter(int bufferBytes, long flushMillis) {
+
+		this(bufferBytes, flushMillis, false);
+
+	}
+
+	/**
+	 * Creates a writer to the standard output file descriptor that writes the
+	 * batch of a thread once the batch exceeds the specified number of bytes
+	 * and writes all batches at the specified interval, allocating batches
+	 * outside the heap if specified.
+	 * 
+	 * @param bufferBytes
+	 *            the size threshold of each batch in bytes.
+	 * @param flushMillis
+	 *            the flush interval in milliseconds.
+	 * @param direct
+	 *            true if batches should be direct byte buffers, false
+	 *            otherwise.
+	 */
+	public StandardOutputWriter(int bufferBytes, long flushMillis,
+			boolean direct) {
+
+		this.channel = new FileOutputStream(FileDescriptor.out).getChannel();
+		this.charset = Charset.defaultCharset();
+		this.utf8 = charset.equals(StandardCharsets.UTF_8);
+		this.direct = direct;
+		this.bufferBytes = Math.max(bufferBytes, 256);
+		this.flushMillis = Math.max(flushMillis, 1);
+
+		Thread flusher = new Thread(new Runnable() {
+
+			public void run() {
+
+				while (true) {
+
+					try {
+
+						Thread.sleep(StandardOutputWriter.this.flushMillis);
+
+					} catch (InterruptedException error) {
+
+						return;
+
+					}
+
+					flush();
+
+				}
+
+			}
+
+		}, "canary-stdout-flusher");
+
+		flusher.setDaemon(true);
+		flusher.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			public void run() {
+
+				flush();
+
+			}
+
+		}, "canary-stdout-shutdown"));
+
+	}
+
+	/**
+	 * Begins a line on the current thread. A virtual thread is given a new
+	 * line builder since it never holds the buffers of its stripe while the
+	 * calling component assembles the line.
+	 * 
+	 * @return the reusable line builder of the current thread, emptied, to
+	 *         which the calling component appends the line.
+	 */
+	public StringBuilder beginLine() {
+
+		ThreadBuffer buffer = currentBuffer();
+
+		if (buffer.owner == null) {
+
+			return new StringBuilder(256);
+
+		}
+
+		StringBuilder line = buffer.line;
+		line.setLength(0);
+
+		return line;
+
+	}
+
+	/**
+	 * Completes the specified line begun on the current thread by appending
+	 * the line separator and encoding the line into the batch of the current
+	 * thread, writing the batch if it exceeds the size threshold. The line of
+	 * a virtual thread is copied into the buffers of its stripe while they are
+	 * held.
+	 * 
+	 * @param line
+	 *            the line builder returned when the line was begun.
+	 */
+	public void completeLine(StringBuilder line) {
+
+		ThreadBuffer buffer = currentBuffer();
+
+		buffer.lock.lock();
+
+		try {
+
+			if (line != buffer.line) {
+
+				buffer.line.setLength(0);
+				buffer.line.append(line);
+
+			}
+
+			buffer.line.append(LINE_SEPARATOR);
+
+			buffer.append();
+
+		} finally {
+
+			buffer.lock.unlock();
+
+		}
+
+	}
+
+	/**
+	 * Writes the batches of all threads to standard output and forgets the
+	 * buffers of threads that have terminated.
+	 */
+	public void flush() {
+
+		Iterator<ThreadBuffer> iterator = threadBuffers.iterator();
+
+		while (iterator.hasNext()) {
+
+			ThreadBuffer buffer = iterator.next();
+
+			buffer.lock.lock();
+
+			try {
+
+				buffer.write();
+
+			} finally {
+
+				buffer.lock.unlock();
+
+			}
+
+			if (buffer.owner != null
+					&& (buffer.owner.get() == null || !buffer.owner.get()
+							.isAlive())) {
+
+				iterator.remove();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the buffers of the current thread, which are those of its stripe
+	 * if it is a virtual thread.
+	 * 
+	 * @return the buffers.
+	 */
+	private ThreadBuffer currentBuffer() {
+
+		Thread thread = Thread.currentThread();
+
+		if (!VirtualThreads.isVirtual(thread)) {
+
+			return threadBuffer.get();
+
+		}
+
+		int stripe = VirtualThreads.getStripe(thread);
+
+		ThreadBuffer buffer = stripeBuffers[stripe];
+
+		if (buffer == null) {
+
+			stripeLock.lock();
+
+			try {
+
+				buffer = stripeBuffers[stripe];
+
+				if (buffer == null) {
+
+					buffer = new ThreadBuffer(null);
+
+					threadBuffers.add(buffer);
+
+					stripeBuffers[stripe] = buffer;
+
+				}
+
+			} finally {
+
+				stripeLock.unlock();
+
+			}
+
+		}
+
+		return buffer;
+
+	}
+
+	/**
+	 * Writes the specified bytes to standard output in their entirety before
+	 * any other batch is written.
+	 * 
+	 * @param bytes
+	 *            the bytes in read mode.
+	 */
+	private void writeToChannel(ByteBuffer bytes) {
+
+		channelLock.lock();
+
+		try {
+
+			while (bytes.hasRemaining()) {
+
+				channel.write(bytes);
+
+			}
+
+		} catch (IOException error) {
+
+			error.printStackTrace();
+
+		} finally {
+
+			channelLock.unlock();
+
+		}
+
+	}
+
+	/**
+	 * Defines the reusable buffers of a single platform thread or of a stripe
+	 * of virtual threads.
+	 */
+	private class ThreadBuffer {
+
+		/** The thread that owns these buffers, or null for a stripe. */
+		private final WeakReference<Thread> owner;
+
+		/** The lock guarding these buffers. */
+		private final ReentrantLock lock = new ReentrantLock();
+
+		/** The line being assembled. */
+		private final StringBuilder line = new StringBuilder(256);
+
+		/** The encoder of this thread. */
+		private final CharsetEncoder encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		/** The characters of the line being encoded. */
+		private char[] characters = new char[256];
+
+		/** The view of the characters of the line being encoded. */
+		private CharBuffer characterBuffer = CharBuffer.wrap(characters);
+
+		/** The batch of encoded lines in write mode. */
+		private final ByteBuffer batch = direct ? ByteBuffer
+				.allocateDirect(bufferBytes) : ByteBuffer.allocate(bufferBytes);
+
+		/**
+		 * Creates the buffers of the specified thread.
+		 * 
+		 * @param owner
+		 *            the thread, or null for a stripe.
+		 */
+		private ThreadBuffer(Thread owner) {
+
+			this.owner = owner == null ? null : new WeakReference<Thread>(
+					owner);
+
+		}
+
+		/**
+		 * Encodes the assembled line into the batch, writing the batch first
+		 * if the line would exceed the size threshold of the batch.
+		 */
+		private void append() {
+
+			if (utf8) {
+
+				appendUtf8();
+
+				return;
+
+			}
+
+			int length = line.length();
+
+			if (length > characters.length) {
+
+				characters = new char[Math.max(length, characters.length * 2)];
+				characterBuffer = CharBuffer.wrap(characters);
+
+			}
+
+			line.getChars(0, length, characters, 0);
+
+			characterBuffer.clear();
+			characterBuffer.limit(length);
+
+			int mark = batch.position();
+
+			encoder.reset();
+
+			if (encoder.encode(characterBuffer, batch, true).isOverflow()) {
+
+				// the line does not fit in the rest of the batch so write the
+				// batch without the partial line and encode the line again
+				batch.position(mark);
+				write();
+
+				characterBuffer.rewind();
+				encoder.reset();
+
+				if (encoder.encode(characterBuffer, batch, true).isOverflow()) {
+
+					// the line is longer than an entire batch
+					batch.clear();
+					writeToChannel(charset.encode(CharBuffer.wrap(line)));
+
+					return;
+
+				}
+
+			}
+
+		}
+
+		/**
+		 * Encodes the assembled line into the batch using the Utf8Encoder,
+		 * writing the batch first if the line would exceed the size threshold
+		 * of the batch.
+		 */
+		private void appendUtf8() {
+
+			int length = line.length();
+
+			int mark = batch.position();
+
+			if (Utf8Encoder.encode(line, 0, length, batch) < length) {
+
+				// the line does not fit in the rest of the batch so write the
+				// batch without the partial line and encode the line again
+				batch.position(mark);
+				write();
+
+				if (Utf8Encoder.encode(line, 0, length, batch) < length) {
+
+					// the line is longer than an entire batch
+					batch.clear();
+					writeToChannel(charset.encode(CharBuffer.wrap(line)));
+
+				}
+
+			}
+
+		}
+
+		/**
+		 * Writes the batch to standard output and empties the batch.
+		 */
+		private void write() {
+
+			if (batch.position() == 0) {
+
+				return;
+
+			}
+
+			batch.flip();
+			writeToChannel(batch);
+			batch.clear();
+
+		}
+
+	}
+
+}
\ No newline at end of file
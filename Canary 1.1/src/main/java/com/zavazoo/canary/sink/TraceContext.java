@@ -0,0 +1,267 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.sink;
+
+/**
+ * Defines the immutable trace context of a thread, being the key/value pairs,
+ * such as a request id, a tenant or a span id, that Canary attaches to every
+ * trace captured by the thread while the context is open. For example:<br/>
+ * <br/>
+ * ContextScope scope = Canary.openContext("requestId", requestId);<br/>
+ * try {<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;...<br/>
+ * } finally {<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;scope.close();<br/>
+ * }<br/>
+ * <br/>
+ * A context is never modified once created, so every event captured while
+ * it is open refers to the same context and capturing the context costs a
+ * single reference copy. Keys are interned when added such that looking up
+ * a key that is a literal usually costs a reference comparison per pair.
+ * Sinks index events by the values of their context through get().
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class TraceContext {
+
+	/** The empty context. */
+	public static final TraceContext EMPTY = new TraceContext(new String[0],
+			new String[0]);
+
+	/** The interned keys in the order in which they were added. */
+	private final String[] keys;
+
+	/** The values of the keys. */
+	private final String[] values;
+
+	/** The text of this context, built on demand. */
+	private String text;
+
+	/**
+	 * Creates a context with the specified keys and values.
+	 * 
+	 * @param keys
+	 *            the interned keys.
+	 * @param values
+	 *            the values.
+	 */
+	private TraceContext(String[] keys, String[] values) {
+
+		this.keys = keys;
+		this.values = values;
+
+	}
+
+	/**
+	 * Creates a context comprising the pairs of this context and the
+	 * specified key with the specified value, replacing any value of the key
+	 * in this context.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @param value
+	 *            the value, which is represented by its string value.
+	 * @return the new context.
+	 */
+	public TraceContext with(String key, Object value) {
+
+		if (key == null) {
+
+			throw new NullPointerException("key");
+
+		}
+
+		String internedKey = key.intern();
+		String stringValue = String.valueOf(value);
+
+		int index = indexOf(internedKey);
+
+		if (index >= 0) {
+
+			String[] replacedValues = values.clone();
+			replacedValues[index] = stringValue;
+
+			return new TraceContext(keys, replacedValues);
+
+		}
+
+		String[] addedKeys = new String[keys.length + 1];
+		String[] addedValues = new String[values.length + 1];
+
+		System.arraycopy(keys, 0, addedKeys, 0, keys.length);
+		System.arraycopy(values, 0, addedValues, 0, values.length);
+
+		addedKeys[keys.length] = internedKey;
+		addedValues[values.length] = stringValue;
+
+		return new TraceContext(addedKeys, addedValues);
+
+	}
+
+	/**
+	 * Gets the value of the specified key.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return the value, or null if this context has no such key.
+	 */
+	public String get(String key) {
+
+		int index = indexOf(key);
+
+		return index < 0 ? null : values[index];
+
+	}
+
+	/**
+	 * Gets the number of key/value pairs in this context.
+	 * 
+	 * @return the number of pairs.
+	 */
+	public int size() {
+
+		return keys.length;
+
+	}
+
+	/**
+	 * Determines whether this context has no key/value pairs.
+	 * 
+	 * @return true if the context is empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+
+		return keys.length == 0;
+
+	}
+
+	/**
+	 * Gets the key at the specified index.
+	 * 
+	 * @param index
+	 *            the index, in the order in which keys were added.
+	 * @return the key.
+	 */
+	public String getKey(int index) {
+
+		return keys[index];
+
+	}
+
+	/**
+	 * Gets the value at the specified index.
+	 * 
+	 * @param index
+	 *            the index, in the order in which keys were added.
+	 * @return the value.
+	 */
+	public String getValue(int index) {
+
+		return values[index];
+
+	}
+
+	/**
+	 * Appends the text of this context, as yielded by toString(), to the
+	 * specified builder.
+	 * 
+	 * @param destination
+	 *            the builder.
+	 */
+	public void appendTo(StringBuilder destination) {
+
+		destination.append(toString());
+
+	}
+
+	/**
+	 * Represents this context as its key/value pairs in braces, for example
+	 * {requestId=42, tenant=acme}. The text is built once however many sinks
+	 * ask for it.
+	 * 
+	 * @return the text.
+	 */
+	@Override
+	public String toString() {
+
+		if (text == null) {
+
+			StringBuilder builder = new StringBuilder("{");
+
+			for (int index = 0; index < keys.length; index++) {
+
+				if (index > 0) {
+
+					builder.append(", ");
+
+				}
+
+				builder.append(keys[index]);
+				builder.append('=');
+				builder.append(values[index]);
+
+			}
+
+			builder.append('}');
+
+			text = builder.toString();
+
+		}
+
+		return text;
+
+	}
+
+	/**
+	 * Gets the index of the specified key, comparing references first since
+	 * keys are interned.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return the index, or -1 if this context has no such key.
+	 */
+	private int indexOf(String key) {
+
+		for (int index = 0; index < keys.length; index++) {
+
+			if (keys[index] == key) {
+
+				return index;
+
+			}
+
+		}
+
+		for (int index = 0; index < keys.length; index++) {
+
+			if (keys[index].equals(key)) {
+
+				return index;
+
+			}
+
+		}
+
+		return -1;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,504 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink that publishes events to any number of in-process subscribers such as
+ * dashboards, detectors and test harnesses.<br/>
+ * <br/>
+ * The thread that captured an event only offers the event to a single bounded
+ * intake queue, whatever the number of subscribers, and never waits. A
+ * dispatcher thread moves each event from the intake queue into the bounded
+ * buffer of every subscription, discarding events according to the overflow
+ * policy of the subscription if its buffer is full, and each subscription
+ * delivers buffered events to its subscriber on the executor of this
+ * publisher only as far as the subscriber has requested them. A slow
+ * subscriber therefore only ever loses its own events, which are counted by
+ * its subscription.<br/>
+ * <br/>
+ * This sink accepts no events while it has no subscribers, so Canary performs
+ * no work on behalf of a publisher that nobody has subscribed to.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class TraceEventPublisher extends CanarySink implements
+		Flow.Publisher<CanaryEvent> {
+
+	/** The default capacity of the buffer of each subscription. */
+	public static final int DEFAULT_BUFFER_CAPACITY = 256;
+
+	/** The queue of events awaiting the dispatcher. */
+	private final BlockingQueue<CanaryEvent> intake;
+
+	/** The executor on which subscriptions deliver events. */
+	private final Executor executor;
+
+	/** The switch used to indicate that subscribers require the location. */
+	private final boolean locationRequired;
+
+	/** The active subscriptions. */
+	private final CopyOnWriteArrayList<TraceSubscription> subscriptions = new CopyOnWriteArrayList<TraceSubscription>();
+
+	/** The number of events discarded because the intake queue was full. */
+	private final AtomicLong intakeDropCount = new AtomicLong();
+
+	/** The dispatcher thread, or null if it has not been started. */
+	private Thread dispatcher;
+
+	/**
+	 * Creates a publisher with an intake queue of 4096 events that delivers
+	 * events on the common fork-join pool and resolves the location of the
+	 * calling component of each event.
+	 */
+	public TraceEventPublisher() {
+
+		this(4096, ForkJoinPool.commonPool(), true);
+
+	}
+
+	/**
+	 * Creates a publisher with an intake queue of the specified capacity that
+	 * delivers events on the specified executor.
+	 * 
+	 * @param intakeCapacity
+	 *            the capacity of the intake queue.
+	 * @param executor
+	 *            the executor.
+	 * @param locationRequired
+	 *            true if subscribers require the location of the calling
+	 *            component, false otherwise.
+	 */
+	public TraceEventPublisher(int intakeCapacity, Executor executor,
+			boolean locationRequired) {
+
+		this.intake = new ArrayBlockingQueue<CanaryEvent>(intakeCapacity);
+		this.executor = executor;
+		this.locationRequired = locationRequired;
+
+	}
+
+	/**
+	 * Determines whether this publisher has any subscribers.
+	 * 
+	 * @return true if this publisher has subscribers, false otherwise.
+	 */
+	@Override
+	public boolean isEnabled() {
+
+		return !subscriptions.isEmpty();
+
+	}
+
+	/**
+	 * Determines whether subscribers require the location of the calling
+	 * component, which must be resolved before the event leaves the thread
+	 * that captured it.
+	 * 
+	 * @return true if the location is required, false otherwise.
+	 */
+	@Override
+	public boolean isLocationRequired() {
+
+		return locationRequired;
+
+	}
+
+	/**
+	 * Retains events until every subscription has delivered them.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isRetainingEvents() {
+
+		return true;
+
+	}
+
+	/**
+	 * Offers the specified event to the intake queue without waiting.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		if (!intake.offer(event)) {
+
+			intakeDropCount.incrementAndGet();
+
+		}
+
+	}
+
+	/**
+	 * Subscribes the specified subscriber with a buffer of the default
+	 * capacity that discards the newest events when full.
+	 * 
+	 * @param subscriber
+	 *            the subscriber.
+	 */
+	public void subscribe(Flow.Subscriber<? super CanaryEvent> subscriber) {
+
+		subscribe(subscriber, DEFAULT_BUFFER_CAPACITY,
+				OverflowPolicy.DROP_NEWEST);
+
+	}
+
+	/**
+	 * Subscribes the specified subscriber with a buffer of the specified
+	 * capacity that discards events according to the specified policy when
+	 * full.
+	 * 
+	 * @param subscriber
+	 *            the subscriber.
+	 * @param bufferCapacity
+	 *            the capacity of the buffer.
+	 * @param overflowPolicy
+	 *            the overflow policy.
+	 * @return the subscription, which also counts discarded events.
+	 */
+	public TraceSubscription subscribe(
+			Flow.Subscriber<? super CanaryEvent> subscriber,
+			int bufferCapacity, OverflowPolicy overflowPolicy) {
+
+		if (subscriber == null) {
+
+			throw new NullPointerException("subscriber");
+
+		}
+
+		TraceSubscription subscription = new TraceSubscription(subscriber,
+				Math.max(bufferCapacity, 1), overflowPolicy);
+
+		subscriber.onSubscribe(subscription);
+
+		synchronized (this) {
+
+			if (dispatcher == null) {
+
+				dispatcher = new Thread(new Runnable() {
+
+					public void run() {
+
+						dispatch();
+
+					}
+
+				}, "canary-publisher-dispatcher");
+
+				dispatcher.setDaemon(true);
+				dispatcher.start();
+
+			}
+
+		}
+
+		if (!subscription.cancelled) {
+
+			subscriptions.add(subscription);
+
+		}
+
+		return subscription;
+
+	}
+
+	/**
+	 * Gets the number of events discarded because the intake queue was full,
+	 * which are therefore lost to all subscribers.
+	 * 
+	 * @return the number of discarded events.
+	 */
+	public long getIntakeDropCount() {
+
+		return intakeDropCount.get();
+
+	}
+
+	/**
+	 * Moves each event from the intake queue into the buffer of every
+	 * subscription until the dispatcher is interrupted.
+	 */
+	private void dispatch() {
+
+		while (true) {
+
+			CanaryEvent event = null;
+
+			try {
+
+				event = intake.take();
+
+			} catch (InterruptedException error) {
+
+				return;
+
+			}
+
+			for (TraceSubscription subscription : subscriptions) {
+
+				subscription.enqueue(event);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Defines the subscription of a single subscriber, which buffers the
+	 * events of the subscriber and delivers them on demand.
+	 */
+	public class TraceSubscription implements Flow.Subscription {
+
+		/** The subscriber. */
+		private final Flow.Subscriber<? super CanaryEvent> subscriber;
+
+		/** The buffered events. */
+		private final ArrayDeque<CanaryEvent> buffer;
+
+		/** The capacity of the buffer. */
+		private final int bufferCapacity;
+
+		/** The overflow policy. */
+		private final OverflowPolicy overflowPolicy;
+
+		/** The number of events discarded because the buffer was full. */
+		private final AtomicLong dropCount = new AtomicLong();
+
+		/** The switch used to ensure that only one delivery task runs. */
+		private final AtomicBoolean delivering = new AtomicBoolean();
+
+		/** The number of events requested but not yet delivered. */
+		private long demand;
+
+		/** The switch used to indicate that the subscription is cancelled. */
+		private volatile boolean cancelled;
+
+		/**
+		 * Creates a subscription.
+		 * 
+		 * @param subscriber
+		 *            the subscriber.
+		 * @param bufferCapacity
+		 *            the capacity of the buffer.
+		 * @param overflowPolicy
+		 *            the overflow policy.
+		 */
+		private TraceSubscription(
+				Flow.Subscriber<? super CanaryEvent> subscriber,
+				int bufferCapacity, OverflowPolicy overflowPolicy) {
+
+			this.subscriber = subscriber;
+			this.buffer = new ArrayDeque<CanaryEvent>(Math.min(
+					bufferCapacity, 1024));
+			this.bufferCapacity = bufferCapacity;
+			this.overflowPolicy = overflowPolicy;
+
+		}
+
+		/**
+		 * Requests the specified number of further events.
+		 * 
+		 * @param count
+		 *            the number of events.
+		 */
+		public void request(long count) {
+
+			if (count <= 0) {
+
+				cancel();
+
+				subscriber.onError(new IllegalArgumentException(
+						"non-positive subscription request: " + count));
+
+				return;
+
+			}
+
+			synchronized (this) {
+
+				demand += count;
+
+				if (demand < 0) {
+
+					// the demand is unbounded
+					demand = Long.MAX_VALUE;
+
+				}
+
+			}
+
+			scheduleDelivery();
+
+		}
+
+		/**
+		 * Cancels this subscription such that no further events are buffered
+		 * or delivered.
+		 */
+		public void cancel() {
+
+			cancelled = true;
+
+			subscriptions.remove(this);
+
+			synchronized (this) {
+
+				buffer.clear();
+
+			}
+
+		}
+
+		/**
+		 * Gets the number of events discarded because the buffer was full.
+		 * 
+		 * @return the number of discarded events.
+		 */
+		public long getDropCount() {
+
+			return dropCount.get();
+
+		}
+
+		/**
+		 * Buffers the specified event according to the overflow policy and
+		 * schedules delivery.
+		 * 
+		 * @param event
+		 *            the event.
+		 */
+		private void enqueue(CanaryEvent event) {
+
+			synchronized (this) {
+
+				if (buffer.size() >= bufferCapacity) {
+
+					dropCount.incrementAndGet();
+
+					if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+
+						return;
+
+					}
+
+					buffer.pollFirst();
+
+				}
+
+				buffer.addLast(event);
+
+			}
+
+			scheduleDelivery();
+
+		}
+
+		/**
+		 * Schedules a delivery task on the executor if there is no delivery
+		 * task already running.
+		 */
+		private void scheduleDelivery() {
+
+			if (!cancelled && delivering.compareAndSet(false, true)) {
+
+				executor.execute(new Runnable() {
+
+					public void run() {
+
+						deliver();
+
+					}
+
+				});
+
+			}
+
+		}
+
+		/**
+		 * Delivers buffered events to the subscriber as far as the subscriber
+		 * has requested them.
+		 */
+		private void deliver() {
+
+			while (true) {
+
+				CanaryEvent event = null;
+
+				synchronized (this) {
+
+					if (!cancelled && demand > 0) {
+
+						event = buffer.pollFirst();
+
+					}
+
+					if (event == null) {
+
+						// events or demand that arrive from now on schedule
+						// another delivery task
+						delivering.set(false);
+
+						return;
+
+					}
+
+					if (demand != Long.MAX_VALUE) {
+
+						demand--;
+
+					}
+
+				}
+
+				try {
+
+					subscriber.onNext(event);
+
+				} catch (Throwable error) {
+
+					cancel();
+
+					subscriber.onError(error);
+
+					return;
+
+				}
+
+			}
+
+		}
+
+	}
+
+}
\ No newline at end of file
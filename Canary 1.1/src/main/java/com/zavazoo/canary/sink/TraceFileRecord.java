@@ -0,0 +1,147 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Defines a single record read from a shard file written by the
+ * {@link ShardedTraceFileWriter}.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class TraceFileRecord {
+
+	/** The monotonic time in nanoseconds at which the record was written. */
+	private final long nanos;
+
+	/** The wall clock time in milliseconds at which the record was written. */
+	private final long millis;
+
+	/** The name of the shard that contains the record. */
+	private final String shard;
+
+	/** The sequence of the record within its shard. */
+	private final long sequence;
+
+	/** The text of the record. */
+	private final String text;
+
+	/**
+	 * Creates a record.
+	 * 
+	 * @param nanos
+	 *            the monotonic time in nanoseconds.
+	 * @param millis
+	 *            the wall clock time in milliseconds.
+	 * @param shard
+	 *            the name of the shard.
+	 * @param sequence
+	 *            the sequence within the shard.
+	 * @param text
+	 *            the text.
+	 */
+	public TraceFileRecord(long nanos, long millis, String shard,
+			long sequence, String text) {
+
+		this.nanos = nanos;
+		this.millis = millis;
+		this.shard = shard;
+		this.sequence = sequence;
+		this.text = text;
+
+	}
+
+	/**
+	 * Gets the nanos property.
+	 * 
+	 * @return the monotonic time in nanoseconds at which the record was
+	 *         written.
+	 */
+	public long getNanos() {
+
+		return nanos;
+
+	}
+
+	/**
+	 * Gets the millis property.
+	 * 
+	 * @return the wall clock time in milliseconds at which the record was
+	 *         written.
+	 */
+	public long getMillis() {
+
+		return millis;
+
+	}
+
+	/**
+	 * Gets the shard property.
+	 * 
+	 * @return the name of the shard that contains the record.
+	 */
+	public String getShard() {
+
+		return shard;
+
+	}
+
+	/**
+	 * Gets the sequence property.
+	 * 
+	 * @return the sequence of the record within its shard.
+	 */
+	public long getSequence() {
+
+		return sequence;
+
+	}
+
+	/**
+	 * Gets the text property.
+	 * 
+	 * @return the text of the record.
+	 */
+	public String getText() {
+
+		return text;
+
+	}
+
+	/**
+	 * Represents this record using the same notation as Canary uses for
+	 * standard output, qualified by the name of the shard.
+	 * 
+	 * @return the representation.
+	 */
+	@Override
+	public String toString() {
+
+		DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss.SSS");
+
+		return dateFormat.format(new Date(millis)) + " [" + shard + "] "
+				+ text;
+
+	}
+
+}
\ No newline at end of file
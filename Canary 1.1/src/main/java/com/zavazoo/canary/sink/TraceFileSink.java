@@ -0,0 +1,136 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+/**
+ * Sink that writes the location of the calling component and the text of
+ * each event to sharded trace files using a {@link ShardedTraceFileWriter}.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class TraceFileSink extends CanarySink {
+
+	/** The writer of the shard files. */
+	private final ShardedTraceFileWriter writer;
+
+	/**
+	 * The reusable record builder of the current platform thread, whereas
+	 * virtual threads build each record in a new builder rather than holding
+	 * a builder each.
+	 */
+	private final ThreadLocal<StringBuilder> record = new ThreadLocal<StringBuilder>() {
+
+		@Override
+		protected StringBuilder initialValue() {
+
+			return new StringBuilder(256);
+
+		}
+
+	};
+
+	/**
+	 * Creates a sink that writes to the shard files of the specified writer.
+	 * 
+	 * @param writer
+	 *            the writer.
+	 */
+	public TraceFileSink(ShardedTraceFileWriter writer) {
+
+		this.writer = writer;
+
+	}
+
+	/**
+	 * Requires the location of the calling component for every record.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isLocationRequired() {
+
+		return true;
+
+	}
+
+	/**
+	 * Confines this sink to the capturing thread, since each record is
+	 * stamped with the time at which it is written and appended to the shard
+	 * of the writing thread, which must be the traced thread for the shard
+	 * files to merge in order.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isThreadConfined() {
+
+		return true;
+
+	}
+
+	/**
+	 * Appends a record for the specified event to the shard of the current
+	 * thread.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		StackTraceElement element = event.getLocation();
+
+		StringBuilder record = null;
+
+		if (VirtualThreads.isVirtual(Thread.currentThread())) {
+
+			record = new StringBuilder(256);
+
+		} else {
+
+			record = this.record.get();
+			record.setLength(0);
+
+		}
+
+		record.append(element.getClassName());
+		record.append('.');
+		record.append(element.getMethodName());
+		record.append('.');
+		record.append(element.getLineNumber());
+		record.append(": ");
+
+		event.appendContext(record);
+		event.appendText(record);
+
+		writer.write(record);
+
+	}
+
+	/**
+	 * Writes the buffers of all shards to their files.
+	 */
+	@Override
+	public void flush() {
+
+		writer.flush();
+
+	}
+
+}
\ No newline at end of file
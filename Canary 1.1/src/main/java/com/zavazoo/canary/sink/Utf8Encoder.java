@@ -0,0 +1,187 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.zavazoo.canary.sink;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes characters as UTF-8 directly into a byte buffer without a charset
+ * encoder, a character buffer or an intermediate array, such that a rendering
+ * is encoded once, straight from the builder in which it was assembled, into
+ * the buffer that is written to its destination.<br/>
+ * <br/>
+ * Runs of ASCII characters, which comprise the digits, brackets and
+ * separators of almost every rendering, are copied one byte per character
+ * without further inspection. Unpaired surrogates are encoded as '?' in the
+ * same way as the replacing UTF-8 charset encoder.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class Utf8Encoder {
+
+	/** The byte that replaces an unpaired surrogate. */
+	private static final byte REPLACEMENT = '?';
+
+	/**
+	 * Gets the maximum number of bytes that the specified number of characters
+	 * may be encoded as.
+	 * 
+	 * @param characters
+	 *            the number of characters.
+	 * @return the maximum number of bytes.
+	 */
+	public static int getMaximumBytes(int characters) {
+
+		// a surrogate pair encodes to four bytes and any other character to
+		// at most three bytes
+		return characters * 3;
+
+	}
+
+	/**
+	 * Encodes the characters of the specified sequence between the specified
+	 * start, inclusive, and end, exclusive, into the specified buffer from
+	 * its position, advancing the position. Encoding stops before the first
+	 * character that does not fit in the remainder of the buffer.
+	 * 
+	 * @param source
+	 *            the sequence.
+	 * @param start
+	 *            the index of the first character.
+	 * @param end
+	 *            the index after the last character.
+	 * @param destination
+	 *            the buffer in write mode.
+	 * @return the index after the last character encoded, which is the end if
+	 *         every character fitted.
+	 */
+	public static int encode(CharSequence source, int start, int end,
+			ByteBuffer destination) {
+
+		int position = destination.position();
+		int limit = destination.limit();
+
+		int index = start;
+
+		// copy the leading run of ASCII characters without further inspection
+		int asciiEnd = Math.min(end, index + limit - position);
+
+		while (index < asciiEnd) {
+
+			char character = source.charAt(index);
+
+			if (character >= 0x80) {
+
+				break;
+
+			}
+
+			destination.put(position++, (byte) character);
+
+			index++;
+
+		}
+
+		while (index < end) {
+
+			char character = source.charAt(index);
+
+			if (character < 0x80) {
+
+				if (position == limit) {
+
+					break;
+
+				}
+
+				destination.put(position++, (byte) character);
+
+			} else if (character < 0x800) {
+
+				if (limit - position < 2) {
+
+					break;
+
+				}
+
+				destination.put(position++, (byte) (0xc0 | character >> 6));
+				destination.put(position++, (byte) (0x80 | character & 0x3f));
+
+			} else if (Character.isSurrogate(character)) {
+
+				if (Character.isHighSurrogate(character) && index + 1 < end
+						&& Character.isLowSurrogate(source.charAt(index + 1))) {
+
+					if (limit - position < 4) {
+
+						break;
+
+					}
+
+					int codePoint = Character.toCodePoint(character,
+							source.charAt(++index));
+
+					destination.put(position++,
+							(byte) (0xf0 | codePoint >> 18));
+					destination.put(position++,
+							(byte) (0x80 | codePoint >> 12 & 0x3f));
+					destination.put(position++,
+							(byte) (0x80 | codePoint >> 6 & 0x3f));
+					destination.put(position++,
+							(byte) (0x80 | codePoint & 0x3f));
+
+				} else {
+
+					if (position == limit) {
+
+						break;
+
+					}
+
+					destination.put(position++, REPLACEMENT);
+
+				}
+
+			} else {
+
+				if (limit - position < 3) {
+
+					break;
+
+				}
+
+				destination.put(position++, (byte) (0xe0 | character >> 12));
+				destination.put(position++,
+						(byte) (0x80 | character >> 6 & 0x3f));
+				destination.put(position++, (byte) (0x80 | character & 0x3f));
+
+			}
+
+			index++;
+
+		}
+
+		destination.position(position);
+
+		return index;
+
+	}
+
+}
\ No newline at end of file
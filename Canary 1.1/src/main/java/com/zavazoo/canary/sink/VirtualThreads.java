@@ -0,0 +1,124 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary.sink;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Identifies virtual threads on runtimes that support them, such that Canary
+ * shares a bounded number of stripes of buffers between virtual threads
+ * rather than holding buffers for each of what may be millions of virtual
+ * threads.<br/>
+ * <br/>
+ * Virtual threads are identified through a method handle to
+ * Thread.isVirtual() looked up once at runtime, so that Canary continues to
+ * run on runtimes without virtual threads, on which no thread is virtual.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public abstract class VirtualThreads {
+
+	/** The handle to Thread.isVirtual(), or null if it does not exist. */
+	private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+	/** The number of stripes shared by virtual threads. */
+	private static final int STRIPE_COUNT = Math.max(Runtime.getRuntime()
+			.availableProcessors() * 2, 4);
+
+	/**
+	 * Determines whether the specified thread is a virtual thread.
+	 * 
+	 * @param thread
+	 *            the thread.
+	 * @return true if the thread is virtual, false otherwise.
+	 */
+	public static boolean isVirtual(Thread thread) {
+
+		if (IS_VIRTUAL == null) {
+
+			return false;
+
+		}
+
+		try {
+
+			return (boolean) IS_VIRTUAL.invokeExact(thread);
+
+		} catch (Throwable error) {
+
+			return false;
+
+		}
+
+	}
+
+	/**
+	 * Gets the number of stripes that virtual threads share, which is twice
+	 * the number of processors, and therefore of carrier threads, by default.
+	 * 
+	 * @return the number of stripes.
+	 */
+	public static int getStripeCount() {
+
+		return STRIPE_COUNT;
+
+	}
+
+	/**
+	 * Gets the stripe of the specified thread, selected by its thread id.
+	 * 
+	 * @param thread
+	 *            the thread.
+	 * @return the index of the stripe.
+	 */
+	public static int getStripe(Thread thread) {
+
+		return (int) (thread.getId() % STRIPE_COUNT);
+
+	}
+
+	/**
+	 * Looks up the handle to Thread.isVirtual().
+	 * 
+	 * @return the handle, or null if the runtime has no virtual threads.
+	 */
+	private static MethodHandle findIsVirtual() {
+
+		try {
+
+			return MethodHandles.publicLookup().findVirtual(Thread.class,
+					"isVirtual", MethodType.methodType(boolean.class));
+
+		} catch (NoSuchMethodException error) {
+
+			return null;
+
+		} catch (IllegalAccessException error) {
+
+			return null;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,385 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Asserts that the garbage-free mode allocates nothing per trace once warmed
+ * up, for each of the common payloads and each of the overloads of
+ * Canary.output(), by measuring the bytes allocated by the current thread
+ * with the ThreadMXBean.<br/>
+ * <br/>
+ * The traces are written to the recording sink of the tests, which requires
+ * no location, such that neither probes nor plain outputs walk the stack.
+ * Each trace is measured over a number of windows after warming up and every
+ * window must allocate nothing, such that intermittent allocations fail the
+ * test as surely as allocations on every trace.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class GarbageFreeAllocationTest {
+
+	/**
+	 * The number of traces that warm up each trace, such that the code
+	 * compiled for the traces of the previous test has been recompiled.
+	 */
+	private static final int WARM_UP_TRACES = 1000000;
+
+	/** The number of traces of each measured window. */
+	private static final int WINDOW_TRACES = 100000;
+
+	/** The number of measured windows. */
+	private static final int WINDOWS = 10;
+
+	/** The bean that measures the bytes allocated by the current thread. */
+	private static ThreadMXBean threads;
+
+	/**
+	 * Enables the measurement of allocated bytes.
+	 */
+	@BeforeClass
+	public static void enableAllocatedBytes() {
+
+		threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+	}
+
+	/**
+	 * Traces a string through a probe.
+	 */
+	@Test
+	public void probeString() {
+
+		assertGarbageFree(Canary.probe("string"), "garbage-free");
+
+	}
+
+	/**
+	 * Traces a boxed number through a probe.
+	 */
+	@Test
+	public void probeBoxedNumber() {
+
+		assertGarbageFree(Canary.probe("boxedNumber"), Long.valueOf(4711L));
+
+	}
+
+	/**
+	 * Traces a boxed decimal number through a probe.
+	 */
+	@Test
+	public void probeBoxedDecimal() {
+
+		assertGarbageFree(Canary.probe("boxedDecimal"), Double.valueOf(0.1d));
+
+	}
+
+	/**
+	 * Traces an array of integers through a probe.
+	 */
+	@Test
+	public void probeIntArray() {
+
+		assertGarbageFree(Canary.probe("intArray"), new int[] { 1, 2, 3, 4,
+				5 });
+
+	}
+
+	/**
+	 * Traces an array of doubles through a probe.
+	 */
+	@Test
+	public void probeDoubleArray() {
+
+		assertGarbageFree(Canary.probe("doubleArray"), new double[] { 1.5d,
+				-0.0d, Double.NaN });
+
+	}
+
+	/**
+	 * Traces an array of characters, including the character 0, through a
+	 * probe.
+	 */
+	@Test
+	public void probeCharArray() {
+
+		assertGarbageFree(Canary.probe("charArray"), new char[] { 'a', 0,
+				'b' });
+
+	}
+
+	/**
+	 * Traces a list of boxed numbers through a probe.
+	 */
+	@Test
+	public void probeList() {
+
+		assertGarbageFree(Canary.probe("list"), newList());
+
+	}
+
+	/**
+	 * Traces a map of strings to boxed numbers through a probe.
+	 */
+	@Test
+	public void probeMap() {
+
+		assertGarbageFree(Canary.probe("map"), newMap());
+
+	}
+
+	/**
+	 * Traces a string through Canary.output(String, Object).
+	 */
+	@Test
+	public void outputString() {
+
+		assertGarbageFree("output string", () -> Canary.output("string",
+				(Object) "garbage-free"));
+
+	}
+
+	/**
+	 * Traces a boxed number through Canary.output(String, Object).
+	 */
+	@Test
+	public void outputBoxedNumber() {
+
+		Object variable = Long.valueOf(4711L);
+
+		assertGarbageFree("output boxed number", () -> Canary.output(
+				"boxedNumber", variable));
+
+	}
+
+	/**
+	 * Traces an array of integers through Canary.output(String, Object).
+	 */
+	@Test
+	public void outputIntArray() {
+
+		Object variable = new int[] { 1, 2, 3, 4, 5 };
+
+		assertGarbageFree("output int array", () -> Canary.output(
+				"intArray", variable));
+
+	}
+
+	/**
+	 * Traces a list of boxed numbers through Canary.output(String, Object).
+	 */
+	@Test
+	public void outputList() {
+
+		Object variable = newList();
+
+		assertGarbageFree("output list", () -> Canary.output("list",
+				variable));
+
+	}
+
+	/**
+	 * Traces a map of strings to boxed numbers through Canary.output(String,
+	 * Object).
+	 */
+	@Test
+	public void outputMap() {
+
+		Object variable = newMap();
+
+		assertGarbageFree("output map", () -> Canary.output("map", variable));
+
+	}
+
+	/**
+	 * Traces an integer through Canary.output(String, int).
+	 */
+	@Test
+	public void outputInt() {
+
+		assertGarbageFree("output int", () -> Canary.output("int", 4711));
+
+	}
+
+	/**
+	 * Traces a long integer through Canary.output(String, long).
+	 */
+	@Test
+	public void outputLong() {
+
+		assertGarbageFree("output long", () -> Canary.output("long",
+				-4711L));
+
+	}
+
+	/**
+	 * Traces a float through Canary.output(String, float).
+	 */
+	@Test
+	public void outputFloat() {
+
+		assertGarbageFree("output float", () -> Canary.output("float",
+				0.1f));
+
+	}
+
+	/**
+	 * Traces a double through Canary.output(String, double).
+	 */
+	@Test
+	public void outputDouble() {
+
+		assertGarbageFree("output double", () -> Canary.output("double",
+				-0.0d));
+
+	}
+
+	/**
+	 * Traces a boolean through Canary.output(String, boolean).
+	 */
+	@Test
+	public void outputBoolean() {
+
+		assertGarbageFree("output boolean", () -> Canary.output("boolean",
+				true));
+
+	}
+
+	/**
+	 * Traces a character through Canary.output(String, char).
+	 */
+	@Test
+	public void outputChar() {
+
+		assertGarbageFree("output char", () -> Canary.output("char", 'x'));
+
+	}
+
+	/**
+	 * Asserts that tracing the specified variable through the specified probe
+	 * allocates nothing once warmed up.
+	 * 
+	 * @param probe
+	 *            the probe.
+	 * @param variable
+	 *            the variable.
+	 */
+	private static void assertGarbageFree(CanaryProbe probe, Object variable) {
+
+		assertGarbageFree("probe " + probe.getIdentifier(), () -> probe
+				.output(variable));
+
+	}
+
+	/**
+	 * Asserts that the specified trace allocates nothing in any measured
+	 * window once warmed up, and that every trace reached the recording sink.
+	 * 
+	 * @param description
+	 *            the description of the trace.
+	 * @param trace
+	 *            the trace.
+	 */
+	private static void assertGarbageFree(String description, Runnable trace) {
+
+		long thread = Thread.currentThread().getId();
+
+		for (int count = 0; count < WARM_UP_TRACES; count++) {
+
+			trace.run();
+
+		}
+
+		long written = RecordingSink.getWritten();
+
+		long[] allocated = new long[WINDOWS];
+
+		for (int window = 0; window < WINDOWS; window++) {
+
+			long start = threads.getThreadAllocatedBytes(thread);
+
+			for (int count = 0; count < WINDOW_TRACES; count++) {
+
+				trace.run();
+
+			}
+
+			allocated[window] = threads.getThreadAllocatedBytes(thread)
+					- start;
+
+		}
+
+		assertEquals("traces of " + description + " written",
+				(long) WINDOWS * WINDOW_TRACES, RecordingSink.getWritten()
+						- written);
+
+		for (int window = 0; window < WINDOWS; window++) {
+
+			assertTrue("bytes allocated by each window of " + WINDOW_TRACES
+					+ " traces of " + description + ": "
+					+ Arrays.toString(allocated), allocated[window] == 0);
+
+		}
+
+	}
+
+	/**
+	 * Creates a list of boxed numbers.
+	 * 
+	 * @return the list.
+	 */
+	private static List<Integer> newList() {
+
+		return new ArrayList<Integer>(Arrays.asList(7, 8, 9));
+
+	}
+
+	/**
+	 * Creates a map of strings to boxed numbers.
+	 * 
+	 * @return the map.
+	 */
+	private static Map<String, Integer> newMap() {
+
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		map.put("a", 1);
+		map.put("b", 2);
+
+		return map;
+
+	}
+
+}
\ No newline at end of file
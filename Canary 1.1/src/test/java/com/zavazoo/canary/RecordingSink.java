@@ -0,0 +1,120 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zavazoo.canary.sink.CanaryEvent;
+import com.zavazoo.canary.sink.CanarySink;
+import com.zavazoo.canary.sink.VirtualThreads;
+
+/**
+ * Sink of the tests that encodes the text of each event into a buffer of the
+ * writing thread and keeps the text of the last event written by each
+ * platform thread, without requiring the location of the calling component,
+ * such that the tests measure the allocations of Canary itself rather than
+ * those of stack walking or of a file channel. Events written by virtual
+ * threads are only counted, since virtual threads may number millions.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class RecordingSink extends CanarySink {
+
+	/** The number of events written to the sink. */
+	private static final AtomicLong WRITTEN = new AtomicLong();
+
+	/** The buffer into which each thread encodes the text of its events. */
+	private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+
+			return ByteBuffer.allocate(4096);
+
+		}
+
+	};
+
+	/** The text of the last event written by each thread. */
+	private static final ThreadLocal<StringBuilder> LAST_TEXT = new ThreadLocal<StringBuilder>() {
+
+		@Override
+		protected StringBuilder initialValue() {
+
+			return new StringBuilder(256);
+
+		}
+
+	};
+
+	/**
+	 * Encodes the text of the specified event into the buffer of the current
+	 * thread and keeps the text as the last text of the current thread,
+	 * unless the current thread is virtual.
+	 * 
+	 * @param event
+	 *            the event.
+	 */
+	public void write(CanaryEvent event) {
+
+		WRITTEN.incrementAndGet();
+
+		if (VirtualThreads.isVirtual(Thread.currentThread())) {
+
+			return;
+
+		}
+
+		ByteBuffer buffer = BUFFER.get();
+		buffer.clear();
+		event.encodeText(buffer);
+
+		StringBuilder lastText = LAST_TEXT.get();
+		lastText.setLength(0);
+		event.appendText(lastText);
+
+	}
+
+	/**
+	 * Gets the number of events written to the sink.
+	 * 
+	 * @return the number of events.
+	 */
+	public static long getWritten() {
+
+		return WRITTEN.get();
+
+	}
+
+	/**
+	 * Gets the text of the last event written by the current platform
+	 * thread.
+	 * 
+	 * @return the text.
+	 */
+	public static String getLastText() {
+
+		return LAST_TEXT.get().toString();
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.zavazoo.canary.output.VariableAppender;
+import com.zavazoo.canary.output.VariableDecoratorStrategy;
+
+/**
+ * Asserts that iterables whose iterators yield the iterables themselves, such
+ * as a java.sql.SQLException whose iterator yields the exception followed by
+ * its chained exceptions, are represented by the result of their toString()
+ * operation rather than recursing until the stack overflows, through the
+ * appender, the decorators and Canary.output().
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class SelfIteratingVariableTest {
+
+	/**
+	 * Appends a chained SQL exception.
+	 */
+	@Test
+	public void appendSqlException() {
+
+		SQLException exception = newSqlException();
+
+		StringBuilder representation = new StringBuilder();
+
+		VariableAppender.appendVariable(exception, 200, representation);
+
+		assertEquals(exception.toString(), representation.toString());
+
+	}
+
+	/**
+	 * Decorates a chained SQL exception.
+	 */
+	@Test
+	public void decorateSqlException() {
+
+		SQLException exception = newSqlException();
+
+		assertEquals(exception.toString(), VariableDecoratorStrategy
+				.createDecoratorForVariableType(exception, 200)
+				.representVariable());
+
+	}
+
+	/**
+	 * Traces a chained SQL exception through Canary.output(String, Object).
+	 */
+	@Test
+	public void outputSqlException() {
+
+		SQLException exception = newSqlException();
+
+		Canary.output("exception", (Object) exception);
+
+		assertEquals("exception: " + exception, RecordingSink.getLastText());
+
+	}
+
+	/**
+	 * Appends an iterable other than a throwable whose iterator yields the
+	 * iterable itself.
+	 */
+	@Test
+	public void appendSelfIteratingIterable() {
+
+		Iterable<Object> iterable = new Iterable<Object>() {
+
+			public Iterator<Object> iterator() {
+
+				return Collections.<Object> singleton(this).iterator();
+
+			}
+
+			@Override
+			public String toString() {
+
+				return "self";
+
+			}
+
+		};
+
+		StringBuilder representation = new StringBuilder("[");
+
+		VariableAppender.appendVariable(iterable, 200, representation);
+
+		assertEquals("[self", representation.toString());
+
+	}
+
+	/**
+	 * Creates an SQL exception with a chained SQL exception.
+	 * 
+	 * @return the exception.
+	 */
+	private static SQLException newSqlException() {
+
+		SQLException exception = new SQLException("outer", "08001", 17);
+		exception.setNextException(new SQLException("next", "08002", 18));
+
+		return exception;
+
+	}
+
+}
\ No newline at end of file
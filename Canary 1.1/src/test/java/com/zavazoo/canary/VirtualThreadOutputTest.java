@@ -0,0 +1,277 @@
+/*
+ * Zavazoo Canary 1.1 - Java API for extended non-intrusive trace logging 
+ * Copyright (C) 2011-2013 Chris White <chriswhitelondon@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.zavazoo.canary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.zavazoo.canary.sink.ShardedTraceFileReader;
+import com.zavazoo.canary.sink.ShardedTraceFileWriter;
+import com.zavazoo.canary.sink.TraceFileRecord;
+import com.zavazoo.canary.sink.TraceFileSink;
+import com.zavazoo.canary.sink.VirtualThreads;
+
+/**
+ * Asserts that 100,000 concurrent virtual threads tracing through
+ * Canary.output() to the trace file sink, whose shards are shared by stripes
+ * of virtual threads, neither lose nor interleave any of their records.<br/>
+ * <br/>
+ * Virtual threads are started through a method handle to
+ * Thread.startVirtualThread(Runnable) looked up at runtime, in the same way
+ * as {@link VirtualThreads} identifies them, such that the tests build for
+ * runtimes without virtual threads, on which this test is skipped.
+ * 
+ * @author Chris White <chriswhitelondon@gmail.com>
+ * @since JDK11
+ */
+public class VirtualThreadOutputTest {
+
+	/** The number of concurrent virtual threads. */
+	private static final int THREADS = 100000;
+
+	/** The number of traces of each virtual thread. */
+	private static final int TRACES_PER_THREAD = 10;
+
+	/** The pattern of the text of every record written by the threads. */
+	private static final Pattern RECORD = Pattern.compile(Pattern
+			.quote(VirtualThreadOutputTest.class.getName())
+			+ "\\.trace\\.\\d+: virtual: (\\d+)");
+
+	/**
+	 * The handle to Thread.startVirtualThread(), or null if it does not
+	 * exist.
+	 */
+	private static final MethodHandle START_VIRTUAL_THREAD = findStartVirtualThread();
+
+	/** The folder of the shard files. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Traces from 100,000 concurrent virtual threads and reads every record
+	 * back from the shard files.
+	 * 
+	 * @throws Throwable
+	 *             if a virtual thread cannot be started or the shard files
+	 *             cannot be read.
+	 */
+	@Test
+	public void tracesFromVirtualThreads() throws Throwable {
+
+		Assume.assumeNotNull(START_VIRTUAL_THREAD);
+
+		File directory = folder.newFolder("traces");
+
+		ShardedTraceFileWriter writer = new ShardedTraceFileWriter(directory,
+				VirtualThreads.getStripeCount(), 1 << 16, 1000);
+
+		TraceFileSink sink = new TraceFileSink(writer);
+
+		Canary.addSink(sink);
+
+		long elapsedNanos = 0;
+
+		try {
+
+			CountDownLatch started = new CountDownLatch(THREADS);
+			CountDownLatch go = new CountDownLatch(1);
+
+			Thread[] threads = new Thread[THREADS];
+
+			for (int thread = 0; thread < THREADS; thread++) {
+
+				final int first = thread * TRACES_PER_THREAD;
+
+				threads[thread] = (Thread) START_VIRTUAL_THREAD
+						.invokeExact((Runnable) () -> trace(first, started,
+								go));
+
+			}
+
+			// every thread is alive and waiting before any of them traces
+			started.await();
+
+			long start = System.nanoTime();
+
+			go.countDown();
+
+			for (Thread thread : threads) {
+
+				thread.join();
+
+			}
+
+			elapsedNanos = System.nanoTime() - start;
+
+		} finally {
+
+			Canary.removeSink(sink);
+
+		}
+
+		writer.flush();
+
+		assertRecords(directory, elapsedNanos);
+
+	}
+
+	/**
+	 * Traces TRACES_PER_THREAD values from the specified first value once
+	 * every thread has started.
+	 * 
+	 * @param first
+	 *            the first value.
+	 * @param started
+	 *            the latch counted down once the thread has started.
+	 * @param go
+	 *            the latch that releases every thread at once.
+	 */
+	private static void trace(int first, CountDownLatch started,
+			CountDownLatch go) {
+
+		started.countDown();
+
+		try {
+
+			go.await();
+
+		} catch (InterruptedException error) {
+
+			return;
+
+		}
+
+		for (int trace = 0; trace < TRACES_PER_THREAD; trace++) {
+
+			trace(first + trace);
+
+		}
+
+	}
+
+	/**
+	 * Traces the specified value.
+	 * 
+	 * @param value
+	 *            the value.
+	 */
+	private static void trace(int value) {
+
+		Canary.output("virtual", value);
+
+	}
+
+	/**
+	 * Asserts that the shard files of the specified directory hold exactly one
+	 * whole record of each traced value.
+	 * 
+	 * @param directory
+	 *            the directory.
+	 * @param elapsedNanos
+	 *            the time taken to trace every value in nanoseconds.
+	 * @throws Exception
+	 *             if the shard files cannot be read.
+	 */
+	private static void assertRecords(File directory, long elapsedNanos)
+			throws Exception {
+
+		int expected = THREADS * TRACES_PER_THREAD;
+
+		BitSet traced = new BitSet(expected);
+
+		int records = 0;
+
+		ShardedTraceFileReader reader = new ShardedTraceFileReader(directory);
+
+		try {
+
+			TraceFileRecord record = null;
+
+			while ((record = reader.read()) != null) {
+
+				Matcher matcher = RECORD.matcher(record.getText());
+
+				assertTrue("interleaved record " + record.getText(), matcher
+						.matches());
+
+				int value = Integer.parseInt(matcher.group(1));
+
+				assertTrue("duplicated record " + record.getText(),
+						value < expected && !traced.get(value));
+
+				traced.set(value);
+
+				records++;
+
+			}
+
+		} finally {
+
+			reader.close();
+
+		}
+
+		assertEquals("records written by " + THREADS
+				+ " virtual threads at " + expected * 1000000000L
+				/ Math.max(elapsedNanos, 1) + " traces per second", expected,
+				records);
+
+	}
+
+	/**
+	 * Looks up the handle to Thread.startVirtualThread().
+	 * 
+	 * @return the handle, or null if the runtime has no virtual threads.
+	 */
+	private static MethodHandle findStartVirtualThread() {
+
+		try {
+
+			return MethodHandles.publicLookup().findStatic(Thread.class,
+					"startVirtualThread", MethodType.methodType(Thread.class,
+							Runnable.class));
+
+		} catch (NoSuchMethodException error) {
+
+			return null;
+
+		} catch (IllegalAccessException error) {
+
+			return null;
+
+		}
+
+	}
+
+}
\ No newline at end of file